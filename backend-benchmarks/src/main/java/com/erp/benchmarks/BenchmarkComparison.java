@@ -0,0 +1,117 @@
+package com.erp.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Compares two JMH JSON result files, benchmark by benchmark (including @Param values), and exits
+// with status 1 if any got worse by more than the threshold: slower (or lower throughput) beyond
+// the two runs' combined error, or allocating more per operation.
+//
+//   java -cp benchmarks.jar com.erp.benchmarks.BenchmarkComparison baseline.json current.json [threshold-percent]
+public class BenchmarkComparison {
+
+    private static final String ALLOCATION = "gc.alloc.rate.norm";
+    // Allocation differences below this many bytes per operation are noise (e.g. an occasional TLAB refill)
+    private static final double MIN_ALLOCATION_DELTA = 8;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: BenchmarkComparison <baseline.json> <current.json> [threshold-percent, default 10]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        Map<String, JsonNode> baseline = byKey(objectMapper.readTree(new File(args[0])));
+        Map<String, JsonNode> current = byKey(objectMapper.readTree(new File(args[1])));
+
+        int regressions = 0;
+        System.out.printf(Locale.ROOT, "%-70s %14s %14s %8s %12s %12s %8s%n",
+                "benchmark", "baseline", "current", "change", "base B/op", "curr B/op", "change");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            JsonNode after = entry.getValue();
+            if (before == null) {
+                System.out.printf(Locale.ROOT, "%-70s %14s %14.3f%n", entry.getKey(), "(new)", score(after));
+                continue;
+            }
+
+            boolean higherIsBetter = "thrpt".equals(after.path("mode").asText());
+            double scoreBefore = score(before);
+            double scoreAfter = score(after);
+            double scoreChange = percentChange(scoreBefore, scoreAfter);
+            double worsening = higherIsBetter ? -scoreChange : scoreChange;
+            double error = before.path("primaryMetric").path("scoreError").asDouble(0)
+                    + after.path("primaryMetric").path("scoreError").asDouble(0);
+            boolean slower = worsening > threshold && Math.abs(scoreAfter - scoreBefore) > error;
+
+            double allocBefore = allocation(before);
+            double allocAfter = allocation(after);
+            double allocChange = percentChange(allocBefore, allocAfter);
+            boolean allocatesMore = allocChange > threshold && allocAfter - allocBefore > MIN_ALLOCATION_DELTA;
+
+            System.out.printf(Locale.ROOT, "%-70s %14.3f %14.3f %+7.1f%% %12.1f %12.1f %+7.1f%%%s%n",
+                    entry.getKey(), scoreBefore, scoreAfter, scoreChange, allocBefore, allocAfter, allocChange,
+                    slower || allocatesMore ? "  REGRESSION" : "");
+            if (slower || allocatesMore) {
+                regressions++;
+            }
+        }
+        for (String key : baseline.keySet()) {
+            if (!current.containsKey(key)) {
+                System.out.printf(Locale.ROOT, "%-70s %14s%n", key, "(removed)");
+            }
+        }
+
+        if (regressions > 0) {
+            System.out.printf(Locale.ROOT, "%d benchmark(s) regressed by more than %.1f%%%n", regressions, threshold);
+            System.exit(1);
+        }
+    }
+
+    // "OrderSerializationBenchmark.serializeOrder [itemCount=10]"
+    private static Map<String, JsonNode> byKey(JsonNode results) {
+        Map<String, JsonNode> byKey = new LinkedHashMap<>();
+        for (JsonNode result : results) {
+            String benchmark = result.path("benchmark").asText();
+            StringBuilder key = new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1));
+            JsonNode params = result.path("params");
+            if (params.size() > 0) {
+                key.append(" [");
+                Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> param = fields.next();
+                    key.append(param.getKey()).append('=').append(param.getValue().asText());
+                    if (fields.hasNext()) {
+                        key.append(", ");
+                    }
+                }
+                key.append(']');
+            }
+            byKey.put(key.toString(), result);
+        }
+        return byKey;
+    }
+
+    private static double score(JsonNode result) {
+        return result.path("primaryMetric").path("score").asDouble();
+    }
+
+    private static double allocation(JsonNode result) {
+        return result.path("secondaryMetrics").path(ALLOCATION).path("score").asDouble(0);
+    }
+
+    private static double percentChange(double before, double after) {
+        if (before == 0) {
+            return after == 0 ? 0 : 100;
+        }
+        return (after - before) / before * 100;
+    }
+}
@@ -0,0 +1,109 @@
+package com.erp.benchmarks;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+// In-memory stand-ins for the Spring Data repositories, so services can be benchmarked without a
+// database. Every repository method answers as it would against an empty table: saves return the
+// entity they were given, finders return nothing, exists checks false and counts zero. Optionally
+// findById returns one fixed entity, for lookups a service needs to succeed.
+final class FakeRepositories {
+
+    private FakeRepositories() {
+    }
+
+    static <R> R empty(Class<R> repositoryType) {
+        return withEntity(repositoryType, null);
+    }
+
+    static <R> R withEntity(Class<R> repositoryType, Object entity) {
+        Optional<Object> byId = Optional.ofNullable(entity);
+        return repositoryType.cast(Proxy.newProxyInstance(repositoryType.getClassLoader(), new Class<?>[]{repositoryType},
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return objectMethod(proxy, method, args, repositoryType);
+                    }
+                    if (method.getName().equals("findById")) {
+                        return byId;
+                    }
+                    if (method.getName().startsWith("save")) {
+                        return args[0];
+                    }
+                    return emptyResult(method.getReturnType());
+                }));
+    }
+
+    // Transactions that begin and end without doing anything
+    static PlatformTransactionManager transactionManager() {
+        return new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definition) {
+                return new SimpleTransactionStatus();
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) {
+            }
+        };
+    }
+
+    private static Object emptyResult(Class<?> type) {
+        if (type == Optional.class) {
+            return Optional.empty();
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == Stream.class) {
+            return Stream.empty();
+        }
+        if (type == Page.class) {
+            return Page.empty();
+        }
+        if (type == Slice.class) {
+            return new SliceImpl<>(List.of());
+        }
+        if (type == Set.class) {
+            return Set.of();
+        }
+        if (type == Map.class) {
+            return Map.of();
+        }
+        if (Collection.class.isAssignableFrom(type) || type == Iterable.class) {
+            return List.of();
+        }
+        return null;
+    }
+
+    private static Object objectMethod(Object proxy, Method method, Object[] args, Class<?> repositoryType) {
+        return switch (method.getName()) {
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            default -> "Fake" + repositoryType.getSimpleName();
+        };
+    }
+}
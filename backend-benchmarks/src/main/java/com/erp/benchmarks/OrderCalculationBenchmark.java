@@ -0,0 +1,91 @@
+package com.erp.benchmarks;
+
+import com.erp.backend.model.Invoice;
+import com.erp.backend.model.Order;
+import com.erp.backend.model.OrderItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+// The BigDecimal arithmetic run on every order, item and invoice write: the methods Hibernate reaches
+// through the @PrePersist/@PreUpdate callbacks before a flush, called directly.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderCalculationBenchmark {
+
+    private OrderItem item;
+    private Invoice invoice;
+
+    @Setup
+    public void setUp() {
+        item = orderItem(0);
+
+        invoice = new Invoice();
+        invoice.setTotalAmount(new BigDecimal("1250.00"));
+        invoice.setAmountPaid(new BigDecimal("400.00"));
+    }
+
+    @Benchmark
+    public BigDecimal orderItemCalculateTotal() {
+        item.calculateTotal();
+        return item.getTotal();
+    }
+
+    @Benchmark
+    public BigDecimal orderRecalculateTotals(OrderState state) {
+        state.order.recalculateTotals();
+        return state.order.getTotalAmount();
+    }
+
+    @Benchmark
+    public BigDecimal invoiceCalculateAmountDue() {
+        invoice.calculateAmountDue();
+        return invoice.getAmountDue();
+    }
+
+    private static OrderItem orderItem(int i) {
+        OrderItem orderItem = new OrderItem();
+        orderItem.setQuantity(1 + i % 7);
+        orderItem.setUnitPrice(new BigDecimal("19.99").add(BigDecimal.valueOf(i)));
+        orderItem.setDiscountPercent(new BigDecimal("5"));
+        orderItem.setTaxPercent(new BigDecimal("18"));
+        orderItem.calculateTotal();
+        return orderItem;
+    }
+
+    // Only the order total depends on the number of lines
+    @State(Scope.Thread)
+    public static class OrderState {
+
+        @Param({"1", "10", "100"})
+        public int itemCount;
+
+        private Order order;
+
+        @Setup
+        public void setUp() {
+            order = new Order();
+            order.setTaxAmount(new BigDecimal("12.50"));
+            order.setShippingCost(new BigDecimal("7.99"));
+            order.setDiscountAmount(new BigDecimal("5.00"));
+            for (int i = 0; i < itemCount; i++) {
+                order.getOrderItems().add(orderItem(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.erp.benchmarks;
+
+import com.erp.backend.model.Customer;
+import com.erp.backend.model.Order;
+import com.erp.backend.model.OrderItem;
+import com.erp.backend.model.Product;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// An order with its customer and lines, written the way the order endpoints return it
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderSerializationBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int itemCount;
+
+    private ObjectMapper objectMapper;
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        // Same defaults as the application's mapper (Java time module, ISO dates)
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        Customer customer = new Customer();
+        customer.setId(42L);
+        customer.setName("Acme Industrial Supplies");
+        customer.setEmail("purchasing@acme.example");
+        customer.setPhone("+1 555 0100");
+        customer.setAddress("1 Factory Road");
+        customer.setCity("Springfield");
+        customer.setCountry("US");
+        customer.setCreditLimit(50000.0);
+        customer.setCreatedAt(LocalDateTime.of(2023, 1, 5, 9, 30));
+
+        order = new Order();
+        order.setId(1001L);
+        order.setOrderNumber("ORD-2024-001001");
+        order.setCustomer(customer);
+        order.setOrderDate(LocalDateTime.of(2024, 3, 14, 10, 15));
+        order.setShippingAddress("1 Factory Road");
+        order.setShippingCity("Springfield");
+        order.setShippingCountry("US");
+        order.setPaymentMethod("BANK_TRANSFER");
+        order.setCreatedAt(order.getOrderDate());
+        order.setUpdatedAt(order.getOrderDate());
+        for (int i = 0; i < itemCount; i++) {
+            Product product = new Product();
+            product.setId(500L + i);
+            product.setSku("SKU-" + (500 + i));
+            product.setName("Hex bolt M8x" + (20 + i));
+            product.setDescription("Zinc plated hex bolt, pack of 100");
+            product.setUnitPrice(new BigDecimal("19.99"));
+            product.setCostPrice(new BigDecimal("11.20"));
+            product.setStockQuantity(250);
+            product.setUnit("pack");
+            product.setTaxRate(new BigDecimal("18"));
+
+            OrderItem item = new OrderItem();
+            item.setId(9000L + i);
+            item.setProduct(product);
+            item.setQuantity(1 + i % 7);
+            item.setUnitPrice(product.getUnitPrice());
+            item.setTaxPercent(new BigDecimal("18"));
+            item.calculateTotal();
+            order.addOrderItem(item);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeOrder() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(order);
+    }
+}
@@ -0,0 +1,101 @@
+package com.erp.benchmarks;
+
+import com.erp.backend.dto.ProductDTO;
+import com.erp.backend.model.Category;
+import com.erp.backend.model.Product;
+import com.erp.backend.model.Supplier;
+import com.erp.backend.repository.CategoryRepository;
+import com.erp.backend.repository.ProductRepository;
+import com.erp.backend.repository.StockMovementRepository;
+import com.erp.backend.repository.SupplierRepository;
+import com.erp.backend.repository.UserRepository;
+import com.erp.backend.service.CategoryTreeIndex;
+import com.erp.backend.service.InventoryService;
+import com.erp.backend.service.ProductCatalogCache;
+import com.erp.backend.service.ProductSearchIndex;
+import com.erp.backend.service.ProductService;
+import com.erp.backend.service.StockReservationLedger;
+import com.erp.backend.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+// ProductService.createProduct on the real services, but NOT on a database: every repository is a
+// FakeRepositories proxy that answers like an empty table, except for the product's category and
+// supplier, and save returns its argument. This measures the service's own work on a create: SKU
+// check, DTO to entity mapping, the save call and the after-commit hooks, which run at once because
+// no transaction is open. No SQL is issued, so the numbers say nothing about insert cost.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductCreationBenchmark {
+
+    private ProductService productService;
+    private ProductDTO dto;
+
+    @Setup
+    public void setUp() {
+        Category category = new Category();
+        category.setId(3L);
+        category.setName("Fasteners");
+        Supplier supplier = new Supplier();
+        supplier.setId(7L);
+        supplier.setName("Bolt & Nut Co");
+
+        PlatformTransactionManager transactionManager = FakeRepositories.transactionManager();
+        ProductRepository productRepository = FakeRepositories.empty(ProductRepository.class);
+        CategoryRepository categoryRepository = FakeRepositories.withEntity(CategoryRepository.class, category);
+        StockMovementRepository stockMovementRepository = FakeRepositories.empty(StockMovementRepository.class);
+
+        // Ledger off, as in the default configuration; the search index is left unbuilt
+        StockReservationLedger ledger = new StockReservationLedger(productRepository, stockMovementRepository,
+                transactionManager, false, 64);
+        InventoryService inventoryService = new InventoryService(productRepository, stockMovementRepository, ledger,
+                transactionManager, 5, 1, 5000, 3, 1000);
+        productService = new ProductService(productRepository,
+                categoryRepository,
+                FakeRepositories.withEntity(SupplierRepository.class, supplier),
+                new UserService(FakeRepositories.empty(UserRepository.class), new BCryptPasswordEncoder(), 10000, 30),
+                inventoryService,
+                new ProductCatalogCache(productRepository, inventoryService, 10000, 600, 2000),
+                new CategoryTreeIndex(categoryRepository),
+                new ProductSearchIndex(productRepository, transactionManager));
+
+        dto = new ProductDTO();
+        dto.setSku("SKU-500");
+        dto.setName("Hex bolt M8x20");
+        dto.setDescription("Zinc plated hex bolt, pack of 100");
+        dto.setCategoryId(category.getId());
+        dto.setSupplierId(supplier.getId());
+        dto.setUnitPrice(new BigDecimal("19.99"));
+        dto.setCostPrice(new BigDecimal("11.20"));
+        dto.setStockQuantity(250);
+        dto.setReorderLevel(50);
+        dto.setReorderQuantity(200);
+        dto.setUnit("pack");
+        dto.setWeight(new BigDecimal("1.2"));
+        dto.setDimensions("10x10x5");
+        dto.setBarcode("4006381333931");
+        dto.setTaxRate(new BigDecimal("18"));
+    }
+
+    @Benchmark
+    public Product createProduct() {
+        return productService.createProduct(dto);
+    }
+}
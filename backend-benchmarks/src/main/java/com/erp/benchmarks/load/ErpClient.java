@@ -0,0 +1,84 @@
+package com.erp.benchmarks.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+// Thin HTTP client for the ERP API, shared by all load test workers. Reads the X-SQL-Count and
+// X-SQL-Time-Ms headers that the perf profile adds to every response.
+final class ErpClient {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+    private final HttpClient http;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+    private String token;
+
+    ErpClient(String baseUrl) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    void login(String username, String password) throws IOException, InterruptedException {
+        String body = objectMapper.createObjectNode().put("username", username).put("password", password).toString();
+        Response response = send(HttpRequest.newBuilder(uri("/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body)));
+        if (response.status() != 200) {
+            throw new IOException("Login as " + username + " failed with HTTP " + response.status() + ": " + response.body());
+        }
+        token = json(response).path("token").asText();
+    }
+
+    Response get(String path) throws IOException, InterruptedException {
+        return send(authorized(path).GET());
+    }
+
+    Response post(String path, String jsonBody) throws IOException, InterruptedException {
+        return send(authorized(path)
+                .header("Content-Type", "application/json")
+                .POST(jsonBody != null ? HttpRequest.BodyPublishers.ofString(jsonBody) : HttpRequest.BodyPublishers.noBody()));
+    }
+
+    JsonNode json(Response response) throws IOException {
+        return objectMapper.readTree(response.body());
+    }
+
+    ObjectMapper objectMapper() {
+        return objectMapper;
+    }
+
+    private HttpRequest.Builder authorized(String path) {
+        return HttpRequest.newBuilder(uri(path)).header("Authorization", "Bearer " + token);
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    private Response send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        HttpResponse<String> response = http.send(request.timeout(REQUEST_TIMEOUT).build(),
+                HttpResponse.BodyHandlers.ofString());
+        int sqlCount = response.headers().firstValue("X-SQL-Count").map(Integer::parseInt).orElse(-1);
+        double sqlMillis = response.headers().firstValue("X-SQL-Time-Ms").map(Double::parseDouble).orElse(0.0);
+        return new Response(response.statusCode(), response.body(), sqlCount, sqlMillis);
+    }
+
+    // sqlCount is -1 when the server does not send statement headers
+    record Response(int status, String body, int sqlCount, double sqlMillis) {
+
+        boolean ok() {
+            return status >= 200 && status < 300;
+        }
+    }
+}
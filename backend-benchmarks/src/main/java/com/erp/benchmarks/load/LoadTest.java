@@ -0,0 +1,344 @@
+package com.erp.benchmarks.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Drives an application started with the perf profile over HTTP and reports, per scenario, the
+// throughput, latency percentiles and statements per request (from the X-SQL-Count header).
+// Scenarios run one after another, each with its own warmup, at a fixed number of concurrent
+// workers that send their next request as soon as the previous one answers (closed loop).
+//
+// Exits with status 1 if any result row breaks the budget: --max-error-rate for every row, plus
+// whatever the --budget properties file sets per row, e.g.
+//   search-products.p99-ms=50
+//   mixed/create-order.max-sql-per-request=40
+//   browse-products.min-throughput=2000
+// (keys: p50-ms, p99-ms, p999-ms, min-throughput, max-sql-per-request, max-error-rate).
+//
+//   java -cp benchmarks.jar com.erp.benchmarks.load.LoadTest --base-url=http://localhost:8080 --concurrency=32
+public class LoadTest {
+
+    // Words the perf seed uses in product names (PerfDataSeeder), whole and as typed prefixes
+    static final String[] SEARCH_TERMS = {"steel", "brass", "aluminium", "nylon", "copper", "titanium", "bolt", "hinge",
+            "bracket", "washer", "valve", "bearing", "spring", "sensor", "relay", "pump", "steel bolt", "brass valve",
+            "marine pump", "heavy duty hinge", "precision bearing", "tita", "brack", "gask", "M8x20"};
+
+    private static final List<String> ALL_SCENARIOS =
+            List.of("browse-products", "search-products", "create-order", "pay-invoice", "mixed");
+    // Share of each operation in the mixed scenario, in percent
+    private static final Map<String, Integer> MIX = Map.of(
+            "browse-products", 60, "search-products", 25, "create-order", 10, "pay-invoice", 5);
+    private static final int OPEN_INVOICE_POOL = 2000;
+
+    private final ErpClient client;
+    private final int concurrency;
+    private final long warmupNanos;
+    private final long durationNanos;
+    private final long randomSeed;
+
+    private long maxCustomerId;
+    private long maxProductId;
+    private long[] openInvoiceIds;
+
+    private LoadTest(ErpClient client, int concurrency, long warmupSeconds, long durationSeconds, long randomSeed) {
+        this.client = client;
+        this.concurrency = concurrency;
+        this.warmupNanos = TimeUnit.SECONDS.toNanos(warmupSeconds);
+        this.durationNanos = TimeUnit.SECONDS.toNanos(durationSeconds);
+        this.randomSeed = randomSeed;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        String baseUrl = options.getOrDefault("base-url", "http://localhost:8080");
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "32"));
+        long warmup = Long.parseLong(options.getOrDefault("warmup", "30"));
+        long duration = Long.parseLong(options.getOrDefault("duration", "120"));
+        List<String> scenarios = List.of(options.getOrDefault("scenarios", String.join(",", ALL_SCENARIOS)).split(","));
+        String output = options.getOrDefault("output", "load-result.json");
+        double maxErrorRate = Double.parseDouble(options.getOrDefault("max-error-rate", "0.01"));
+
+        Properties budget = new Properties();
+        if (options.containsKey("budget")) {
+            try (Reader reader = new FileReader(options.get("budget"))) {
+                budget.load(reader);
+            }
+        }
+
+        ErpClient client = new ErpClient(baseUrl);
+        client.login(options.getOrDefault("user", "perf-admin"), options.getOrDefault("password", "perf-admin"));
+        LoadTest loadTest = new LoadTest(client, concurrency, warmup, duration,
+                Long.parseLong(options.getOrDefault("seed", "1")));
+        loadTest.discover();
+
+        Map<String, OperationStats> results = new LinkedHashMap<>();
+        Map<String, Double> throughput = new LinkedHashMap<>();
+        for (String scenario : scenarios) {
+            if (!ALL_SCENARIOS.contains(scenario)) {
+                throw new IllegalArgumentException("Unknown scenario " + scenario + ", expected one of " + ALL_SCENARIOS);
+            }
+            loadTest.run(scenario, results, throughput);
+        }
+
+        List<String> violations = report(results, throughput, budget, maxErrorRate);
+        write(new File(output), client, baseUrl, concurrency, warmup, duration, results, throughput, violations);
+        System.out.println("Results written to " + output);
+        if (!violations.isEmpty()) {
+            violations.forEach(violation -> System.out.println("BUDGET " + violation));
+            System.exit(1);
+        }
+    }
+
+    // Id ranges of the seeded data and a pool of open invoices to pay into
+    private void discover() throws IOException, InterruptedException {
+        maxCustomerId = firstId("/api/customers?page=0&size=1&sortBy=id&direction=desc");
+        maxProductId = firstId("/api/products?page=0&size=1&sortBy=id&direction=desc");
+        JsonNode invoices = client.json(require(client.get(
+                "/api/invoices/status/PENDING?page=0&size=" + OPEN_INVOICE_POOL + "&sort=id,desc")));
+        openInvoiceIds = new long[invoices.path("content").size()];
+        for (int i = 0; i < openInvoiceIds.length; i++) {
+            openInvoiceIds[i] = invoices.path("content").get(i).path("id").asLong();
+        }
+        if (maxCustomerId == 0 || maxProductId == 0) {
+            throw new IllegalStateException("No customers or products found; is the application running with the perf profile?");
+        }
+        System.out.printf(Locale.ROOT, "Customers up to id %d, products up to id %d, %d open invoices to pay%n",
+                maxCustomerId, maxProductId, openInvoiceIds.length);
+    }
+
+    private long firstId(String path) throws IOException, InterruptedException {
+        JsonNode content = client.json(require(client.get(path))).path("content");
+        return content.size() > 0 ? content.get(0).path("id").asLong() : 0;
+    }
+
+    private void run(String scenario, Map<String, OperationStats> results, Map<String, Double> throughput)
+            throws InterruptedException {
+        System.out.printf(Locale.ROOT, "== %s: %d s warmup, %d s measured, %d workers%n", scenario,
+                TimeUnit.NANOSECONDS.toSeconds(warmupNanos), TimeUnit.NANOSECONDS.toSeconds(durationNanos), concurrency);
+        runWorkers(scenario, warmupNanos);
+        long started = System.nanoTime();
+        List<Map<String, OperationStats>> perWorker = runWorkers(scenario, durationNanos);
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        Map<String, OperationStats> merged = new LinkedHashMap<>();
+        OperationStats total = new OperationStats();
+        for (Map<String, OperationStats> worker : perWorker) {
+            worker.forEach((operation, stats) -> {
+                merged.computeIfAbsent(operation, key -> new OperationStats()).add(stats);
+                total.add(stats);
+            });
+        }
+        if (scenario.equals("mixed")) {
+            merged.forEach((operation, stats) -> {
+                results.put(scenario + "/" + operation, stats);
+                throughput.put(scenario + "/" + operation, stats.requests() / seconds);
+            });
+        }
+        results.put(scenario, total);
+        throughput.put(scenario, total.requests() / seconds);
+    }
+
+    private List<Map<String, OperationStats>> runWorkers(String scenario, long runNanos) throws InterruptedException {
+        long deadline = System.nanoTime() + runNanos;
+        List<Map<String, OperationStats>> perWorker = new ArrayList<>(concurrency);
+        List<Thread> workers = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            Map<String, OperationStats> stats = new LinkedHashMap<>();
+            perWorker.add(stats);
+            SplittableRandom random = new SplittableRandom(randomSeed * 1_000_003L + scenario.hashCode() * 31L + i);
+            Thread worker = new Thread(() -> {
+                while (System.nanoTime() < deadline) {
+                    String operation = scenario.equals("mixed") ? pickMixed(random) : scenario;
+                    OperationStats operationStats = stats.computeIfAbsent(operation, key -> new OperationStats());
+                    long started = System.nanoTime();
+                    try {
+                        ErpClient.Response response = execute(operation, random);
+                        operationStats.record(System.nanoTime() - started, response);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    } catch (Exception e) {
+                        operationStats.recordFailure(System.nanoTime() - started, e);
+                    }
+                }
+            }, "load-" + scenario + "-" + i);
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return perWorker;
+    }
+
+    private static String pickMixed(SplittableRandom random) {
+        int roll = random.nextInt(100);
+        for (String operation : ALL_SCENARIOS) {
+            Integer share = MIX.get(operation);
+            if (share != null) {
+                if (roll < share) {
+                    return operation;
+                }
+                roll -= share;
+            }
+        }
+        return "browse-products";
+    }
+
+    private ErpClient.Response execute(String operation, SplittableRandom random) throws IOException, InterruptedException {
+        switch (operation) {
+            case "browse-products":
+                // Mostly the first pages of the catalog, and single products by id
+                if (random.nextBoolean()) {
+                    return client.get("/api/products?page=" + random.nextInt(50) + "&size=20");
+                }
+                return client.get("/api/products/" + (1 + random.nextLong(maxProductId)));
+            case "search-products":
+                String term = SEARCH_TERMS[random.nextInt(SEARCH_TERMS.length)];
+                return client.get("/api/products/search?name=" + term.replace(" ", "%20") + "&page=0&size=20");
+            case "create-order":
+                return client.post("/api/orders", orderJson(random));
+            case "pay-invoice":
+                if (openInvoiceIds.length == 0) {
+                    throw new IllegalStateException("No open invoices to pay");
+                }
+                long invoiceId = openInvoiceIds[random.nextInt(openInvoiceIds.length)];
+                return client.post("/api/invoices/" + invoiceId + "/payment?amount=1.00", null);
+            default:
+                throw new IllegalArgumentException(operation);
+        }
+    }
+
+    private String orderJson(SplittableRandom random) {
+        ObjectNode order = client.objectMapper().createObjectNode()
+                .put("customerId", 1 + random.nextLong(maxCustomerId))
+                .put("shippingAddress", "1 Load Test Way")
+                .put("shippingCity", "Berlin")
+                .put("shippingCountry", "Germany")
+                .put("paymentMethod", "BANK_TRANSFER");
+        ArrayNode items = order.putArray("orderItems");
+        int lines = 1 + random.nextInt(4);
+        for (int i = 0; i < lines; i++) {
+            items.addObject()
+                    .put("productId", 1 + random.nextLong(maxProductId))
+                    .put("quantity", 1 + random.nextInt(3))
+                    .put("unitPrice", 10.00);
+        }
+        return order.toString();
+    }
+
+    private static ErpClient.Response require(ErpClient.Response response) throws IOException {
+        if (!response.ok()) {
+            throw new IOException("HTTP " + response.status() + ": " + response.body());
+        }
+        return response;
+    }
+
+    private static List<String> report(Map<String, OperationStats> results, Map<String, Double> throughput,
+                                       Properties budget, double maxErrorRate) {
+        List<String> violations = new ArrayList<>();
+        System.out.printf(Locale.ROOT, "%n%-30s %9s %7s %10s %9s %9s %9s %9s %8s %7s %8s%n", "scenario", "requests",
+                "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "sql/req", "sqlmax", "jdbc ms");
+        results.forEach((name, stats) -> {
+            System.out.printf(Locale.ROOT, "%-30s %9d %7d %10.1f %9.2f %9.2f %9.2f %9.2f %8s %7s %8s%n", name,
+                    stats.requests(), stats.errors(), throughput.get(name), stats.percentileMillis(50),
+                    stats.percentileMillis(99), stats.percentileMillis(99.9), stats.maxMillis(),
+                    column("%.1f", stats.sqlPerRequest()),
+                    Double.isNaN(stats.sqlPerRequest()) ? "-" : Long.toString(stats.sqlMax()),
+                    column("%.2f", stats.sqlMillisPerRequest()));
+            if (stats.firstError() != null) {
+                System.out.println("    first error: " + stats.firstError());
+            }
+
+            double errorRate = Double.parseDouble(budget.getProperty(name + ".max-error-rate", Double.toString(maxErrorRate)));
+            check(violations, name, "error rate", stats.errorRate(), errorRate, true);
+            checkBudget(violations, budget, name, "p50-ms", stats.percentileMillis(50), true);
+            checkBudget(violations, budget, name, "p99-ms", stats.percentileMillis(99), true);
+            checkBudget(violations, budget, name, "p999-ms", stats.percentileMillis(99.9), true);
+            checkBudget(violations, budget, name, "max-sql-per-request", stats.sqlPerRequest(), true);
+            checkBudget(violations, budget, name, "min-throughput", throughput.get(name), false);
+        });
+        return violations;
+    }
+
+    // "-" when no response carried the SQL headers, e.g. bodies too large to hold back
+    private static String column(String format, double value) {
+        return Double.isNaN(value) ? "-" : String.format(Locale.ROOT, format, value);
+    }
+
+    private static void checkBudget(List<String> violations, Properties budget, String name, String key,
+                                    double actual, boolean isMaximum) {
+        String limit = budget.getProperty(name + "." + key);
+        if (limit != null) {
+            check(violations, name, key, actual, Double.parseDouble(limit), isMaximum);
+        }
+    }
+
+    private static void check(List<String> violations, String name, String what, double actual, double limit,
+                              boolean isMaximum) {
+        if (!Double.isNaN(actual) && (isMaximum ? actual > limit : actual < limit)) {
+            violations.add(String.format(Locale.ROOT, "%s: %s %.3f is %s the limit of %.3f", name, what, actual,
+                    isMaximum ? "above" : "below", limit));
+        }
+    }
+
+    private static void write(File file, ErpClient client, String baseUrl, int concurrency, long warmup, long duration,
+                              Map<String, OperationStats> results, Map<String, Double> throughput,
+                              List<String> violations) throws IOException {
+        ObjectNode root = client.objectMapper().createObjectNode()
+                .put("finishedAt", Instant.now().toString())
+                .put("baseUrl", baseUrl)
+                .put("concurrency", concurrency)
+                .put("warmupSeconds", warmup)
+                .put("durationSeconds", duration);
+        ArrayNode rows = root.putArray("results");
+        results.forEach((name, stats) -> {
+            ObjectNode row = rows.addObject()
+                    .put("scenario", name)
+                    .put("requests", stats.requests())
+                    .put("errors", stats.errors())
+                    .put("throughputPerSecond", throughput.get(name));
+            row.putObject("latencyMs")
+                    .put("p50", stats.percentileMillis(50))
+                    .put("p99", stats.percentileMillis(99))
+                    .put("p999", stats.percentileMillis(99.9))
+                    .put("max", stats.maxMillis());
+            if (!Double.isNaN(stats.sqlPerRequest())) {
+                row.putObject("sql")
+                        .put("statementsPerRequest", stats.sqlPerRequest())
+                        .put("maxStatementsPerRequest", stats.sqlMax())
+                        .put("jdbcMsPerRequest", stats.sqlMillisPerRequest());
+            }
+        });
+        ArrayNode budgetViolations = root.putArray("budgetViolations");
+        violations.forEach(budgetViolations::add);
+        client.objectMapper().writerWithDefaultPrettyPrinter().writeValue(file, root);
+    }
+
+    // --name=value pairs
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+}
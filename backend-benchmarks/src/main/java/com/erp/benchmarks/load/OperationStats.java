@@ -0,0 +1,102 @@
+package com.erp.benchmarks.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+
+// Latency and statement counts of one operation, recorded by a single worker thread and merged afterwards
+final class OperationStats {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final Histogram latencyMicros = new Histogram(MAX_LATENCY_MICROS, 3);
+    private long requests;
+    private long errors;
+    private long sqlSamples;
+    private long sqlStatements;
+    private long sqlMax;
+    private double sqlMillis;
+    private String firstError;
+
+    void record(long latencyNanos, ErpClient.Response response) {
+        requests++;
+        latencyMicros.recordValue(Math.min(MAX_LATENCY_MICROS, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+        if (!response.ok()) {
+            error("HTTP " + response.status() + ": " + abbreviate(response.body()));
+        }
+        if (response.sqlCount() >= 0) {
+            sqlSamples++;
+            sqlStatements += response.sqlCount();
+            sqlMax = Math.max(sqlMax, response.sqlCount());
+            sqlMillis += response.sqlMillis();
+        }
+    }
+
+    // A request that got no response at all (timeout, connection refused)
+    void recordFailure(long latencyNanos, Exception e) {
+        requests++;
+        latencyMicros.recordValue(Math.min(MAX_LATENCY_MICROS, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+        error(e.toString());
+    }
+
+    void add(OperationStats other) {
+        latencyMicros.add(other.latencyMicros);
+        requests += other.requests;
+        errors += other.errors;
+        sqlSamples += other.sqlSamples;
+        sqlStatements += other.sqlStatements;
+        sqlMax = Math.max(sqlMax, other.sqlMax);
+        sqlMillis += other.sqlMillis;
+        if (firstError == null) {
+            firstError = other.firstError;
+        }
+    }
+
+    long requests() {
+        return requests;
+    }
+
+    long errors() {
+        return errors;
+    }
+
+    double errorRate() {
+        return requests > 0 ? (double) errors / requests : 0;
+    }
+
+    double percentileMillis(double percentile) {
+        return latencyMicros.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    double maxMillis() {
+        return latencyMicros.getMaxValue() / 1000.0;
+    }
+
+    // NaN when the server sent no statement headers
+    double sqlPerRequest() {
+        return sqlSamples > 0 ? (double) sqlStatements / sqlSamples : Double.NaN;
+    }
+
+    long sqlMax() {
+        return sqlMax;
+    }
+
+    double sqlMillisPerRequest() {
+        return sqlSamples > 0 ? sqlMillis / sqlSamples : Double.NaN;
+    }
+
+    String firstError() {
+        return firstError;
+    }
+
+    private void error(String message) {
+        errors++;
+        if (firstError == null) {
+            firstError = message;
+        }
+    }
+
+    private static String abbreviate(String body) {
+        return body == null || body.length() <= 200 ? body : body.substring(0, 200) + "...";
+    }
+}
@@ -0,0 +1,54 @@
+#!/usr/bin/env bash
+# Boots the application with the perf profile (embedded H2, seeded on first start), runs the HTTP
+# load test against it and stops it again. Exits non-zero if the load test breaks its budget, so a
+# release pipeline can gate on it.
+#
+# Needs: a JDK 17+, the backend jar built with `mvn -Pperf package` (H2 on the classpath) and
+# backend-benchmarks/target/benchmarks.jar (`mvn package` in the repository root). The first start
+# seeds 100k customers, 1M products and 10M orders into ./perf-data, which takes a while; later
+# starts reuse it. Smaller volumes for a quick check:
+#
+#   APP_ARGS="--erp.perf.seed.products=10000 --erp.perf.seed.orders=50000" scripts/perf-test.sh
+set -euo pipefail
+
+JAR=${JAR:-target/backend-0.0.1-SNAPSHOT.jar}
+BENCH_JAR=${BENCH_JAR:-../backend-benchmarks/target/benchmarks.jar}
+PORT=${PORT:-8080}
+APP_HEAP=${APP_HEAP:-6g}
+APP_ARGS=${APP_ARGS:-}
+# Seeding the full volumes on a fresh database can take well over an hour
+READY_TIMEOUT=${READY_TIMEOUT:-14400}
+CONCURRENCY=${CONCURRENCY:-32}
+WARMUP=${WARMUP:-30}
+DURATION=${DURATION:-120}
+SCENARIOS=${SCENARIOS:-browse-products,search-products,create-order,pay-invoice,mixed}
+BUDGET=${BUDGET:-}
+OUTPUT=${OUTPUT:-perf-result.json}
+
+BASE="http://localhost:${PORT}"
+pid=""
+trap '[ -n "$pid" ] && kill "$pid" 2>/dev/null || true' EXIT
+
+# shellcheck disable=SC2086
+java -Xmx"$APP_HEAP" -jar "$JAR" --spring.profiles.active=perf --server.port="$PORT" $APP_ARGS >perf-app.log 2>&1 &
+pid=$!
+
+echo "Waiting for the application to seed and report ready (log: perf-app.log)"
+waited=0
+until [ "$(curl -s -o /dev/null -w '%{http_code}' "$BASE/actuator/health")" = "200" ]; do
+  if ! kill -0 "$pid" 2>/dev/null; then
+    echo "application exited, see perf-app.log" >&2
+    exit 1
+  fi
+  if [ "$waited" -ge "$READY_TIMEOUT" ]; then
+    echo "application not ready after ${READY_TIMEOUT}s, see perf-app.log" >&2
+    exit 1
+  fi
+  sleep 5
+  waited=$((waited + 5))
+done
+
+args=(--base-url="$BASE" --concurrency="$CONCURRENCY" --warmup="$WARMUP" --duration="$DURATION"
+      --scenarios="$SCENARIOS" --output="$OUTPUT")
+[ -n "$BUDGET" ] && args+=(--budget="$BUDGET")
+java -cp "$BENCH_JAR" com.erp.benchmarks.load.LoadTest "${args[@]}"
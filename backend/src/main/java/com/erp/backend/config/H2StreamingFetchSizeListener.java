@@ -0,0 +1,34 @@
+package com.erp.backend.config;
+
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+// The streaming repository queries ask for a fetch size of Integer.MIN_VALUE, Connector/J's
+// row-by-row flag. H2, which the perf profile and the tests run on, rejects it, so on those profiles
+// the proxied DataSource (SqlMonitoringConfig) passes a real fetch size to the driver instead.
+@Component
+@Profile({"perf", "test"})
+public class H2StreamingFetchSizeListener implements MethodExecutionListener {
+
+    private final int fetchSize;
+
+    public H2StreamingFetchSizeListener(@Value("${erp.sql.streaming-fetch-size:1000}") int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public void beforeMethod(MethodExecutionContext context) {
+        Object[] args = context.getMethodArgs();
+        if ("setFetchSize".equals(context.getMethod().getName())
+                && args != null && args.length == 1 && Integer.valueOf(Integer.MIN_VALUE).equals(args[0])) {
+            context.setMethodArgs(new Object[]{fetchSize});
+        }
+    }
+
+    @Override
+    public void afterMethod(MethodExecutionContext context) {
+    }
+}
@@ -0,0 +1,85 @@
+package com.erp.backend.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Orders, order items, invoices, payments and stock movements take their ids from pooled
+// sequences (table-emulated on MySQL, native on H2) so Hibernate can batch their INSERTs. Tables
+// that were filled under AUTO_INCREMENT, or by a bulk load with explicit ids, need their sequence
+// moved past the existing ids before the first insert, otherwise the first allocated block
+// collides with rows already there.
+@Component
+public class IdSequenceMigration implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(IdSequenceMigration.class);
+
+    // Must match allocationSize on the entities' @SequenceGenerator
+    private static final int ALLOCATION_SIZE = 50;
+    private static final List<String> TABLES = List.of("orders", "order_items", "invoices", "payments", "stock_movements");
+
+    private final JdbcTemplate jdbcTemplate;
+    private Boolean nativeSequences;
+
+    // Depending on the EntityManagerFactory makes this run after the schema update created the sequence tables
+    public IdSequenceMigration(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Runs before the web server starts accepting requests
+    @Override
+    public void afterSingletonsInstantiated() {
+        moveSequencesPastExistingIds();
+    }
+
+    // Also called after rows were inserted with explicit ids
+    public void moveSequencesPastExistingIds() {
+        for (String table : TABLES) {
+            migrate(table);
+        }
+    }
+
+    private void migrate(String table) {
+        String sequence = table + "_seq";
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        // The pooled optimizer hands out (next_val - allocation, next_val], so this keeps every new id above maxId
+        long floor = maxId + ALLOCATION_SIZE + 1;
+
+        if (hasNativeSequences()) {
+            Long next = jdbcTemplate.queryForObject(
+                    "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE LOWER(SEQUENCE_NAME) = ?", Long.class, sequence);
+            if (next != null && next < floor) {
+                jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + floor);
+                log.info("Moved id sequence {} to {} past existing ids", sequence, floor);
+            }
+            return;
+        }
+
+        Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + sequence, Integer.class);
+        if (rows == null || rows == 0) {
+            jdbcTemplate.update("INSERT INTO " + sequence + " (next_val) VALUES (?)", floor);
+            log.info("Initialized id sequence {} at {}", sequence, floor);
+            return;
+        }
+
+        int updated = jdbcTemplate.update("UPDATE " + sequence + " SET next_val = ? WHERE next_val < ?", floor, floor);
+        if (updated > 0) {
+            log.info("Moved id sequence {} to {} past existing ids", sequence, floor);
+        }
+    }
+
+    // Only H2 (the perf profile) has real sequences among the supported databases
+    private boolean hasNativeSequences() {
+        if (nativeSequences == null) {
+            nativeSequences = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "H2".equals(connection.getMetaData().getDatabaseProductName()));
+        }
+        return nativeSequences;
+    }
+}
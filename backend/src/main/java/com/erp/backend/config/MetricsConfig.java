@@ -0,0 +1,157 @@
+package com.erp.backend.config;
+
+import com.erp.backend.security.JwtTokenCache;
+import com.erp.backend.security.TimedPasswordEncoder;
+import com.erp.backend.service.InventoryService;
+import com.erp.backend.service.InvoiceExportService;
+import com.erp.backend.service.InvoicePdfRenderer;
+import com.erp.backend.service.LoginService;
+import com.erp.backend.service.ProductCatalogCache;
+import com.erp.backend.service.ReconciliationService;
+import com.erp.backend.service.SqlStatementMonitor;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Application meters on top of what Actuator binds on its own (JVM, GC and allocation, Hikari pool,
+// Hibernate statistics, HTTP requests and Spring Data repository invocations). Services keep their
+// own LongAdder counters; the binders here only read them at scrape time.
+@Configuration
+public class MetricsConfig {
+
+    // Makes @Timed work on Spring beans
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    public MeterBinder inventoryMetrics(InventoryService inventoryService) {
+        return registry -> {
+            FunctionCounter.builder("erp.inventory.adjustments.submitted", inventoryService,
+                            InventoryService::getSubmittedAdjustmentCount)
+                    .description("Standalone stock adjustments submitted for coalescing")
+                    .register(registry);
+            FunctionCounter.builder("erp.inventory.stock.writes", inventoryService, InventoryService::getStockWriteCount)
+                    .description("Stock UPDATE statements issued")
+                    .register(registry);
+            FunctionCounter.builder("erp.inventory.retries", inventoryService, InventoryService::getRetryCount)
+                    .description("Stock writes replayed after a deadlock or lock wait timeout")
+                    .register(registry);
+            FunctionCounter.builder("erp.inventory.conflicts", inventoryService, InventoryService::getConflictCount)
+                    .description("Stock writes that failed after all retries")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder catalogCacheMetrics(ProductCatalogCache productCatalogCache) {
+        return registry -> productCatalogCache.getStats().keySet().forEach(cache ->
+                bindCacheStats(registry, "erp.catalog.cache", cache, () -> productCatalogCache.getStats().get(cache)));
+    }
+
+    @Bean
+    public MeterBinder authMetrics(LoginService loginService, TimedPasswordEncoder passwordEncoder,
+                                   JwtTokenCache jwtTokenCache) {
+        return registry -> {
+            Gauge.builder("erp.auth.login.queue.depth", loginService, LoginService::getQueueDepth)
+                    .description("Logins waiting for a password-check thread")
+                    .register(registry);
+            Gauge.builder("erp.auth.login.active", loginService, LoginService::getActiveCount)
+                    .description("Password checks in progress")
+                    .register(registry);
+            FunctionCounter.builder("erp.auth.login.rejected", loginService, LoginService::getRejectedCount)
+                    .description("Logins refused because the login queue was full")
+                    .register(registry);
+            FunctionTimer.builder("erp.auth.password.hash", passwordEncoder,
+                            TimedPasswordEncoder::getHashCount, TimedPasswordEncoder::getTotalHashNanos, TimeUnit.NANOSECONDS)
+                    .description("BCrypt hash and password check time")
+                    .register(registry);
+            bindCacheStats(registry, "erp.auth.token.cache", "tokens", jwtTokenCache::getStats);
+        };
+    }
+
+    @Bean
+    public MeterBinder sqlMetrics(SqlStatementMonitor sqlStatementMonitor) {
+        return registry -> {
+            FunctionTimer.builder("erp.sql.statements", sqlStatementMonitor,
+                            SqlStatementMonitor::getStatementCount, SqlStatementMonitor::getTotalStatementNanos,
+                            TimeUnit.NANOSECONDS)
+                    .description("JDBC executions and the time spent in them")
+                    .register(registry);
+            FunctionCounter.builder("erp.sql.statements.slow", sqlStatementMonitor,
+                            SqlStatementMonitor::getSlowStatementCount)
+                    .description("JDBC executions over the slow query threshold")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder invoicePdfMetrics(InvoicePdfRenderer invoicePdfRenderer) {
+        return registry -> {
+            FunctionTimer.builder("erp.invoice.pdf.render", invoicePdfRenderer,
+                            InvoicePdfRenderer::getRenderCount, InvoicePdfRenderer::getTotalRenderNanos,
+                            TimeUnit.NANOSECONDS)
+                    .description("Invoice PDFs rendered and the time spent writing them")
+                    .register(registry);
+            FunctionCounter.builder("erp.invoice.pdf.bytes", invoicePdfRenderer, InvoicePdfRenderer::getRenderedBytes)
+                    .baseUnit("bytes")
+                    .description("Invoice PDF bytes rendered")
+                    .register(registry);
+            FunctionCounter.builder("erp.invoice.pdf.failures", invoicePdfRenderer, InvoicePdfRenderer::getFailureCount)
+                    .description("Invoice PDF renders that failed or lost the client part way")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder invoiceExportMetrics(InvoiceExportService invoiceExportService) {
+        return registry -> {
+            Gauge.builder("erp.invoice.export.running", invoiceExportService, InvoiceExportService::getRunningCount)
+                    .description("Invoice ZIP exports in progress")
+                    .register(registry);
+            FunctionCounter.builder("erp.invoice.export.invoices", invoiceExportService,
+                            InvoiceExportService::getExportedCount)
+                    .description("Invoices written to export archives")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder reconciliationMetrics(ReconciliationService reconciliationService) {
+        return registry -> {
+            Gauge.builder("erp.reconciliation.running", reconciliationService, ReconciliationService::getRunningCount)
+                    .description("Statement reconciliations in progress")
+                    .register(registry);
+            FunctionCounter.builder("erp.reconciliation.lines", reconciliationService,
+                            ReconciliationService::getProcessedLineCount)
+                    .description("Statement lines read by reconciliations")
+                    .register(registry);
+            FunctionCounter.builder("erp.reconciliation.matched", reconciliationService,
+                            ReconciliationService::getMatchedLineCount)
+                    .description("Statement lines matched and posted as payments")
+                    .register(registry);
+        };
+    }
+
+    private static void bindCacheStats(MeterRegistry registry, String name, String cache, Supplier<CacheStats> stats) {
+        FunctionCounter.builder(name + ".gets", stats, s -> s.get().hitCount())
+                .tags("cache", cache, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder(name + ".gets", stats, s -> s.get().missCount())
+                .tags("cache", cache, "result", "miss")
+                .register(registry);
+        FunctionCounter.builder(name + ".evictions", stats, s -> s.get().evictionCount())
+                .tags("cache", cache)
+                .register(registry);
+    }
+}
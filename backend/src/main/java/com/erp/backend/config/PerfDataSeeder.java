@@ -0,0 +1,330 @@
+package com.erp.backend.config;
+
+import com.erp.backend.model.Role;
+import com.erp.backend.model.User;
+import com.erp.backend.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Fills the perf database with load-test volumes before the application reports ready (the
+// perf profile's health check includes readiness). Rows are written with plain JDBC batches and
+// explicit ids, one transaction per chunk, and every row's content is derived from its id and the
+// random seed, so an interrupted seed resumes where it stopped and any run produces the same data.
+@Component
+@Profile("perf")
+public class PerfDataSeeder implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(PerfDataSeeder.class);
+
+    private static final int CHUNK_SIZE = 1000;
+    private static final int ROOT_CATEGORIES = 20;
+    private static final BigDecimal TAX_PERCENT = BigDecimal.TEN;
+    private static final BigDecimal SHIPPING_COST = new BigDecimal("5.00");
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+    private static final LocalDateTime HISTORY_START = LocalDateTime.of(2021, 1, 1, 0, 0);
+    private static final long HISTORY_MINUTES = 3L * 365 * 24 * 60;
+
+    // The load test searches for these words (LoadTest.SEARCH_TERMS)
+    private static final String[] QUALIFIERS = {"Heavy duty", "Compact", "Industrial", "Marine", "Precision", "Standard"};
+    private static final String[] MATERIALS = {"steel", "brass", "aluminium", "nylon", "copper", "oak", "rubber",
+            "titanium", "carbon", "zinc"};
+    private static final String[] NOUNS = {"bolt", "hinge", "bracket", "washer", "gasket", "valve", "bearing", "spring",
+            "clamp", "fitting", "sensor", "relay", "cable", "switch", "filter", "pump"};
+    private static final String[] COMPANY_WORDS = {"Northwind", "Contoso", "Fabrikam", "Acme", "Globex", "Initech",
+            "Umbrella", "Stark", "Wayne", "Tyrell", "Cyberdyne", "Hooli"};
+    private static final String[] COMPANY_SUFFIXES = {"Traders", "Industries", "Supplies", "Logistics", "Manufacturing",
+            "Holdings"};
+    private static final String[] CITIES = {"Berlin", "Chicago", "Lyon", "Madrid", "Mumbai", "Osaka", "Oslo",
+            "Sao Paulo", "Sydney", "Toronto"};
+    private static final String[] COUNTRIES = {"Germany", "USA", "France", "Spain", "India", "Japan", "Norway",
+            "Brazil", "Australia", "Canada"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final IdSequenceMigration idSequenceMigration;
+
+    private final boolean enabled;
+    private final long randomSeed;
+    private final int categories;
+    private final int suppliers;
+    private final long customers;
+    private final long products;
+    private final long orders;
+    private final int invoiceEvery;
+    private final String adminUsername;
+    private final String adminPassword;
+
+    public PerfDataSeeder(JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager,
+                          UserRepository userRepository,
+                          PasswordEncoder passwordEncoder,
+                          IdSequenceMigration idSequenceMigration,
+                          @Value("${erp.perf.seed.enabled:true}") boolean enabled,
+                          @Value("${erp.perf.seed.random-seed:42}") long randomSeed,
+                          @Value("${erp.perf.seed.categories:200}") int categories,
+                          @Value("${erp.perf.seed.suppliers:1000}") int suppliers,
+                          @Value("${erp.perf.seed.customers:100000}") long customers,
+                          @Value("${erp.perf.seed.products:1000000}") long products,
+                          @Value("${erp.perf.seed.orders:10000000}") long orders,
+                          @Value("${erp.perf.seed.invoice-every:10}") int invoiceEvery,
+                          @Value("${erp.perf.seed.admin-username:perf-admin}") String adminUsername,
+                          @Value("${erp.perf.seed.admin-password:perf-admin}") String adminPassword) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.idSequenceMigration = idSequenceMigration;
+        this.enabled = enabled;
+        this.randomSeed = randomSeed;
+        this.categories = Math.max(ROOT_CATEGORIES, categories);
+        this.suppliers = Math.max(1, suppliers);
+        this.customers = Math.max(1, customers);
+        this.products = Math.max(1, products);
+        this.orders = orders;
+        this.invoiceEvery = Math.max(1, invoiceEvery);
+        this.adminUsername = adminUsername;
+        this.adminPassword = adminPassword;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        seedAdmin();
+        seed("categories", categories, this::categoryRows,
+                "INSERT INTO categories (id, name, description, parent_id, active, created_at, updated_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)");
+        seed("suppliers", suppliers, this::supplierRows,
+                "INSERT INTO suppliers (id, name, contact_person, email, phone, city, country, tax_id, active, " +
+                "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        seed("customers", customers, this::customerRows,
+                "INSERT INTO customers (id, name, email, phone, address, city, country, contact_person, tax_id, " +
+                "credit_limit, current_credit, active, created_at, updated_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        seed("products", products, this::productRows,
+                "INSERT INTO products (id, sku, name, description, category_id, supplier_id, unit_price, cost_price, " +
+                "stock_quantity, reorder_level, reorder_quantity, unit, barcode, tax_rate, active, version, " +
+                "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        seedOrders();
+
+        if (isH2()) {
+            // Explicit ids do not advance H2 identity columns the way they advance MySQL AUTO_INCREMENT
+            for (String table : List.of("users", "categories", "suppliers", "customers", "products")) {
+                Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+                jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + (maxId + 1));
+            }
+        }
+        idSequenceMigration.moveSequencesPastExistingIds();
+        log.info("Perf data ready after {} s", (System.nanoTime() - started) / 1_000_000_000);
+    }
+
+    private void seedAdmin() {
+        if (Boolean.TRUE.equals(userRepository.existsByUsername(adminUsername))) {
+            return;
+        }
+        User admin = new User();
+        admin.setUsername(adminUsername);
+        admin.setPassword(passwordEncoder.encode(adminPassword));
+        admin.setFullName("Load Test Admin");
+        admin.setEmail(adminUsername + "@perf.local");
+        admin.setRole(Role.ADMIN);
+        userRepository.save(admin);
+    }
+
+    // Inserts ids (current max, target] of a table whose rows depend only on their id
+    private void seed(String table, long target, RowFactory rows, String sql) {
+        long from = maxId(table) + 1;
+        if (from > target) {
+            return;
+        }
+        log.info("Seeding {} {} to {}", table, from, target);
+        for (long first = from; first <= target; first += CHUNK_SIZE) {
+            long last = Math.min(target, first + CHUNK_SIZE - 1);
+            List<Object[]> batch = new ArrayList<>(CHUNK_SIZE);
+            for (long id = first; id <= last; id++) {
+                batch.add(rows.row(id, random(table, id)));
+            }
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql, batch));
+            logProgress(table, first, last, target);
+        }
+    }
+
+    // Orders go in with their items (and invoice, for every invoiceEvery-th order) in one transaction per chunk
+    private void seedOrders() {
+        long from = maxId("orders") + 1;
+        if (from > orders) {
+            return;
+        }
+        log.info("Seeding orders {} to {}", from, orders);
+        long nextItemId = maxId("order_items") + 1;
+        for (long first = from; first <= orders; first += CHUNK_SIZE) {
+            long last = Math.min(orders, first + CHUNK_SIZE - 1);
+            List<Object[]> orderRows = new ArrayList<>(CHUNK_SIZE);
+            List<Object[]> itemRows = new ArrayList<>(CHUNK_SIZE * 3);
+            List<Object[]> invoiceRows = new ArrayList<>(CHUNK_SIZE / invoiceEvery + 1);
+            for (long id = first; id <= last; id++) {
+                nextItemId = orderRows(id, random("orders", id), nextItemId, orderRows, itemRows, invoiceRows);
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate("INSERT INTO orders (id, order_number, customer_id, order_date, status, " +
+                        "shipping_address, shipping_city, shipping_country, payment_method, payment_status, subtotal, " +
+                        "tax_amount, shipping_cost, discount_amount, total_amount, created_at, updated_at) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", orderRows);
+                jdbcTemplate.batchUpdate("INSERT INTO order_items (id, order_id, product_id, quantity, unit_price, " +
+                        "discount_percent, tax_percent, total) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", itemRows);
+                if (!invoiceRows.isEmpty()) {
+                    jdbcTemplate.batchUpdate("INSERT INTO invoices (id, invoice_number, order_id, customer_id, " +
+                            "invoice_date, due_date, status, subtotal, tax_amount, discount_amount, total_amount, " +
+                            "amount_paid, amount_due, created_at, updated_at) " +
+                            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", invoiceRows);
+                }
+            });
+            logProgress("orders", first, last, orders);
+        }
+    }
+
+    private long orderRows(long id, SplittableRandom random, long nextItemId,
+                           List<Object[]> orderRows, List<Object[]> itemRows, List<Object[]> invoiceRows) {
+        long customerId = 1 + random.nextLong(customers);
+        Timestamp orderDate = Timestamp.valueOf(HISTORY_START.plusMinutes(random.nextLong(HISTORY_MINUTES)));
+        // Most of the history is settled; the rest is open, which is what the payment scenario pays into
+        boolean open = random.nextInt(10) < 3;
+
+        BigDecimal subtotal = BigDecimal.ZERO;
+        int itemCount = 1 + random.nextInt(4);
+        for (int i = 0; i < itemCount; i++) {
+            long productId = 1 + random.nextLong(products);
+            int quantity = 1 + random.nextInt(5);
+            BigDecimal unitPrice = unitPrice(productId);
+            BigDecimal net = unitPrice.multiply(BigDecimal.valueOf(quantity));
+            BigDecimal total = net.add(net.multiply(TAX_PERCENT).divide(HUNDRED, 2, RoundingMode.HALF_UP));
+            subtotal = subtotal.add(total);
+            itemRows.add(new Object[]{nextItemId++, id, productId, quantity, unitPrice, BigDecimal.ZERO, TAX_PERCENT, total});
+        }
+        BigDecimal totalAmount = subtotal.add(SHIPPING_COST);
+        City city = city(random);
+        orderRows.add(new Object[]{id, String.format("ORD-SEED-%08d", id), customerId, orderDate,
+                open ? "CONFIRMED" : "DELIVERED", city.address, city.name, city.country, "BANK_TRANSFER",
+                open ? "PENDING" : "PAID", subtotal, BigDecimal.ZERO, SHIPPING_COST, BigDecimal.ZERO, totalAmount,
+                orderDate, orderDate});
+
+        if (id % invoiceEvery == 0) {
+            long invoiceId = id / invoiceEvery;
+            Timestamp dueDate = Timestamp.valueOf(orderDate.toLocalDateTime().plusDays(30));
+            BigDecimal amountPaid = open ? BigDecimal.ZERO : totalAmount;
+            invoiceRows.add(new Object[]{invoiceId, String.format("INV-SEED-%08d", invoiceId), id, customerId,
+                    orderDate, dueDate, open ? "PENDING" : "PAID", subtotal, BigDecimal.ZERO, BigDecimal.ZERO,
+                    totalAmount, amountPaid, totalAmount.subtract(amountPaid), orderDate, orderDate});
+        }
+        return nextItemId;
+    }
+
+    private Object[] categoryRows(long id, SplittableRandom random) {
+        String noun = NOUNS[(int) (id % NOUNS.length)];
+        Long parentId = id > ROOT_CATEGORIES ? 1 + (id % ROOT_CATEGORIES) : null;
+        Timestamp now = Timestamp.valueOf(HISTORY_START);
+        return new Object[]{id, capitalize(noun) + "s " + id, "Perf category " + id, parentId, true, now, now};
+    }
+
+    private Object[] supplierRows(long id, SplittableRandom random) {
+        City city = city(random);
+        Timestamp now = Timestamp.valueOf(HISTORY_START);
+        return new Object[]{id, companyName(random, id), "Contact " + id, "supplier" + id + "@perf.local",
+                phone(random), city.name, city.country, String.format("ST%08d", id), true, now, now};
+    }
+
+    private Object[] customerRows(long id, SplittableRandom random) {
+        City city = city(random);
+        Timestamp created = Timestamp.valueOf(HISTORY_START.plusMinutes(random.nextLong(HISTORY_MINUTES)));
+        return new Object[]{id, companyName(random, id), "customer" + id + "@perf.local", phone(random), city.address,
+                city.name, city.country, "Buyer " + id, String.format("CT%08d", id), 50000.0, 0.0, true,
+                created, created};
+    }
+
+    private Object[] productRows(long id, SplittableRandom random) {
+        String material = MATERIALS[random.nextInt(MATERIALS.length)];
+        String noun = NOUNS[random.nextInt(NOUNS.length)];
+        String name = QUALIFIERS[random.nextInt(QUALIFIERS.length)] + " " + material + " " + noun
+                + " M" + (4 + 2 * random.nextInt(8)) + "x" + (10 + 5 * random.nextInt(20));
+        BigDecimal unitPrice = unitPrice(id);
+        Timestamp created = Timestamp.valueOf(HISTORY_START);
+        return new Object[]{id, String.format("PERF-%07d", id), name, "Perf catalog " + material + " " + noun,
+                1 + random.nextInt(categories), 1 + random.nextInt(suppliers), unitPrice,
+                unitPrice.multiply(new BigDecimal("0.60")).setScale(2, RoundingMode.HALF_UP),
+                1_000_000, 10, 100, "pcs", String.format("2%012d", id), TAX_PERCENT, true, 0L, created, created};
+    }
+
+    // Derived from the id so order lines agree with the product table without reading it back
+    private static BigDecimal unitPrice(long productId) {
+        return BigDecimal.valueOf(199 + (productId * 7919) % 49800, 2);
+    }
+
+    private SplittableRandom random(String table, long id) {
+        return new SplittableRandom(randomSeed * 31 + table.hashCode() * 1_000_003L + id);
+    }
+
+    private long maxId(String table) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        return maxId != null ? maxId : 0;
+    }
+
+    private boolean isH2() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                "H2".equals(connection.getMetaData().getDatabaseProductName())));
+    }
+
+    private static void logProgress(String table, long first, long last, long target) {
+        // Roughly every 100k rows, and at the end
+        if (last == target || first / 100_000 != (last + 1) / 100_000) {
+            log.info("Seeded {} up to {} of {}", table, last, target);
+        }
+    }
+
+    private static String companyName(SplittableRandom random, long id) {
+        return COMPANY_WORDS[random.nextInt(COMPANY_WORDS.length)] + " "
+                + COMPANY_SUFFIXES[random.nextInt(COMPANY_SUFFIXES.length)] + " " + id;
+    }
+
+    private static String phone(SplittableRandom random) {
+        return String.format("+1 555 %04d", random.nextInt(10000));
+    }
+
+    private static City city(SplittableRandom random) {
+        int index = random.nextInt(CITIES.length);
+        return new City(CITIES[index], (1 + random.nextInt(200)) + " Harbour Road", COUNTRIES[index]);
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    private record City(String name, String address, String country) {
+    }
+
+    @FunctionalInterface
+    private interface RowFactory {
+        Object[] row(long id, SplittableRandom random);
+    }
+}
@@ -0,0 +1,29 @@
+package com.erp.backend.config;
+
+import com.erp.backend.repository.CustomerRepository;
+import com.erp.backend.repository.SupplierRepository;
+import com.erp.backend.service.AutocompleteIndex;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@Configuration
+public class SearchIndexConfig {
+
+    // name, contact person, email, tax id - the column order of the streamSearchFields queries
+    private static final int[] DIRECTORY_FIELD_WEIGHTS = {4, 3, 2, 2};
+
+    @Bean
+    public AutocompleteIndex customerAutocomplete(CustomerRepository customerRepository,
+                                                  PlatformTransactionManager transactionManager) {
+        return new AutocompleteIndex("customers", DIRECTORY_FIELD_WEIGHTS, customerRepository::streamSearchFields,
+                transactionManager);
+    }
+
+    @Bean
+    public AutocompleteIndex supplierAutocomplete(SupplierRepository supplierRepository,
+                                                  PlatformTransactionManager transactionManager) {
+        return new AutocompleteIndex("suppliers", DIRECTORY_FIELD_WEIGHTS, supplierRepository::streamSearchFields,
+                transactionManager);
+    }
+}
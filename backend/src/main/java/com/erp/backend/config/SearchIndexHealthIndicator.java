@@ -0,0 +1,40 @@
+package com.erp.backend.config;
+
+import com.erp.backend.service.AutocompleteIndex;
+import com.erp.backend.service.ProductSearchIndex;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+// Keeps the perf profile out of service until the in-memory search indexes are built, so a load
+// test never measures the LIKE fallback by accident. Other profiles serve during the rebuild.
+@Component
+@Profile("perf")
+public class SearchIndexHealthIndicator implements HealthIndicator {
+
+    private final ProductSearchIndex productSearchIndex;
+    private final AutocompleteIndex customerAutocomplete;
+    private final AutocompleteIndex supplierAutocomplete;
+
+    public SearchIndexHealthIndicator(ProductSearchIndex productSearchIndex,
+                                      @Qualifier("customerAutocomplete") AutocompleteIndex customerAutocomplete,
+                                      @Qualifier("supplierAutocomplete") AutocompleteIndex supplierAutocomplete) {
+        this.productSearchIndex = productSearchIndex;
+        this.customerAutocomplete = customerAutocomplete;
+        this.supplierAutocomplete = supplierAutocomplete;
+    }
+
+    @Override
+    public Health health() {
+        boolean products = productSearchIndex.isReady();
+        boolean customers = customerAutocomplete.isReady();
+        boolean suppliers = supplierAutocomplete.isReady();
+        return (products && customers && suppliers ? Health.up() : Health.outOfService())
+                .withDetail("products", products)
+                .withDetail("customers", customers)
+                .withDetail("suppliers", suppliers)
+                .build();
+    }
+}
@@ -0,0 +1,37 @@
+package com.erp.backend.config;
+
+import com.erp.backend.service.SqlStatementMonitor;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+// Routes every JDBC execution through SqlStatementMonitor by wrapping the pool in a datasource-proxy.
+// The proxy unwraps to the Hikari pool, so pool metrics and health checks still find it. Any
+// MethodExecutionListener beans (profile-specific JDBC adjustments) are attached to the same proxy.
+@Configuration
+public class SqlMonitoringConfig {
+
+    // Static so the post-processor is registered before the DataSource is created
+    @Bean
+    public static BeanPostProcessor sqlMonitoringDataSourcePostProcessor(ObjectProvider<SqlStatementMonitor> monitor,
+                                                                         ObjectProvider<MethodExecutionListener> methodListeners) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    ProxyDataSourceBuilder builder = ProxyDataSourceBuilder.create(beanName, dataSource)
+                            .listener(monitor.getObject());
+                    methodListeners.orderedStream().forEach(builder::methodListener);
+                    return builder.build();
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,160 @@
+package com.erp.backend.config;
+
+import com.erp.backend.service.SqlStatementMonitor;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Counts the statements and JDBC time of each request and warns about requests over the statement
+// or latency budget. Runs ahead of the security chain so token and user lookups are included. Work
+// handed to other threads (async controllers, the inventory flusher) is not attributed to the request.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SqlStatsFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlStatsFilter.class);
+
+    private final SqlStatementMonitor monitor;
+    private final boolean responseHeaders;
+    private final int statementBudget;
+    private final long requestTimeBudgetNanos;
+
+    public SqlStatsFilter(SqlStatementMonitor monitor,
+                          @Value("${erp.sql.stats.response-headers:false}") boolean responseHeaders,
+                          @Value("${erp.sql.budget.statements:50}") int statementBudget,
+                          @Value("${erp.sql.budget.request-time-ms:1000}") long requestTimeBudgetMs) {
+        this.monitor = monitor;
+        this.responseHeaders = responseHeaders;
+        this.statementBudget = statementBudget;
+        this.requestTimeBudgetNanos = TimeUnit.MILLISECONDS.toNanos(requestTimeBudgetMs);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        long started = System.nanoTime();
+        SqlStatementMonitor.RequestStats stats = monitor.begin(request.getMethod() + " " + request.getRequestURI());
+        // Message converters flush when they finish writing, which would commit the response before
+        // the headers can be added; the wrapper holds flushes back until the request is done
+        HttpServletResponse target = responseHeaders ? new DeferredFlushResponse(response) : response;
+        try {
+            filterChain.doFilter(request, target);
+        } finally {
+            monitor.end();
+            long elapsed = System.nanoTime() - started;
+            if (stats.getStatements() > statementBudget || elapsed > requestTimeBudgetNanos) {
+                warnOverBudget(stats, elapsed);
+            }
+        }
+
+        // Only once the chain has returned normally: after an exception the container resets the buffer
+        // and writes the error response, which an early flush would commit and whose cause it could mask
+        if (responseHeaders && !request.isAsyncStarted()) {
+            // Bodies larger than the container buffer are already on the wire and go without them
+            if (!response.isCommitted()) {
+                response.setHeader("X-SQL-Count", Integer.toString(stats.getStatements()));
+                response.setHeader("X-SQL-Time-Ms", millis(stats.getStatementNanos()));
+            }
+            response.flushBuffer();
+        }
+    }
+
+    private void warnOverBudget(SqlStatementMonitor.RequestStats stats, long elapsed) {
+        Map.Entry<String, Integer> mostRepeated = stats.getMostRepeated();
+        if (mostRepeated != null && mostRepeated.getValue() > 1) {
+            log.warn("{} over budget: {} statements, {} ms in JDBC, {} ms total; ran {} times: {}",
+                    stats.getRequest(), stats.getStatements(), millis(stats.getStatementNanos()), millis(elapsed),
+                    mostRepeated.getValue(), mostRepeated.getKey());
+        } else {
+            log.warn("{} over budget: {} statements, {} ms in JDBC, {} ms total",
+                    stats.getRequest(), stats.getStatements(), millis(stats.getStatementNanos()), millis(elapsed));
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0);
+    }
+
+    private static final class DeferredFlushResponse extends HttpServletResponseWrapper {
+
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+
+        private DeferredFlushResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                ServletOutputStream delegate = super.getOutputStream();
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        delegate.write(b);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        delegate.write(b, off, len);
+                    }
+
+                    @Override
+                    public void flush() {
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        delegate.close();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return delegate.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        delegate.setWriteListener(writeListener);
+                    }
+                };
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new FilterWriter(super.getWriter()) {
+                    @Override
+                    public void flush() {
+                    }
+                });
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() {
+        }
+    }
+}
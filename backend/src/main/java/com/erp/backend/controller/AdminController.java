@@ -0,0 +1,28 @@
+package com.erp.backend.controller;
+
+import com.erp.backend.service.SqlStatementMonitor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminController {
+
+    private final SqlStatementMonitor sqlStatementMonitor;
+
+    public AdminController(SqlStatementMonitor sqlStatementMonitor) {
+        this.sqlStatementMonitor = sqlStatementMonitor;
+    }
+
+    // Recent statements over erp.sql.slow-query.threshold-ms, slowest first
+    @GetMapping("/slow-queries")
+    public ResponseEntity<List<SqlStatementMonitor.SlowQuery>> getSlowQueries() {
+        return ResponseEntity.ok(sqlStatementMonitor.getSlowQueries());
+    }
+}
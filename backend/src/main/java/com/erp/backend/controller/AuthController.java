@@ -4,49 +4,62 @@ import com.erp.backend.dto.AuthRequest;
 import com.erp.backend.dto.AuthResponse;
 import com.erp.backend.dto.RegisterRequest;
 import com.erp.backend.model.User;
+import com.erp.backend.security.JwtTokenCache;
 import com.erp.backend.security.JwtTokenUtil;
+import com.erp.backend.service.LoginService;
+import com.erp.backend.service.TokenRevocationService;
 import com.erp.backend.service.UserService;
+import io.jsonwebtoken.JwtException;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
 
-    private final AuthenticationManager authenticationManager;
+    private final LoginService loginService;
     private final UserService userService;
     private final JwtTokenUtil jwtTokenUtil;
+    private final JwtTokenCache jwtTokenCache;
+    private final TokenRevocationService tokenRevocationService;
 
-    public AuthController(AuthenticationManager authenticationManager, UserService userService, JwtTokenUtil jwtTokenUtil) {
-        this.authenticationManager = authenticationManager;
+    public AuthController(LoginService loginService, UserService userService, JwtTokenUtil jwtTokenUtil,
+                          JwtTokenCache jwtTokenCache, TokenRevocationService tokenRevocationService) {
+        this.loginService = loginService;
         this.userService = userService;
         this.jwtTokenUtil = jwtTokenUtil;
+        this.jwtTokenCache = jwtTokenCache;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody AuthRequest authRequest) {
-        try {
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(authRequest.getUsername(), authRequest.getPassword())
-            );
-
-            User user = (User) authentication.getPrincipal();
-            String token = jwtTokenUtil.generateToken(user);
+    public CompletableFuture<ResponseEntity<?>> login(@Valid @RequestBody AuthRequest authRequest) {
+        // The password check runs on the login pool; this request thread is released meanwhile
+        return loginService.authenticate(authRequest.getUsername(), authRequest.getPassword())
+                .<ResponseEntity<?>>thenApply(authentication -> {
+                    User user = (User) authentication.getPrincipal();
+                    String token = jwtTokenUtil.generateToken(user);
 
-            AuthResponse authResponse = new AuthResponse(token, user.getUsername(), user.getRole());
-            return ResponseEntity.ok(authResponse);
-        } catch (BadCredentialsException e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid username or password");
-        }
+                    AuthResponse authResponse = new AuthResponse(token, user.getUsername(), user.getRole());
+                    return ResponseEntity.ok(authResponse);
+                })
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof BadCredentialsException) {
+                        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid username or password");
+                    }
+                    throw e instanceof CompletionException completion ? completion : new CompletionException(e);
+                });
     }
 
     @PostMapping("/register")
@@ -72,4 +85,19 @@ public class AuthController {
         AuthResponse authResponse = new AuthResponse(token, savedUser.getUsername(), savedUser.getRole());
         return ResponseEntity.status(HttpStatus.CREATED).body(authResponse);
     }
-}
\ No newline at end of file
+
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(value = "Authorization", required = false) String authorizationHeader) {
+        if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
+            return ResponseEntity.badRequest().body("Bearer token is required");
+        }
+
+        try {
+            JwtTokenCache.VerifiedToken token = jwtTokenCache.verify(authorizationHeader.substring(7));
+            tokenRevocationService.revoke(token.tokenId(), token.username(), token.expiresAt());
+            return ResponseEntity.ok("Logged out successfully");
+        } catch (JwtException | IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid or expired token");
+        }
+    }
+}
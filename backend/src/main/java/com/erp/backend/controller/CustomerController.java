@@ -23,12 +23,19 @@ public class CustomerController {
         this.customerService = customerService;
     }
 
+    // Passing after or limit switches to keyset paging in id order, without a total count
     @GetMapping
-    public ResponseEntity<Page<Customer>> getAllCustomers(
+    public ResponseEntity<?> getAllCustomers(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortBy,
-            @RequestParam(defaultValue = "asc") String direction) {
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit) {
+
+        if (after != null || limit != null) {
+            return ResponseEntity.ok(customerService.getCustomersAfter(after, limit));
+        }
 
         Sort.Direction sortDirection = direction.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
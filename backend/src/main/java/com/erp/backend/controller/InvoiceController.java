@@ -1,34 +1,55 @@
 package com.erp.backend.controller;
 
 import com.erp.backend.dto.InvoiceDTO;
+import com.erp.backend.dto.InvoiceExportProgress;
 import com.erp.backend.model.Invoice;
+import com.erp.backend.service.InvoiceExportService;
+import com.erp.backend.service.InvoicePdfRenderer;
 import com.erp.backend.service.InvoiceService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/invoices")
 public class InvoiceController {
 
     private final InvoiceService invoiceService;
+    private final InvoicePdfRenderer invoicePdfRenderer;
+    private final InvoiceExportService invoiceExportService;
 
-    public InvoiceController(InvoiceService invoiceService) {
+    public InvoiceController(InvoiceService invoiceService, InvoicePdfRenderer invoicePdfRenderer,
+                             InvoiceExportService invoiceExportService) {
         this.invoiceService = invoiceService;
+        this.invoicePdfRenderer = invoicePdfRenderer;
+        this.invoiceExportService = invoiceExportService;
     }
 
+    // Passing after or limit switches to keyset paging in id order, without a total count
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'ACCOUNTANT', 'SALES_EXECUTIVE')")
-    public ResponseEntity<Page<Invoice>> getAllInvoices(Pageable pageable) {
+    public ResponseEntity<?> getAllInvoices(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit,
+            Pageable pageable) {
+        if (after != null || limit != null) {
+            return ResponseEntity.ok(invoiceService.getInvoicesAfter(after, limit));
+        }
         return ResponseEntity.ok(invoiceService.getAllInvoices(pageable));
     }
 
@@ -50,13 +71,64 @@ public class InvoiceController {
 
     @GetMapping("/date-range")
     @PreAuthorize("hasAnyRole('ADMIN', 'ACCOUNTANT', 'SALES_EXECUTIVE')")
-    public ResponseEntity<Page<Invoice>> getInvoicesByDateRange(
+    public ResponseEntity<?> getInvoicesByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit,
             Pageable pageable) {
+        if (after != null || limit != null) {
+            return ResponseEntity.ok(invoiceService.getInvoicesByDateRangeAfter(startDate, endDate, after, limit));
+        }
         return ResponseEntity.ok(invoiceService.getInvoicesByDateRange(startDate, endDate, pageable));
     }
 
+    // Streams a ZIP of the range's invoice PDFs; the X-Export-Job header names the job for GET /export/{jobId}.
+    // To continue a download that broke off, pass afterInvoice: the invoice number of the last complete entry
+    // received (or after, the checkpoint from a finished archive's comment). 503 while max-streams are running.
+    @GetMapping("/export")
+    @PreAuthorize("hasAnyRole('ADMIN', 'ACCOUNTANT')")
+    public void exportInvoices(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String afterInvoice,
+            HttpServletResponse response) throws IOException {
+        InvoiceExportService.ExportJob job = invoiceExportService.openStream(startDate, endDate, after, afterInvoice);
+        try {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType("application/zip");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    ContentDisposition.attachment().filename("invoices-" + job.getId() + ".zip").build().toString());
+            response.setHeader("X-Export-Job", job.getId());
+            invoiceExportService.export(job, response.getOutputStream());
+        } catch (IOException e) {
+            // Usually the client going away; the job has the error
+            if (!response.isCommitted()) {
+                throw e;
+            }
+        } finally {
+            invoiceExportService.closeStream();
+        }
+    }
+
+    // Writes the ZIP to the server's export directory in the background
+    @PostMapping("/export")
+    @PreAuthorize("hasAnyRole('ADMIN', 'ACCOUNTANT')")
+    public ResponseEntity<InvoiceExportProgress> startInvoiceExport(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) String after) {
+        InvoiceExportService.ExportJob job = invoiceExportService.exportToFile(startDate, endDate, after);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(invoiceExportService.getProgress(job.getId()));
+    }
+
+    @GetMapping("/export/{jobId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'ACCOUNTANT')")
+    public ResponseEntity<InvoiceExportProgress> getInvoiceExportProgress(@PathVariable String jobId) {
+        return ResponseEntity.ok(invoiceExportService.getProgress(jobId));
+    }
+
     @GetMapping("/overdue")
     @PreAuthorize("hasAnyRole('ADMIN', 'ACCOUNTANT')")
     public ResponseEntity<List<Invoice>> getOverdueInvoices() {
@@ -69,6 +141,18 @@ public class InvoiceController {
         return ResponseEntity.ok(invoiceService.getInvoiceById(id));
     }
 
+    // Rendered straight onto the response as it is laid out; no Content-Length, the body is chunked
+    @GetMapping("/{id}/pdf")
+    @PreAuthorize("hasAnyRole('ADMIN', 'ACCOUNTANT', 'SALES_EXECUTIVE')")
+    public void getInvoicePdf(@PathVariable Long id, HttpServletResponse response) throws IOException {
+        Invoice invoice = invoiceService.getInvoiceForDocument(id);
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_PDF_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.inline().filename(invoice.getInvoiceNumber() + ".pdf").build().toString());
+        invoicePdfRenderer.render(invoice, response.getOutputStream());
+    }
+
     @GetMapping("/order/{orderId}")
     @PreAuthorize("hasAnyRole('ADMIN', 'ACCOUNTANT', 'SALES_EXECUTIVE')")
     public ResponseEntity<Invoice> getInvoiceByOrderId(@PathVariable Long orderId) {
@@ -95,7 +179,8 @@ public class InvoiceController {
     public ResponseEntity<Invoice> recordPayment(
             @PathVariable Long id,
             @RequestParam BigDecimal amount) {
-        return ResponseEntity.ok(invoiceService.recordPayment(id, amount));
+        invoiceService.applyPaymentDeltas(Map.of(id, amount));
+        return ResponseEntity.ok(invoiceService.getInvoiceById(id));
     }
 
     @PostMapping("/{id}/cancel")
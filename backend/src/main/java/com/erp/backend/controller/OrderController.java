@@ -2,7 +2,10 @@ package com.erp.backend.controller;
 
 import com.erp.backend.dto.OrderDTO;
 import com.erp.backend.model.Order;
+import com.erp.backend.service.OrderImportService;
 import com.erp.backend.service.OrderService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -10,10 +13,12 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 
 @RestController
@@ -21,17 +26,26 @@ import java.time.LocalDateTime;
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderImportService orderImportService;
 
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, OrderImportService orderImportService) {
         this.orderService = orderService;
+        this.orderImportService = orderImportService;
     }
 
+    // Passing after or limit switches to keyset paging in id order, without a total count
     @GetMapping
-    public ResponseEntity<Page<Order>> getAllOrders(
+    public ResponseEntity<?> getAllOrders(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortBy,
-            @RequestParam(defaultValue = "desc") String direction) {
+            @RequestParam(defaultValue = "desc") String direction,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit) {
+
+        if (after != null || limit != null) {
+            return ResponseEntity.ok(orderService.getOrdersAfter(after, limit));
+        }
 
         Sort.Direction sortDirection = direction.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
@@ -76,11 +90,17 @@ public class OrderController {
     }
 
     @GetMapping("/date-range")
-    public ResponseEntity<Page<Order>> getOrdersByDateRange(
+    public ResponseEntity<?> getOrdersByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit) {
+
+        if (after != null || limit != null) {
+            return ResponseEntity.ok(orderService.getOrdersByDateRangeAfter(startDate, endDate, after, limit));
+        }
 
         Pageable pageable = PageRequest.of(page, size);
         Page<Order> orders = orderService.getOrdersByDateRange(startDate, endDate, pageable);
@@ -100,6 +120,18 @@ public class OrderController {
         return new ResponseEntity<>(createdOrder, HttpStatus.CREATED);
     }
 
+    // Streams per-order results as NDJSON while the file is still being read
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    @PreAuthorize("hasRole('ADMIN') or hasRole('SALES_EXECUTIVE')")
+    public void importOrders(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        orderImportService.importOrders(request.getInputStream(),
+                OrderImportService.Format.fromContentType(request.getContentType()),
+                response.getOutputStream());
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('SALES_EXECUTIVE')")
     public ResponseEntity<Order> updateOrder(
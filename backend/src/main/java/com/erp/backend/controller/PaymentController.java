@@ -2,16 +2,22 @@ package com.erp.backend.controller;
 
 import com.erp.backend.dto.PaymentDTO;
 import com.erp.backend.model.Payment;
+import com.erp.backend.service.OrderImportService;
+import com.erp.backend.service.PaymentImportService;
 import com.erp.backend.service.PaymentService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -20,14 +26,23 @@ import java.util.List;
 public class PaymentController {
 
     private final PaymentService paymentService;
+    private final PaymentImportService paymentImportService;
 
-    public PaymentController(PaymentService paymentService) {
+    public PaymentController(PaymentService paymentService, PaymentImportService paymentImportService) {
         this.paymentService = paymentService;
+        this.paymentImportService = paymentImportService;
     }
 
+    // Passing after or limit switches to keyset paging in id order, without a total count
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'ACCOUNTANT')")
-    public ResponseEntity<Page<Payment>> getAllPayments(Pageable pageable) {
+    public ResponseEntity<?> getAllPayments(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit,
+            Pageable pageable) {
+        if (after != null || limit != null) {
+            return ResponseEntity.ok(paymentService.getPaymentsAfter(after, limit));
+        }
         return ResponseEntity.ok(paymentService.getAllPayments(pageable));
     }
 
@@ -55,10 +70,15 @@ public class PaymentController {
 
     @GetMapping("/date-range")
     @PreAuthorize("hasAnyRole('ADMIN', 'ACCOUNTANT')")
-    public ResponseEntity<Page<Payment>> getPaymentsByDateRange(
+    public ResponseEntity<?> getPaymentsByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit,
             Pageable pageable) {
+        if (after != null || limit != null) {
+            return ResponseEntity.ok(paymentService.getPaymentsByDateRangeAfter(startDate, endDate, after, limit));
+        }
         return ResponseEntity.ok(paymentService.getPaymentsByDateRange(startDate, endDate, pageable));
     }
 
@@ -83,6 +103,18 @@ public class PaymentController {
         return new ResponseEntity<>(createdPayment, HttpStatus.CREATED);
     }
 
+    // Settlement files: streams one NDJSON result per payment while the file is still being read
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    @PreAuthorize("hasAnyRole('ADMIN', 'ACCOUNTANT')")
+    public void importPayments(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        paymentImportService.importPayments(request.getInputStream(),
+                OrderImportService.Format.fromContentType(request.getContentType()),
+                response.getOutputStream());
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'ACCOUNTANT')")
     public ResponseEntity<Payment> updatePayment(
@@ -0,0 +1,32 @@
+package com.erp.backend.controller;
+
+import com.erp.backend.dto.ReconciliationReport;
+import com.erp.backend.service.ReconciliationService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/reconciliations")
+public class ReconciliationController {
+
+    private final ReconciliationService reconciliationService;
+
+    public ReconciliationController(ReconciliationService reconciliationService) {
+        this.reconciliationService = reconciliationService;
+    }
+
+    // Reconciles a statement CSV from the server's statement directory in the background
+    @PostMapping
+    @PreAuthorize("hasAnyRole('ADMIN', 'ACCOUNTANT')")
+    public ResponseEntity<ReconciliationReport> startReconciliation(@RequestParam String file) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(reconciliationService.start(file));
+    }
+
+    @GetMapping("/{jobId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'ACCOUNTANT')")
+    public ResponseEntity<ReconciliationReport> getReconciliation(@PathVariable String jobId) {
+        return ResponseEntity.ok(reconciliationService.getReport(jobId));
+    }
+}
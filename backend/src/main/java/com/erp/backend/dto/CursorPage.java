@@ -0,0 +1,22 @@
+package com.erp.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// One page of a keyset-paginated listing. There is no total count; pass nextCursor as ?after=
+// to continue, until hasNext is false.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> content;
+    
+    private int limit;
+    
+    private boolean hasNext;
+    
+    private String nextCursor;
+}
@@ -0,0 +1,44 @@
+package com.erp.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class InvoiceExportProgress {
+    private String jobId;
+
+    // QUEUED, RUNNING, COMPLETED or FAILED
+    private String status;
+
+    private LocalDateTime startDate;
+
+    private LocalDateTime endDate;
+
+    // Invoices in the range past the starting checkpoint, counted when the job started
+    private long total;
+
+    // Entries written to the archive so far
+    private long exported;
+
+    // File exports only: last invoice flushed and synced to the file; pass checkpoint as after to continue
+    // from there. A streamed export resumes from the last entry the client received (afterInvoice).
+    private Long lastInvoiceId;
+
+    private String checkpoint;
+
+    // Set for exports written to the server's export directory
+    private String file;
+
+    private String error;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,29 @@
+package com.erp.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrderImportResult {
+    // JSON: position of the order in the file; CSV: line of the order's first row
+    private Long row;
+    
+    private String reference;
+    
+    private Status status;
+    
+    private Long orderId;
+    
+    private String orderNumber;
+    
+    private String error;
+
+    public enum Status {
+        CREATED, FAILED
+    }
+}
@@ -0,0 +1,21 @@
+package com.erp.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrderImportSummary {
+    private long total;
+    
+    private long created;
+    
+    private long failed;
+    
+    // Set when the file itself could not be read to the end; orders before that point were processed
+    private String error;
+}
@@ -0,0 +1,33 @@
+package com.erp.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PaymentImportResult {
+    // JSON: position of the payment in the file; CSV: line of its row
+    private Long row;
+    
+    private String reference;
+    
+    private Status status;
+    
+    private Long paymentId;
+    
+    private Long invoiceId;
+    
+    private BigDecimal amount;
+    
+    private String error;
+
+    public enum Status {
+        POSTED, FAILED
+    }
+}
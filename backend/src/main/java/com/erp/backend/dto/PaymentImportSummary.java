@@ -0,0 +1,25 @@
+package com.erp.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PaymentImportSummary {
+    private long total;
+    
+    private long posted;
+    
+    private long failed;
+    
+    private BigDecimal amountPosted = BigDecimal.ZERO;
+    
+    // Set when the file itself could not be read to the end; payments before that point were posted
+    private String error;
+}
@@ -0,0 +1,49 @@
+package com.erp.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ReconciliationReport {
+    private String jobId;
+
+    // QUEUED, INDEXING, EXACT, TOLERANCE, COMPLETED or FAILED
+    private String status;
+
+    private String file;
+
+    private long invoicesIndexed;
+
+    private long linesRead;
+
+    private long matchedExact;
+
+    private long matchedWithinTolerance;
+
+    // Final once the job has completed; lines are only given up on in the tolerance pass
+    private long unmatched;
+
+    private BigDecimal amountPosted;
+
+    // Percent of lines read that were matched and posted
+    private Double matchRate;
+
+    private Double linesPerSecond;
+
+    // CSV of the unmatched lines with the reason for each, relative to the statement directory
+    private String unmatchedFile;
+
+    private String error;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,18 @@
+package com.erp.backend.exception;
+
+import java.util.Map;
+
+public class InsufficientStockException extends IllegalArgumentException {
+
+    // Keyed by the offending order line (e.g. "orderItems[2]") so the client can map errors back to its form
+    private final Map<String, String> shortfalls;
+
+    public InsufficientStockException(Map<String, String> shortfalls) {
+        super("Insufficient stock for " + shortfalls.size() + " order line(s)");
+        this.shortfalls = shortfalls;
+    }
+
+    public Map<String, String> getShortfalls() {
+        return shortfalls;
+    }
+}
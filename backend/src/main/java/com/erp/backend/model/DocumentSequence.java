@@ -0,0 +1,26 @@
+package com.erp.backend.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "document_sequences")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentSequence {
+
+    // Sequence key, e.g. ORD-20240131
+    @Id
+    @Column(name = "name", length = 64)
+    private String name;
+
+    // First value not yet handed out to any node
+    @Column(name = "next_value", nullable = false)
+    private Long nextValue;
+}
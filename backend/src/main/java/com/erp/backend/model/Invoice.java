@@ -1,5 +1,7 @@
 package com.erp.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonIncludeProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -9,14 +11,16 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "invoices")
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@Table(name = "invoices", indexes = @Index(name = "idx_invoices_invoice_date_id", columnList = "invoice_date, id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Invoice {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "invoice_seq")
+    @SequenceGenerator(name = "invoice_seq", sequenceName = "invoices_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "invoice_number", unique = true, nullable = false)
@@ -62,8 +66,14 @@ public class Invoice {
 
     @ManyToOne
     @JoinColumn(name = "created_by")
+    @JsonIncludeProperties({"id", "username", "fullName"})
     private User createdBy;
 
+    // Guards entity-based writes against concurrent balance changes made through atomic SQL
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long version = 0L;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
@@ -86,7 +96,7 @@ public class Invoice {
         calculateAmountDue();
     }
 
-    private void calculateAmountDue() {
+    public void calculateAmountDue() {
         this.amountDue = this.totalAmount.subtract(this.amountPaid);
         
         // Update status based on payment
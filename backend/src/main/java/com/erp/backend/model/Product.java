@@ -1,5 +1,7 @@
 package com.erp.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonIncludeProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -9,7 +11,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = @Index(name = "idx_products_active_id", columnList = "active, id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -30,6 +32,7 @@ public class Product {
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id")
+    @JsonIgnoreProperties({"parent", "subcategories", "products"})
     private Category category;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -71,8 +74,14 @@ public class Product {
     @Column(name = "active", nullable = false)
     private Boolean active = true;
 
+    // Guards entity-based writes against concurrent stock changes made through atomic SQL
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long version = 0L;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "created_by")
+    @JsonIncludeProperties({"id", "username", "fullName"})
     private User createdBy;
 
     @Column(name = "created_at", nullable = false, updatable = false)
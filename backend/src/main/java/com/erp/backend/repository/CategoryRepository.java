@@ -20,4 +20,7 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
     List<Category> findAllParentCategories();
     
     List<Category> findByParentId(Long parentId);
+    
+    @Query("SELECT c.id, p.id FROM Category c LEFT JOIN c.parent p ORDER BY c.id")
+    List<Object[]> findAllParentLinks();
 }
\ No newline at end of file
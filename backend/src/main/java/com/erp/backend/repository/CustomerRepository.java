@@ -1,18 +1,40 @@
 package com.erp.backend.repository;
 
 import com.erp.backend.model.Customer;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
     Page<Customer> findByNameContainingIgnoreCase(String name, Pageable pageable);
     
     Page<Customer> findByActive(boolean active, Pageable pageable);
     
+    // Keyset pages: seek past the last id seen instead of counting and skipping OFFSET rows
+    Slice<Customer> findByIdGreaterThan(Long id, Pageable pageable);
+    
     boolean existsByEmail(String email);
     
     boolean existsByTaxId(String taxId);
+    
+    // The ids among these that exist, to check a batch of references in one round trip
+    @Query("SELECT c.id FROM Customer c WHERE c.id IN :ids")
+    List<Long> findIdsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Autocomplete fields in AutocompleteIndex order: name, contact person, email, tax id
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT c.id, c.name, c.contactPerson, c.email, c.taxId FROM Customer c ORDER BY c.id")
+    Stream<Object[]> streamSearchFields();
 }
\ No newline at end of file
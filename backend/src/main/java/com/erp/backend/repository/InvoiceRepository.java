@@ -3,16 +3,19 @@ package com.erp.backend.repository;
 import com.erp.backend.model.Invoice;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
+public interface InvoiceRepository extends JpaRepository<Invoice, Long>, InvoiceRepositoryCustom {
     Page<Invoice> findByCustomerId(Long customerId, Pageable pageable);
     
     Page<Invoice> findByStatus(Invoice.InvoiceStatus status, Pageable pageable);
@@ -29,4 +32,55 @@ public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
     List<Invoice> findOverdueInvoices(@Param("currentDate") LocalDateTime currentDate);
     
     Invoice findByOrderId(Long orderId);
-}
\ No newline at end of file
+    
+    // Keyset pages: seek past the last id seen instead of counting and skipping OFFSET rows
+    Slice<Invoice> findByIdGreaterThan(Long id, Pageable pageable);
+    
+    @Query("SELECT i FROM Invoice i WHERE i.invoiceDate >= :afterDate AND i.invoiceDate <= :endDate " +
+           "AND (i.invoiceDate > :afterDate OR i.id > :afterId)")
+    Slice<Invoice> findByInvoiceDateAfter(
+            @Param("afterDate") LocalDateTime afterDate,
+            @Param("afterId") Long afterId,
+            @Param("endDate") LocalDateTime endDate,
+            Pageable pageable);
+    
+    // Everything the invoice document prints, in one round trip
+    String DOCUMENT_QUERY = "SELECT i FROM Invoice i JOIN FETCH i.customer LEFT JOIN FETCH i.createdBy " +
+            "LEFT JOIN FETCH i.order o LEFT JOIN FETCH o.customer LEFT JOIN FETCH o.createdBy " +
+            "LEFT JOIN FETCH o.orderItems oi LEFT JOIN FETCH oi.product ";
+    
+    @Query(DOCUMENT_QUERY + "WHERE i.id = :id")
+    Optional<Invoice> findDocumentById(@Param("id") Long id);
+    
+    @Query(DOCUMENT_QUERY + "WHERE i.id IN :ids")
+    List<Invoice> findDocumentsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Export scan: (id, invoiceDate) pairs in index order, past the last pair exported
+    @Query("SELECT i.id, i.invoiceDate FROM Invoice i WHERE i.invoiceDate >= :afterDate AND i.invoiceDate <= :endDate " +
+           "AND (i.invoiceDate > :afterDate OR i.id > :afterId) ORDER BY i.invoiceDate, i.id")
+    List<Object[]> findExportKeys(
+            @Param("afterDate") LocalDateTime afterDate,
+            @Param("afterId") Long afterId,
+            @Param("endDate") LocalDateTime endDate,
+            Pageable pageable);
+    
+    @Query("SELECT COUNT(i) FROM Invoice i WHERE i.invoiceDate >= :afterDate AND i.invoiceDate <= :endDate " +
+           "AND (i.invoiceDate > :afterDate OR i.id > :afterId)")
+    long countExportKeys(
+            @Param("afterDate") LocalDateTime afterDate,
+            @Param("afterId") Long afterId,
+            @Param("endDate") LocalDateTime endDate);
+    
+    // The export scan key of one archive entry, to resume a streamed export after it
+    @Query("SELECT i.id, i.invoiceDate FROM Invoice i WHERE i.invoiceNumber = :invoiceNumber")
+    List<Object[]> findExportKeyByInvoiceNumber(@Param("invoiceNumber") String invoiceNumber);
+    
+    // (id, status) pairs, so a batch of payments can be checked without loading the invoices
+    @Query("SELECT i.id, i.status FROM Invoice i WHERE i.id IN :ids")
+    List<Object[]> findStatusesByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Reconciliation index: (id, invoiceNumber, amountDue, customer taxId, status) of every invoice, in id pages
+    @Query("SELECT i.id, i.invoiceNumber, i.amountDue, c.taxId, i.status FROM Invoice i LEFT JOIN i.customer c " +
+           "WHERE i.id > :afterId ORDER BY i.id")
+    List<Object[]> findMatchKeys(@Param("afterId") Long afterId, Pageable pageable);
+}
@@ -0,0 +1,12 @@
+package com.erp.backend.repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+public interface InvoiceRepositoryCustom {
+
+    // Adds each delta to amount_paid and recomputes amount_due and status in the same UPDATE, all in one
+    // JDBC batch. Cancelled and refunded invoices are left alone; returns the ids whose update matched no row.
+    List<Long> applyPaymentDeltas(Map<Long, BigDecimal> deltas);
+}
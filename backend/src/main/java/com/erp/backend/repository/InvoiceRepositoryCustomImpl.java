@@ -0,0 +1,77 @@
+package com.erp.backend.repository;
+
+import com.erp.backend.model.Invoice;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class InvoiceRepositoryCustomImpl implements InvoiceRepositoryCustom {
+
+    // MySQL evaluates SET assignments left to right against the values already assigned, so amount_paid
+    // goes last and everything before it works from the old balance plus the delta. Bumping the version
+    // makes entity-based writes that read the invoice earlier fail instead of overwriting the balance.
+    private static final String APPLY_PAYMENT_DELTA_SQL =
+            "UPDATE invoices SET " +
+            "status = CASE WHEN total_amount - (amount_paid + ?) <= 0 THEN 'PAID' " +
+            "WHEN amount_paid + ? > 0 THEN 'PARTIALLY_PAID' " +
+            "WHEN status IN ('PAID', 'PARTIALLY_PAID') THEN 'PENDING' " +
+            "ELSE status END, " +
+            "amount_due = total_amount - (amount_paid + ?), " +
+            "version = version + 1, updated_at = ?, " +
+            "amount_paid = amount_paid + ? " +
+            "WHERE id = ? AND status NOT IN ('CANCELLED', 'REFUNDED')";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    public InvoiceRepositoryCustomImpl(JdbcTemplate jdbcTemplate, EntityManager entityManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<Long> applyPaymentDeltas(Map<Long, BigDecimal> deltas) {
+        if (deltas.isEmpty()) {
+            return List.of();
+        }
+
+        // Pending entity changes (a new invoice, an edited total) must reach the rows before they are updated
+        entityManager.flush();
+
+        // Lock rows in id order so payments moving between the same invoices cannot deadlock
+        List<Long> invoiceIds = new ArrayList<>(new TreeMap<>(deltas).keySet());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        List<Object[]> batchArgs = new ArrayList<>(invoiceIds.size());
+        for (Long invoiceId : invoiceIds) {
+            BigDecimal delta = deltas.get(invoiceId);
+            batchArgs.add(new Object[]{delta, delta, delta, now, delta, invoiceId});
+        }
+
+        int[] updateCounts = jdbcTemplate.batchUpdate(APPLY_PAYMENT_DELTA_SQL, batchArgs);
+
+        List<Long> failed = new ArrayList<>();
+        for (int i = 0; i < updateCounts.length; i++) {
+            Long invoiceId = invoiceIds.get(i);
+            if (updateCounts[i] == 0 || updateCounts[i] == Statement.EXECUTE_FAILED) {
+                failed.add(invoiceId);
+                continue;
+            }
+            // An invoice already loaded in this transaction would keep the old balance and version
+            Invoice cached = entityManager.getReference(Invoice.class, invoiceId);
+            if (Hibernate.isInitialized(cached)) {
+                entityManager.refresh(cached);
+            }
+        }
+        return failed;
+    }
+}
@@ -3,6 +3,8 @@ package com.erp.backend.repository;
 import com.erp.backend.model.Order;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -10,23 +12,59 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
+    // List reads join the to-one associations into the page query; items are batch-loaded per page
+    // (hibernate.default_batch_fetch_size) since fetching a collection would defeat SQL pagination
+    @Override
+    @EntityGraph(attributePaths = {"customer", "createdBy"})
+    Page<Order> findAll(Pageable pageable);
+    
+    @Override
+    @EntityGraph(attributePaths = {"customer", "createdBy", "orderItems", "orderItems.product"})
+    Optional<Order> findById(Long id);
+    
+    // Keyset pages: seek past the last id seen instead of counting and skipping OFFSET rows
+    @EntityGraph(attributePaths = {"customer", "createdBy"})
+    Slice<Order> findByIdGreaterThan(Long id, Pageable pageable);
+    
+    @EntityGraph(attributePaths = {"customer", "createdBy"})
     Page<Order> findByCustomerId(Long customerId, Pageable pageable);
     
+    @EntityGraph(attributePaths = {"customer", "createdBy"})
     Page<Order> findByStatus(Order.OrderStatus status, Pageable pageable);
     
+    @EntityGraph(attributePaths = {"customer", "createdBy"})
     Page<Order> findByPaymentStatus(Order.PaymentStatus paymentStatus, Pageable pageable);
     
     boolean existsByOrderNumber(String orderNumber);
     
+    List<Order> findByStatusAndPaymentStatusAndCreatedAtBefore(
+            Order.OrderStatus status,
+            Order.PaymentStatus paymentStatus,
+            LocalDateTime createdBefore,
+            Pageable pageable);
+    
+    @EntityGraph(attributePaths = {"customer", "createdBy"})
     @Query("SELECT o FROM Order o WHERE o.orderDate BETWEEN :startDate AND :endDate")
     Page<Order> findByOrderDateBetween(
             @Param("startDate") LocalDateTime startDate, 
             @Param("endDate") LocalDateTime endDate, 
             Pageable pageable);
     
+    // Keyset page over (order_date, id); the leading >= keeps it a range scan on idx_orders_order_date_id
+    @EntityGraph(attributePaths = {"customer", "createdBy"})
+    @Query("SELECT o FROM Order o WHERE o.orderDate >= :afterDate AND o.orderDate <= :endDate " +
+           "AND (o.orderDate > :afterDate OR o.id > :afterId)")
+    Slice<Order> findByOrderDateAfter(
+            @Param("afterDate") LocalDateTime afterDate,
+            @Param("afterId") Long afterId,
+            @Param("endDate") LocalDateTime endDate,
+            Pageable pageable);
+    
+    @EntityGraph(attributePaths = {"customer", "createdBy"})
     @Query("SELECT o FROM Order o WHERE o.customer.id = :customerId AND o.status = :status")
     List<Order> findByCustomerIdAndStatus(
             @Param("customerId") Long customerId, 
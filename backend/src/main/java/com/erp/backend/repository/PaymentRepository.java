@@ -3,12 +3,14 @@ package com.erp.backend.repository;
 import com.erp.backend.model.Payment;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -28,4 +30,21 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     
     @Query("SELECT p FROM Payment p JOIN p.invoice i WHERE i.customer.id = :customerId")
     Page<Payment> findByCustomerId(@Param("customerId") Long customerId, Pageable pageable);
+    
+    // Keyset pages: seek past the last id seen instead of counting and skipping OFFSET rows
+    Slice<Payment> findByIdGreaterThan(Long id, Pageable pageable);
+    
+    @Query("SELECT p FROM Payment p WHERE p.paymentDate >= :afterDate AND p.paymentDate <= :endDate " +
+           "AND (p.paymentDate > :afterDate OR p.id > :afterId)")
+    Slice<Payment> findByPaymentDateAfter(
+            @Param("afterDate") LocalDateTime afterDate,
+            @Param("afterId") Long afterId,
+            @Param("endDate") LocalDateTime endDate,
+            Pageable pageable);
+    
+    // (invoice id, reference number) of payments already posted under these references, so a settlement
+    // file posted twice is not paid twice. Looked up by reference alone: references are close to unique,
+    // while one invoice can carry thousands of payments.
+    @Query("SELECT p.invoice.id, p.referenceNumber FROM Payment p WHERE p.referenceNumber IN :referenceNumbers")
+    List<Object[]> findPostedReferences(@Param("referenceNumbers") Collection<String> referenceNumbers);
 }
\ No newline at end of file
@@ -1,17 +1,24 @@
 package com.erp.backend.repository;
 
 import com.erp.backend.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
     Page<Product> findByNameContainingIgnoreCase(String name, Pageable pageable);
     
     Page<Product> findByCategoryId(Long categoryId, Pageable pageable);
@@ -20,11 +27,38 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     
     Page<Product> findByActive(Boolean active, Pageable pageable);
     
+    // Keyset pages: seek past the last id seen instead of counting and skipping OFFSET rows
+    Slice<Product> findByIdGreaterThan(Long id, Pageable pageable);
+    
+    Slice<Product> findByActiveAndIdGreaterThan(Boolean active, Long id, Pageable pageable);
+    
     @Query("SELECT p FROM Product p WHERE p.stockQuantity <= p.reorderLevel")
     List<Product> findLowStockProducts();
     
-    @Query("SELECT p FROM Product p WHERE p.category.id = :categoryId OR p.category.parent.id = :categoryId")
-    Page<Product> findByCategoryOrParentCategory(@Param("categoryId") Long categoryId, Pageable pageable);
+    Page<Product> findByCategoryIdIn(Collection<Long> categoryIds, Pageable pageable);
     
     boolean existsBySku(String sku);
+    
+    // Everything a product's JSON reaches, so the catalog cache can snapshot it outside a session
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category c LEFT JOIN FETCH c.createdBy " +
+           "LEFT JOIN FETCH p.supplier LEFT JOIN FETCH p.createdBy WHERE p.id = :id")
+    Optional<Product> findWithCatalogById(@Param("id") Long id);
+    
+    @Query("SELECT p.id FROM Product p WHERE p.sku = :sku")
+    Optional<Long> findIdBySku(@Param("sku") String sku);
+    
+    @Query("SELECT p.stockQuantity FROM Product p WHERE p.id = :id")
+    Integer findStockQuantityById(@Param("id") Long id);
+    
+    @Query("SELECT p.id, p.stockQuantity FROM Product p")
+    Stream<Object[]> streamStockLevels();
+    
+    // The ids among these that exist, to check a batch of references in one round trip
+    @Query("SELECT p.id FROM Product p WHERE p.id IN :ids")
+    List<Long> findIdsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // MySQL Connector/J only streams rows (instead of buffering the whole result) with this fetch size
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT p.id, p.name, p.sku, p.barcode, p.description FROM Product p ORDER BY p.id")
+    Stream<Object[]> streamSearchFields();
 }
\ No newline at end of file
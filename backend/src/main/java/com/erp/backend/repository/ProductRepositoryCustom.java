@@ -0,0 +1,14 @@
+package com.erp.backend.repository;
+
+import java.util.List;
+import java.util.Map;
+
+public interface ProductRepositoryCustom {
+
+    // Applies all stock deltas in one JDBC batch; a delta that would take stock below zero is not applied.
+    // Returns the ids whose conditional update matched no row.
+    List<Long> applyStockDeltas(Map<Long, Integer> deltas);
+
+    // Unconditional variant for changes that were already validated elsewhere (reservation ledger flushes)
+    void addStockDeltas(Map<Long, Integer> deltas);
+}
@@ -0,0 +1,67 @@
+package com.erp.backend.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    // Bumps the version so entity-based writes that read the row earlier fail instead of overwriting the stock
+    private static final String APPLY_STOCK_DELTA_SQL =
+            "UPDATE products SET stock_quantity = stock_quantity + ?, version = version + 1, updated_at = ? " +
+            "WHERE id = ? AND stock_quantity + ? >= 0";
+
+    private static final String ADD_STOCK_DELTA_SQL =
+            "UPDATE products SET stock_quantity = stock_quantity + ?, version = version + 1, updated_at = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<Long> applyStockDeltas(Map<Long, Integer> deltas) {
+        if (deltas.isEmpty()) {
+            return List.of();
+        }
+
+        // Lock rows in id order so concurrent orders touching the same products cannot deadlock
+        List<Long> productIds = new ArrayList<>(new TreeMap<>(deltas).keySet());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        List<Object[]> batchArgs = new ArrayList<>(productIds.size());
+        for (Long productId : productIds) {
+            Integer delta = deltas.get(productId);
+            batchArgs.add(new Object[]{delta, now, productId, delta});
+        }
+
+        int[] updateCounts = jdbcTemplate.batchUpdate(APPLY_STOCK_DELTA_SQL, batchArgs);
+
+        List<Long> failed = new ArrayList<>();
+        for (int i = 0; i < updateCounts.length; i++) {
+            if (updateCounts[i] == 0 || updateCounts[i] == Statement.EXECUTE_FAILED) {
+                failed.add(productIds.get(i));
+            }
+        }
+        return failed;
+    }
+
+    @Override
+    public void addStockDeltas(Map<Long, Integer> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batchArgs = new ArrayList<>(deltas.size());
+        new TreeMap<>(deltas).forEach((productId, delta) -> batchArgs.add(new Object[]{delta, now, productId}));
+        jdbcTemplate.batchUpdate(ADD_STOCK_DELTA_SQL, batchArgs);
+    }
+}
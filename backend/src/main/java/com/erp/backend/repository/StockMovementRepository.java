@@ -0,0 +1,36 @@
+package com.erp.backend.repository;
+
+import com.erp.backend.model.StockMovement;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+
+    // SKIP LOCKED: several nodes can drain the journal concurrently without applying a movement twice
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT m FROM StockMovement m ORDER BY m.id")
+    List<StockMovement> findOldestForUpdate(Pageable pageable);
+
+    @Query("SELECT m.productId, SUM(m.delta) FROM StockMovement m GROUP BY m.productId")
+    List<Object[]> sumDeltasByProduct();
+
+    @Query("SELECT COALESCE(SUM(m.delta), 0) FROM StockMovement m WHERE m.productId = :productId")
+    long sumDeltasByProductId(@Param("productId") Long productId);
+
+    @Modifying
+    @Query("DELETE FROM StockMovement m WHERE m.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -1,11 +1,17 @@
 package com.erp.backend.repository;
 
 import com.erp.backend.model.Supplier;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.stream.Stream;
+
 @Repository
 public interface SupplierRepository extends JpaRepository<Supplier, Long> {
     Page<Supplier> findByNameContainingIgnoreCase(String name, Pageable pageable);
@@ -15,4 +21,9 @@ public interface SupplierRepository extends JpaRepository<Supplier, Long> {
     boolean existsByEmail(String email);
     
     boolean existsByTaxId(String taxId);
+    
+    // Autocomplete fields in AutocompleteIndex order: name, contact person, email, tax id
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT s.id, s.name, s.contactPerson, s.email, s.taxId FROM Supplier s ORDER BY s.id")
+    Stream<Object[]> streamSearchFields();
 }
\ No newline at end of file
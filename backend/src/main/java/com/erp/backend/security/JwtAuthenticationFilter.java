@@ -1,5 +1,9 @@
 package com.erp.backend.security;
 
+import com.erp.backend.service.TokenRevocationService;
+import com.erp.backend.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -7,53 +11,86 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtTokenUtil jwtTokenUtil;
-    private final UserDetailsService userDetailsService;
+    private final JwtTokenCache jwtTokenCache;
+    private final UserService userService;
+    private final TokenRevocationService tokenRevocationService;
+    private final Timer authenticatedTimer;
+    private final Timer anonymousTimer;
+    private final Timer rejectedTimer;
+    private final Timer unknownUserTimer;
 
-    public JwtAuthenticationFilter(JwtTokenUtil jwtTokenUtil, UserDetailsService userDetailsService) {
-        this.jwtTokenUtil = jwtTokenUtil;
-        this.userDetailsService = userDetailsService;
+    public JwtAuthenticationFilter(JwtTokenCache jwtTokenCache, UserService userService,
+                                   TokenRevocationService tokenRevocationService, MeterRegistry meterRegistry) {
+        this.jwtTokenCache = jwtTokenCache;
+        this.userService = userService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.authenticatedTimer = authTimer(meterRegistry, "authenticated");
+        this.anonymousTimer = authTimer(meterRegistry, "anonymous");
+        this.rejectedTimer = authTimer(meterRegistry, "rejected");
+        this.unknownUserTimer = authTimer(meterRegistry, "unknown-user");
+    }
+
+    // Time spent authenticating the request, excluding the rest of the filter chain
+    private static Timer authTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("erp.auth.jwt.filter")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
+        long started = System.nanoTime();
         final String authorizationHeader = request.getHeader("Authorization");
 
         String username = null;
-        String jwt = null;
+        boolean unknownUser = false;
 
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
+            String jwt = authorizationHeader.substring(7);
             try {
-                username = jwtTokenUtil.extractUsername(jwt);
+                // Signature and expiry are checked once per distinct token, not once per request
+                JwtTokenCache.VerifiedToken token = jwtTokenCache.verify(jwt);
+                // Checked on every request, cache hit or not, so a logout takes effect immediately
+                if (!tokenRevocationService.isRevoked(token.tokenId())) {
+                    username = token.username();
+                }
             } catch (Exception e) {
                 logger.error("Could not extract username from token", e);
             }
         }
 
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-
-            if (jwtTokenUtil.validateToken(jwt, userDetails)) {
+            try {
+                UserDetails userDetails = userService.loadCachedUserByUsername(username);
                 UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
                 authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+            } catch (UsernameNotFoundException e) {
+                logger.debug("Token subject no longer exists: " + username);
+                unknownUser = true;
             }
         }
 
+        // A valid token whose user was deleted leaves the request unauthenticated; it is not counted as a login
+        Timer timer = authorizationHeader == null ? anonymousTimer
+                : unknownUser ? unknownUserTimer
+                : username != null ? authenticatedTimer : rejectedTimer;
+        timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,87 @@
+package com.erp.backend.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+
+// Tokens that already passed verification, keyed by the SHA-256 of the token text and kept until the
+// token's own expiry. A repeat request with the same token skips the decode and HMAC check entirely;
+// the bearer tokens themselves are never held in memory as keys.
+@Component
+public class JwtTokenCache {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    // tokenId is the jti claim, or the token hash for tokens issued before tokens carried one
+    public record VerifiedToken(String tokenId, String username, Date expiresAt) {
+    }
+
+    private final JwtTokenUtil jwtTokenUtil;
+    private final Cache<String, VerifiedToken> tokens;
+
+    public JwtTokenCache(JwtTokenUtil jwtTokenUtil, @Value("${jwt.cache.max-size:10000}") long maxSize) {
+        this.jwtTokenUtil = jwtTokenUtil;
+        this.tokens = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+                        return Math.max(0, token.expiresAt().getTime() - System.currentTimeMillis()) * 1_000_000;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, token, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    // Throws a JwtException for a token that does not verify; failures are never cached
+    public VerifiedToken verify(String token) {
+        String key = hash(token);
+        VerifiedToken cached = tokens.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        Claims claims = jwtTokenUtil.parseClaims(token);
+        String tokenId = claims.getId() != null ? claims.getId() : key;
+        VerifiedToken verified = new VerifiedToken(tokenId, claims.getSubject(), claims.getExpiration());
+        if (verified.expiresAt() != null) {
+            tokens.put(key, verified);
+        }
+        return verified;
+    }
+
+    public CacheStats getStats() {
+        return tokens.stats();
+    }
+
+    private static String hash(String token) {
+        byte[] digest = SHA_256.get().digest(token.getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    }
+}
@@ -0,0 +1,56 @@
+package com.erp.backend.security;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Records how long each hash and password check takes, since with BCrypt that is nearly all of a login
+public class TimedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final LongAdder hashCount = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+
+    public TimedPasswordEncoder(PasswordEncoder delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        long started = System.nanoTime();
+        try {
+            return delegate.encode(rawPassword);
+        } finally {
+            record(started);
+        }
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        long started = System.nanoTime();
+        try {
+            return delegate.matches(rawPassword, encodedPassword);
+        } finally {
+            record(started);
+        }
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    public long getHashCount() {
+        return hashCount.sum();
+    }
+
+    public long getTotalHashNanos() {
+        return hashNanos.sum();
+    }
+
+    private void record(long started) {
+        long elapsed = System.nanoTime() - started;
+        hashCount.increment();
+        hashNanos.add(elapsed);
+    }
+}
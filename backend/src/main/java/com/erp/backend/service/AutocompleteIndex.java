@@ -0,0 +1,480 @@
+package com.erp.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// Typeahead engine for short records such as customers and suppliers. Field values are split into
+// words kept once in a sorted term dictionary; every term has a postings list of record slots and
+// every record keeps only its (term, field) pairs, so memory grows with distinct words rather than
+// with text. A query word matches the terms it is a prefix of and, when that cannot fill the page,
+// the terms starting with any one-edit variant of it (deletion, insertion, substitution or
+// transposition). Each query word has to match; records are scored by field weight and match kind.
+// Every record matching each word exactly or by prefix is found and counted; only the fuzzy
+// expansion of a word is capped.
+public class AutocompleteIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(AutocompleteIndex.class);
+
+    private static final int MAX_TERM_LENGTH = 32;
+    private static final int MAX_WORDS_PER_FIELD = 8;
+    // Terms one query word may add through its one-edit variants
+    private static final int MAX_FUZZY_TERMS_PER_WORD = 2_000;
+
+    private static final int FUZZY = 1;
+    private static final int PREFIX = 2;
+    private static final int EXACT = 3;
+    private static final char[] ALPHABET = "abcdefghijklmnopqrstuvwxyz0123456789".toCharArray();
+
+    private final String name;
+    private final int[] fieldWeights;
+    private final Supplier<Stream<Object[]>> source;
+    private final TransactionTemplate readOnly;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ExecutorService rebuildExecutor;
+
+    // Guarded by lock; null until the first build finishes
+    private Index index;
+    private List<Change> changesDuringRebuild;
+
+    // source yields rows of {id, field values...} in the order of fieldWeights
+    public AutocompleteIndex(String name, int[] fieldWeights, Supplier<Stream<Object[]>> source,
+                             PlatformTransactionManager transactionManager) {
+        this.name = name;
+        this.fieldWeights = fieldWeights.clone();
+        this.source = source;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name + "-autocomplete-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public record Matches(List<Long> ids, int total) {
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return index != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Best matches first; total counts every matching record
+    public Matches search(String query, int offset, int limit) {
+        List<String> words = words(query);
+        lock.readLock().lock();
+        try {
+            if (index == null || words.isEmpty() || limit <= 0) {
+                return new Matches(List.of(), 0);
+            }
+            return index.search(words, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Distinct words held by live records
+    int termCount() {
+        lock.readLock().lock();
+        try {
+            return index == null ? 0 : index.termIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Call after the record was created or changed and the change has committed
+    public void put(Long id, String... fields) {
+        apply(new Change(id, fields));
+    }
+
+    // Call after the record was deleted and the change has committed
+    public void remove(Long id) {
+        apply(new Change(id, null));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuildAsync();
+    }
+
+    public void rebuildAsync() {
+        rebuildExecutor.execute(this::rebuild);
+    }
+
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            if (changesDuringRebuild != null) {
+                return;
+            }
+            changesDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long started = System.currentTimeMillis();
+        Index fresh = new Index();
+        try {
+            readOnly.executeWithoutResult(status -> {
+                try (Stream<Object[]> rows = source.get()) {
+                    rows.forEach(row -> {
+                        String[] fields = new String[fieldWeights.length];
+                        for (int i = 0; i < fields.length; i++) {
+                            fields[i] = (String) row[i + 1];
+                        }
+                        fresh.apply(new Change((Long) row[0], fields));
+                    });
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("Rebuilding the {} autocomplete index failed; searches keep using the previous index", name, e);
+            lock.writeLock().lock();
+            try {
+                changesDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild.forEach(fresh::apply);
+            changesDuringRebuild = null;
+            index = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Autocomplete index for {} built: {} records, {} terms in {} ms",
+                name, fresh.slotById.size(), fresh.termIds.size(), System.currentTimeMillis() - started);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    private void apply(Change change) {
+        boolean compact;
+        lock.writeLock().lock();
+        try {
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(change);
+            }
+            if (index == null) {
+                return;
+            }
+            index.apply(change);
+            compact = index.needsCompaction() && changesDuringRebuild == null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (compact) {
+            rebuildAsync();
+        }
+    }
+
+    // Lower-cased alphanumeric words, each cut to MAX_TERM_LENGTH
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? Character.toLowerCase(text.charAt(i)) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (word.length() < MAX_TERM_LENGTH) {
+                    word.append(c);
+                }
+            } else if (word.length() > 0) {
+                words.add(word.toString());
+                word.setLength(0);
+            }
+        }
+        return words;
+    }
+
+    private static Set<String> oneEditVariants(String word) {
+        Set<String> variants = new LinkedHashSet<>();
+        for (int i = 0; i < word.length(); i++) {
+            variants.add(word.substring(0, i) + word.substring(i + 1));
+            if (i + 1 < word.length()) {
+                variants.add(word.substring(0, i) + word.charAt(i + 1) + word.charAt(i) + word.substring(i + 2));
+            }
+        }
+        for (int i = 0; i <= word.length(); i++) {
+            for (char c : ALPHABET) {
+                variants.add(word.substring(0, i) + c + word.substring(i));
+                if (i < word.length()) {
+                    variants.add(word.substring(0, i) + c + word.substring(i + 1));
+                }
+            }
+        }
+        variants.remove(word);
+        variants.remove("");
+        return variants;
+    }
+
+    private record Change(Long id, String[] fields) {
+    }
+
+    private final class Index {
+        // Only terms some live record holds; the ids of dropped terms are reused
+        private final TreeMap<String, Integer> termIds = new TreeMap<>();
+        private Postings[] postings = new Postings[1024];
+        private String[] terms = new String[1024];
+        private int[] liveRecords = new int[1024];
+        private final Deque<Integer> freeTermIds = new ArrayDeque<>();
+        private int nextTermId;
+        private final Map<Long, Integer> slotById = new HashMap<>();
+        private long[] ids = new long[1024];
+        // Per slot: term id * field count + field, for every word of every field
+        private int[][] recordTerms = new int[1024][];
+        private final BitSet deleted = new BitSet();
+        private int slots;
+
+        private void apply(Change change) {
+            // A changed record is tombstoned and appended again; postings are never edited in place
+            Integer previous = slotById.remove(change.id());
+            if (previous != null) {
+                deleted.set(previous);
+                release(previous);
+            }
+            if (change.fields() == null) {
+                return;
+            }
+
+            int slot = slots++;
+            if (slot == ids.length) {
+                ids = Arrays.copyOf(ids, slot * 2);
+                recordTerms = Arrays.copyOf(recordTerms, slot * 2);
+            }
+            ids[slot] = change.id();
+            slotById.put(change.id(), slot);
+
+            int fieldCount = fieldWeights.length;
+            List<Integer> packed = new ArrayList<>();
+            Set<Integer> held = new HashSet<>();
+            for (int field = 0; field < fieldCount; field++) {
+                List<String> words = words(change.fields()[field]);
+                if (words.size() > MAX_WORDS_PER_FIELD) {
+                    words = words.subList(0, MAX_WORDS_PER_FIELD);
+                }
+                Set<String> terms = new LinkedHashSet<>(words);
+                if (words.size() > 1) {
+                    // "acmecorp" or "gb123456789" typed without the separators still matches
+                    String joined = String.join("", words);
+                    terms.add(joined.length() > MAX_TERM_LENGTH ? joined.substring(0, MAX_TERM_LENGTH) : joined);
+                }
+                for (String term : terms) {
+                    int termId = termId(term);
+                    if (held.add(termId)) {
+                        postings[termId].add(slot);
+                        liveRecords[termId]++;
+                    }
+                    packed.add(termId * fieldCount + field);
+                }
+            }
+            recordTerms[slot] = packed.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        private int termId(String term) {
+            Integer termId = termIds.get(term);
+            if (termId != null) {
+                return termId;
+            }
+            int created = freeTermIds.isEmpty() ? nextTermId++ : freeTermIds.pop();
+            if (created == postings.length) {
+                postings = Arrays.copyOf(postings, created * 2);
+                terms = Arrays.copyOf(terms, created * 2);
+                liveRecords = Arrays.copyOf(liveRecords, created * 2);
+            }
+            termIds.put(term, created);
+            terms[created] = term;
+            postings[created] = new Postings();
+            return created;
+        }
+
+        // Drops the terms only this tombstoned slot held; their postings hold nothing live
+        private void release(int slot) {
+            int fieldCount = fieldWeights.length;
+            int[] termsOfSlot = Arrays.stream(recordTerms[slot]).map(packed -> packed / fieldCount).distinct().toArray();
+            recordTerms[slot] = null;
+            for (int termId : termsOfSlot) {
+                if (--liveRecords[termId] == 0) {
+                    termIds.remove(terms[termId]);
+                    terms[termId] = null;
+                    postings[termId] = null;
+                    freeTermIds.push(termId);
+                }
+            }
+        }
+
+        private boolean needsCompaction() {
+            return slots > 1024 && deleted.cardinality() * 4L > slots;
+        }
+
+        private Matches search(List<String> words, int offset, int limit) {
+            int wanted = offset + limit;
+            List<Map<Integer, Integer>> matchedTerms = new ArrayList<>(words.size());
+            for (String word : words) {
+                Map<Integer, Integer> terms = matchTerms(word, wanted);
+                if (terms.isEmpty()) {
+                    return new Matches(List.of(), 0);
+                }
+                matchedTerms.add(terms);
+            }
+
+            // Rarest word first: its postings are the candidates, and every other word is checked on
+            // each candidate in order of rarity, so most misses are found by the first check. No
+            // candidate is skipped, so the total is exact
+            matchedTerms.sort(Comparator.comparingLong(this::postingsSize));
+            List<long[]> kindsByTerm = new ArrayList<>(matchedTerms.size());
+            for (Map<Integer, Integer> terms : matchedTerms) {
+                kindsByTerm.add(sortedKinds(terms));
+            }
+
+            TopK top = new TopK(wanted);
+            BitSet seen = new BitSet(slots);
+            int total = 0;
+            for (int termId : matchedTerms.get(0).keySet()) {
+                Postings list = postings[termId];
+                for (int i = 0; i < list.size; i++) {
+                    int slot = list.docs[i];
+                    if (deleted.get(slot) || seen.get(slot)) {
+                        continue;
+                    }
+                    seen.set(slot);
+                    int score = score(slot, kindsByTerm);
+                    if (score > 0) {
+                        total++;
+                        top.offer(score, slot);
+                    }
+                }
+            }
+
+            List<Long> matches = new ArrayList<>(limit);
+            for (int slot : top.slots(offset)) {
+                matches.add(ids[slot]);
+            }
+            return new Matches(matches, total);
+        }
+
+        // Matching term ids in the order they should be tried: the exact term, prefix matches, then fuzzy ones
+        private Map<Integer, Integer> matchTerms(String word, int wanted) {
+            Map<Integer, Integer> matched = new LinkedHashMap<>();
+            Integer exact = termIds.get(word);
+            if (exact != null) {
+                matched.put(exact, EXACT);
+            }
+            addPrefixRange(word, PREFIX, matched, Integer.MAX_VALUE);
+
+            if (word.length() < 3 || postingsSize(matched) >= wanted) {
+                return matched;
+            }
+            int maxTerms = matched.size() + MAX_FUZZY_TERMS_PER_WORD;
+            for (String variant : oneEditVariants(word)) {
+                if (matched.size() >= maxTerms) {
+                    break;
+                }
+                addPrefixRange(variant, FUZZY, matched, maxTerms);
+            }
+            return matched;
+        }
+
+        private void addPrefixRange(String prefix, int kind, Map<Integer, Integer> matched, int maxTerms) {
+            for (Map.Entry<String, Integer> term : termIds.tailMap(prefix, true).entrySet()) {
+                if (!term.getKey().startsWith(prefix) || matched.size() >= maxTerms) {
+                    return;
+                }
+                matched.putIfAbsent(term.getValue(), kind);
+            }
+        }
+
+        // An upper bound on the records reached: postings may still hold tombstoned slots
+        private long postingsSize(Map<Integer, Integer> terms) {
+            long records = 0;
+            for (int termId : terms.keySet()) {
+                records += postings[termId].size;
+            }
+            return records;
+        }
+
+        // Term id << 2 | kind, sorted, so scoring can binary search without boxing
+        private long[] sortedKinds(Map<Integer, Integer> terms) {
+            long[] packed = new long[terms.size()];
+            int i = 0;
+            for (Map.Entry<Integer, Integer> term : terms.entrySet()) {
+                packed[i++] = ((long) term.getKey() << 2) | term.getValue();
+            }
+            Arrays.sort(packed);
+            return packed;
+        }
+
+        private int kindOf(long[] sortedKinds, int termId) {
+            int low = 0;
+            int high = sortedKinds.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                long midTerm = sortedKinds[mid] >>> 2;
+                if (midTerm < termId) {
+                    low = mid + 1;
+                } else if (midTerm > termId) {
+                    high = mid - 1;
+                } else {
+                    return (int) (sortedKinds[mid] & 3);
+                }
+            }
+            return 0;
+        }
+
+        // Sum over query words of the word's best match in the record; 0 when any word is missing
+        private int score(int slot, List<long[]> kindsByTerm) {
+            int fieldCount = fieldWeights.length;
+            int score = 0;
+            for (long[] kinds : kindsByTerm) {
+                int best = 0;
+                for (int packed : recordTerms[slot]) {
+                    int kind = kindOf(kinds, packed / fieldCount);
+                    best = Math.max(best, kind * fieldWeights[packed % fieldCount]);
+                }
+                if (best == 0) {
+                    return 0;
+                }
+                score += best;
+            }
+            return score;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.erp.backend.service;
+
+import com.erp.backend.repository.DocumentSequenceRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Hands out per-day sequence numbers from blocks reserved in the document_sequences table.
+// Each node reserves whole blocks with an atomic UPDATE, so numbers never collide across nodes
+// and the hot path is a single AtomicLong increment. Numbers left in a block when a node stops are skipped.
+//
+// A block is reserved on the caller's own connection, inside the caller's transaction, so a refill
+// never needs a second pooled connection. Until that transaction commits the block belongs to it
+// alone: a rollback also undoes the reservation, and the same numbers will be reserved again. The
+// rest of the block is shared with other callers only after the commit. Callers refilling at the same
+// time wait on the sequence row lock, on connections they already hold.
+@Component
+public class BlockDocumentNumberAllocator implements DocumentNumberAllocator {
+
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    // Sequence values start at 1, so 0 never names a number
+    private static final long NONE = 0;
+
+    private final DocumentSequenceRepository sequenceRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate required;
+    private final long blockSize;
+
+    private final Map<String, Sequence> sequences = new ConcurrentHashMap<>();
+
+    public BlockDocumentNumberAllocator(DocumentSequenceRepository sequenceRepository,
+                                        JdbcTemplate jdbcTemplate,
+                                        PlatformTransactionManager transactionManager,
+                                        @Value("${erp.document-number.block-size:100}") long blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Document number block size must be at least 1");
+        }
+        this.sequenceRepository = sequenceRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.blockSize = blockSize;
+
+        // Joins the caller's transaction; a caller without one gets a short transaction of its own
+        this.required = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public String nextNumber(String prefix) {
+        String key = prefix + "-" + LocalDate.now().format(DAY_FORMAT);
+        return key + "-" + String.format("%04d", next(key));
+    }
+
+    private long next(String key) {
+        Sequence sequence = sequence(key);
+        long value = sequence.take();
+        if (value != NONE) {
+            return value;
+        }
+
+        return required.execute(status -> takeInTransaction(key, sequence));
+    }
+
+    private Sequence sequence(String key) {
+        Sequence sequence = sequences.get(key);
+        if (sequence == null) {
+            sequence = sequences.computeIfAbsent(key, k -> new Sequence());
+            pruneOtherDays(key);
+        }
+        return sequence;
+    }
+
+    private long takeInTransaction(String key, Sequence sequence) {
+        Map<String, Block> pending = pendingBlocks();
+        Block block = pending.get(key);
+        if (block != null) {
+            long value = block.take();
+            if (value != NONE) {
+                return value;
+            }
+        }
+
+        // Published while this caller was getting its transaction
+        long value = sequence.take();
+        if (value != NONE) {
+            return value;
+        }
+
+        long blockEnd = reserveBlock(key);
+        block = new Block(blockEnd - blockSize, blockEnd - 1);
+        pending.put(key, block);
+        return block.take();
+    }
+
+    // Blocks this transaction reserved, handed to their sequences once it commits and dropped if it rolls back
+    @SuppressWarnings("unchecked")
+    private Map<String, Block> pendingBlocks() {
+        Map<String, Block> pending = (Map<String, Block>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Map<String, Block> reserved = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(this, reserved);
+            TransactionCallbacks.afterCompletion(committed -> {
+                TransactionSynchronizationManager.unbindResourceIfPossible(this);
+                if (committed) {
+                    reserved.forEach(this::publish);
+                }
+            });
+            pending = reserved;
+        }
+        return pending;
+    }
+
+    private void publish(String key, Block block) {
+        // A sequence pruned in the meantime belongs to a past day
+        Sequence sequence = sequences.get(key);
+        if (sequence != null) {
+            sequence.publish(block);
+        }
+    }
+
+    private long reserveBlock(String key) {
+        Long blockEnd = advance(key);
+        if (blockEnd == null) {
+            // First number of the day: create the row, tolerating another node doing the same. A plain
+            // JDBC insert, because a failed JPA statement would mark the caller's transaction rollback-only
+            try {
+                jdbcTemplate.update("INSERT INTO document_sequences (name, next_value) VALUES (?, 1)", key);
+            } catch (DataIntegrityViolationException e) {
+                // Row was created concurrently
+            }
+            blockEnd = advance(key);
+        }
+        if (blockEnd == null) {
+            throw new IllegalStateException("Could not reserve document numbers for " + key);
+        }
+        return blockEnd;
+    }
+
+    private Long advance(String key) {
+        if (sequenceRepository.advance(key, blockSize) == 0) {
+            return null;
+        }
+        return sequenceRepository.findNextValue(key);
+    }
+
+    private void pruneOtherDays(String key) {
+        String prefix = key.substring(0, key.lastIndexOf('-') + 1);
+        sequences.keySet().removeIf(existing -> existing.startsWith(prefix) && !existing.equals(key));
+    }
+
+    // The committed blocks of one prefix and day. The lock only guards moving to the next block; it is
+    // never held across a database call
+    private static final class Sequence {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Deque<Block> published = new ArrayDeque<>();
+        private volatile Block current = new Block(1, 0);
+
+        private long take() {
+            long value = current.take();
+            if (value != NONE) {
+                return value;
+            }
+
+            lock.lock();
+            try {
+                while (true) {
+                    // Another thread may have moved on while we waited
+                    value = current.take();
+                    if (value != NONE) {
+                        return value;
+                    }
+                    Block next = published.poll();
+                    if (next == null) {
+                        return NONE;
+                    }
+                    current = next;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void publish(Block block) {
+            lock.lock();
+            try {
+                published.add(block);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static final class Block {
+        private final AtomicLong next;
+        private final long last;
+
+        private Block(long first, long last) {
+            this.next = new AtomicLong(first);
+            this.last = last;
+        }
+
+        private long take() {
+            long value = next.getAndIncrement();
+            return value <= last ? value : NONE;
+        }
+    }
+}
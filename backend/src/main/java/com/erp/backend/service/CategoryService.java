@@ -16,10 +16,13 @@ public class CategoryService {
 
     private final CategoryRepository categoryRepository;
     private final UserService userService;
+    private final CategoryTreeIndex categoryTreeIndex;
 
-    public CategoryService(CategoryRepository categoryRepository, UserService userService) {
+    public CategoryService(CategoryRepository categoryRepository, UserService userService,
+                           CategoryTreeIndex categoryTreeIndex) {
         this.categoryRepository = categoryRepository;
         this.userService = userService;
+        this.categoryTreeIndex = categoryTreeIndex;
     }
 
     public List<Category> getAllCategories() {
@@ -72,10 +75,13 @@ public class CategoryService {
         // Set created by user if authenticated
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication != null && authentication.isAuthenticated()) {
-            category.setCreatedBy(userService.loadUserByUsername(authentication.getName()));
+            category.setCreatedBy(userService.findByUsername(authentication.getName()));
         }
 
-        return categoryRepository.save(category);
+        Category savedCategory = categoryRepository.save(category);
+        Long parentId = categoryDTO.getParentId();
+        TransactionCallbacks.afterCommit(() -> categoryTreeIndex.put(savedCategory.getId(), parentId));
+        return savedCategory;
     }
 
     @Transactional
@@ -112,12 +118,8 @@ public class CategoryService {
                         .orElseThrow(() -> new ResourceNotFoundException("Parent category not found with id: " + categoryDTO.getParentId()));
                 
                 // Check if new parent is not a subcategory of this category (to avoid circular references)
-                Category currentParent = parentCategory;
-                while (currentParent != null) {
-                    if (currentParent.getId().equals(id)) {
-                        throw new IllegalArgumentException("Cannot set a subcategory as parent (circular reference)");
-                    }
-                    currentParent = currentParent.getParent();
+                if (categoryTreeIndex.isSelfOrAncestor(id, parentCategory.getId())) {
+                    throw new IllegalArgumentException("Cannot set a subcategory as parent (circular reference)");
                 }
                 
                 category.setParent(parentCategory);
@@ -127,7 +129,10 @@ public class CategoryService {
             category.setParent(null);
         }
 
-        return categoryRepository.save(category);
+        Category savedCategory = categoryRepository.save(category);
+        Long parentId = savedCategory.getParent() != null ? savedCategory.getParent().getId() : null;
+        TransactionCallbacks.afterCommit(() -> categoryTreeIndex.put(id, parentId));
+        return savedCategory;
     }
 
     @Transactional
@@ -145,5 +150,6 @@ public class CategoryService {
         }
 
         categoryRepository.deleteById(id);
+        TransactionCallbacks.afterCommit(() -> categoryTreeIndex.remove(id));
     }
 }
\ No newline at end of file
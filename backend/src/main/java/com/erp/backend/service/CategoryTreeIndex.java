@@ -0,0 +1,287 @@
+package com.erp.backend.service;
+
+import com.erp.backend.repository.CategoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+
+// Whole category hierarchy in memory as parent and Euler-tour arrays. A node's subtree is the
+// contiguous range order[tin..tout], so "is X under Y" is two comparisons and a subtree listing
+// is an array copy. Readers use an immutable snapshot; each committed change builds a new one
+// from the in-memory parent array without going back to the database.
+@Component
+public class CategoryTreeIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(CategoryTreeIndex.class);
+
+    private final CategoryRepository categoryRepository;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile Tree tree;
+
+    public CategoryTreeIndex(CategoryRepository categoryRepository) {
+        this.categoryRepository = categoryRepository;
+    }
+
+    public boolean contains(Long id) {
+        return current().indexOf(id) >= 0;
+    }
+
+    // The category and everything below it, at any depth
+    public List<Long> getDescendantIds(Long id) {
+        Tree current = treeContaining(id);
+        int node = current.indexOf(id);
+        if (node < 0) {
+            return List.of();
+        }
+        List<Long> descendants = new ArrayList<>(current.tout[node] - current.tin[node] + 1);
+        for (int i = current.tin[node]; i <= current.tout[node]; i++) {
+            descendants.add(current.ids[current.order[i]]);
+        }
+        return descendants;
+    }
+
+    // From the direct parent up to the root
+    public List<Long> getAncestorIds(Long id) {
+        Tree current = treeContaining(id);
+        int node = current.indexOf(id);
+        if (node < 0) {
+            return List.of();
+        }
+        List<Long> ancestors = new ArrayList<>(current.depth[node]);
+        for (int parent = current.parent[node]; parent >= 0; parent = current.parent[parent]) {
+            ancestors.add(current.ids[parent]);
+        }
+        return ancestors;
+    }
+
+    // True if ancestorId is id itself or lies on its path to the root
+    public boolean isSelfOrAncestor(Long ancestorId, Long id) {
+        Tree current = treeContaining(ancestorId, id);
+        int ancestor = current.indexOf(ancestorId);
+        int node = current.indexOf(id);
+        return ancestor >= 0 && node >= 0
+                && current.tin[ancestor] <= current.tin[node] && current.tout[node] <= current.tout[ancestor];
+    }
+
+    // Call after the category was created or re-parented and the change has committed
+    public void put(Long id, Long parentId) {
+        update(current -> current.withParent(id, parentId != null ? parentId : 0));
+    }
+
+    // Call after the category was deleted and the change has committed
+    public void remove(Long id) {
+        update(current -> current.without(id));
+    }
+
+    public void reload() {
+        writeLock.lock();
+        try {
+            tree = load();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Callers pass ids they know exist; one missing from the snapshot was created elsewhere, so reload once
+    private Tree treeContaining(Long... ids) {
+        Tree current = current();
+        for (Long id : ids) {
+            if (current.indexOf(id) < 0) {
+                reload();
+                return tree;
+            }
+        }
+        return current;
+    }
+
+    private void update(UnaryOperator<Tree> change) {
+        writeLock.lock();
+        try {
+            if (tree != null) {
+                tree = change.apply(tree);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private Tree current() {
+        Tree current = tree;
+        if (current == null) {
+            writeLock.lock();
+            try {
+                if (tree == null) {
+                    tree = load();
+                }
+                current = tree;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+        return current;
+    }
+
+    private Tree load() {
+        List<Object[]> rows = categoryRepository.findAllParentLinks();
+        long[] ids = new long[rows.size()];
+        long[] parentIds = new long[rows.size()];
+        for (int i = 0; i < ids.length; i++) {
+            Object[] row = rows.get(i);
+            ids[i] = (Long) row[0];
+            parentIds[i] = row[1] != null ? (Long) row[1] : 0;
+        }
+        Tree loaded = Tree.build(ids, parentIds);
+        log.info("Category tree index loaded {} categories", ids.length);
+        return loaded;
+    }
+
+    private static final class Tree {
+        // ids are sorted so a category id maps to its node with a binary search
+        private final long[] ids;
+        private final long[] parentIds;
+        private final int[] parent;
+        private final int[] depth;
+        private final int[] tin;
+        private final int[] tout;
+        private final int[] order;
+
+        private Tree(long[] ids, long[] parentIds, int[] parent, int[] depth, int[] tin, int[] tout, int[] order) {
+            this.ids = ids;
+            this.parentIds = parentIds;
+            this.parent = parent;
+            this.depth = depth;
+            this.tin = tin;
+            this.tout = tout;
+            this.order = order;
+        }
+
+        private int indexOf(Long id) {
+            if (id == null) {
+                return -1;
+            }
+            int node = Arrays.binarySearch(ids, id);
+            return node >= 0 ? node : -1;
+        }
+
+        private Tree withParent(long id, long parentId) {
+            int node = Arrays.binarySearch(ids, id);
+            if (node >= 0) {
+                long[] newParentIds = parentIds.clone();
+                newParentIds[node] = parentId;
+                return build(ids, newParentIds);
+            }
+
+            int insertAt = -node - 1;
+            long[] newIds = new long[ids.length + 1];
+            long[] newParentIds = new long[ids.length + 1];
+            System.arraycopy(ids, 0, newIds, 0, insertAt);
+            System.arraycopy(parentIds, 0, newParentIds, 0, insertAt);
+            newIds[insertAt] = id;
+            newParentIds[insertAt] = parentId;
+            System.arraycopy(ids, insertAt, newIds, insertAt + 1, ids.length - insertAt);
+            System.arraycopy(parentIds, insertAt, newParentIds, insertAt + 1, ids.length - insertAt);
+            return build(newIds, newParentIds);
+        }
+
+        private Tree without(long id) {
+            int node = Arrays.binarySearch(ids, id);
+            if (node < 0) {
+                return this;
+            }
+            long[] newIds = new long[ids.length - 1];
+            long[] newParentIds = new long[ids.length - 1];
+            System.arraycopy(ids, 0, newIds, 0, node);
+            System.arraycopy(parentIds, 0, newParentIds, 0, node);
+            System.arraycopy(ids, node + 1, newIds, node, ids.length - node - 1);
+            System.arraycopy(parentIds, node + 1, newParentIds, node, ids.length - node - 1);
+            return build(newIds, newParentIds);
+        }
+
+        // ids must be sorted; a parent id of 0 or of a missing category makes the node a root
+        private static Tree build(long[] ids, long[] parentIds) {
+            int n = ids.length;
+            int[] parent = new int[n];
+            for (int i = 0; i < n; i++) {
+                parent[i] = parentIds[i] != 0 ? Math.max(-1, Arrays.binarySearch(ids, parentIds[i])) : -1;
+            }
+
+            // Children in compressed rows: children of v are children[childStart[v] .. childStart[v + 1])
+            int[] childStart = new int[n + 1];
+            for (int i = 0; i < n; i++) {
+                if (parent[i] >= 0) {
+                    childStart[parent[i] + 1]++;
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                childStart[i + 1] += childStart[i];
+            }
+            int[] children = new int[n];
+            int[] fill = Arrays.copyOf(childStart, n);
+            for (int i = 0; i < n; i++) {
+                if (parent[i] >= 0) {
+                    children[fill[parent[i]]++] = i;
+                }
+            }
+
+            int[] depth = new int[n];
+            int[] tin = new int[n];
+            int[] tout = new int[n];
+            int[] order = new int[n];
+            boolean[] visited = new boolean[n];
+            int[] stack = new int[n];
+            int[] nextChild = new int[n];
+            int timer = 0;
+
+            // Roots first; anything left unvisited sits on a cycle in the data and is cut loose as a root
+            for (int pass = 0; pass < 2; pass++) {
+                for (int start = 0; start < n; start++) {
+                    if (visited[start] || (pass == 0 && parent[start] >= 0)) {
+                        continue;
+                    }
+                    int root = start;
+                    if (pass == 1) {
+                        // n steps up from any unvisited node are guaranteed to land on the cycle itself
+                        for (int step = 0; step < n; step++) {
+                            root = parent[root];
+                        }
+                        log.warn("Category {} is part of a parent cycle; treating it as a root", ids[root]);
+                        parent[root] = -1;
+                    }
+
+                    int top = 0;
+                    stack[top++] = root;
+                    visited[root] = true;
+                    depth[root] = 0;
+                    tin[root] = timer;
+                    order[timer++] = root;
+                    nextChild[root] = childStart[root];
+                    while (top > 0) {
+                        int node = stack[top - 1];
+                        if (nextChild[node] < childStart[node + 1]) {
+                            int child = children[nextChild[node]++];
+                            if (visited[child]) {
+                                continue;
+                            }
+                            visited[child] = true;
+                            depth[child] = depth[node] + 1;
+                            tin[child] = timer;
+                            order[timer++] = child;
+                            nextChild[child] = childStart[child];
+                            stack[top++] = child;
+                        } else {
+                            tout[node] = timer - 1;
+                            top--;
+                        }
+                    }
+                }
+            }
+            return new Tree(ids, parentIds, parent, depth, tin, tout, order);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.erp.backend.service;
+
+import com.erp.backend.dto.OrderDTO;
+import com.erp.backend.dto.OrderItemDTO;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+// One order line per row (RFC 4180 quoting). Consecutive rows with the same orderRef make up one
+// order; order-level columns are taken from its first row. Columns are matched by header name.
+class CsvOrderImportReader implements OrderImportReader {
+
+    private static final int MAX_LINES_PER_ORDER = 10_000;
+    private static final List<String> REQUIRED_COLUMNS = List.of("orderref", "customerid", "productid", "quantity");
+
+    private final CsvRecordReader records;
+
+    private String[] pendingRow;
+    private long pendingLine;
+
+    CsvOrderImportReader(Reader in) throws IOException {
+        this.records = new CsvRecordReader(in, REQUIRED_COLUMNS);
+        advance();
+    }
+
+    @Override
+    public ImportedOrder next() throws IOException {
+        if (pendingRow == null) {
+            return null;
+        }
+
+        long firstLine = pendingLine;
+        String reference = records.value(pendingRow, "orderref");
+        List<String[]> rows = new ArrayList<>();
+        int lines = 0;
+        do {
+            // Past the limit the rest of the order is skipped rather than buffered
+            if (++lines <= MAX_LINES_PER_ORDER) {
+                rows.add(pendingRow);
+            }
+            advance();
+        } while (pendingRow != null && Objects.equals(records.value(pendingRow, "orderref"), reference));
+
+        if (reference == null) {
+            return ImportedOrder.rejected(firstLine, null, "orderRef is required");
+        }
+        if (lines > MAX_LINES_PER_ORDER) {
+            return ImportedOrder.rejected(firstLine, reference, "Order has more than " + MAX_LINES_PER_ORDER + " lines");
+        }
+        try {
+            return ImportedOrder.parsed(firstLine, reference, toOrder(rows, firstLine));
+        } catch (IllegalArgumentException e) {
+            return ImportedOrder.rejected(firstLine, reference, e.getMessage());
+        }
+    }
+
+    private void advance() throws IOException {
+        pendingRow = records.next();
+        pendingLine = records.line();
+    }
+
+    private OrderDTO toOrder(List<String[]> rows, long firstLine) {
+        String[] first = rows.get(0);
+        OrderDTO order = new OrderDTO();
+        order.setOrderNumber(records.value(first, "orderref"));
+        order.setCustomerId(records.parseLong(first, "customerid", firstLine));
+        order.setOrderDate(records.parseDateTime(first, "orderdate", firstLine));
+        order.setDeliveryDate(records.parseDateTime(first, "deliverydate", firstLine));
+        order.setShippingAddress(records.value(first, "shippingaddress"));
+        order.setShippingCity(records.value(first, "shippingcity"));
+        order.setShippingState(records.value(first, "shippingstate"));
+        order.setShippingCountry(records.value(first, "shippingcountry"));
+        order.setShippingPostalCode(records.value(first, "shippingpostalcode"));
+        order.setShippingMethod(records.value(first, "shippingmethod"));
+        order.setPaymentMethod(records.value(first, "paymentmethod"));
+        order.setTaxAmount(records.parseDecimal(first, "taxamount", firstLine));
+        order.setShippingCost(records.parseDecimal(first, "shippingcost", firstLine));
+        order.setDiscountAmount(records.parseDecimal(first, "discountamount", firstLine));
+        order.setNotes(records.value(first, "notes"));
+
+        List<OrderItemDTO> items = new ArrayList<>(rows.size());
+        long line = firstLine;
+        for (String[] row : rows) {
+            OrderItemDTO item = new OrderItemDTO();
+            item.setProductId(records.parseLong(row, "productid", line));
+            item.setQuantity(records.parseInteger(row, "quantity", line));
+            item.setUnitPrice(records.parseDecimal(row, "unitprice", line));
+            item.setDiscountPercent(records.parseDecimal(row, "discountpercent", line));
+            item.setTaxPercent(records.parseDecimal(row, "taxpercent", line));
+            items.add(item);
+            line++;
+        }
+        order.setOrderItems(items);
+        return order;
+    }
+}
@@ -0,0 +1,53 @@
+package com.erp.backend.service;
+
+import com.erp.backend.dto.PaymentDTO;
+import com.erp.backend.model.Payment;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+import java.util.Locale;
+
+// One payment per row (RFC 4180 quoting), columns matched by header name
+class CsvPaymentImportReader implements PaymentImportReader {
+
+    private static final List<String> REQUIRED_COLUMNS = List.of("invoiceid", "amount", "paymentmethod");
+
+    private final CsvRecordReader records;
+
+    CsvPaymentImportReader(Reader in) throws IOException {
+        this.records = new CsvRecordReader(in, REQUIRED_COLUMNS);
+    }
+
+    @Override
+    public ImportedPayment next() throws IOException {
+        String[] row = records.next();
+        if (row == null) {
+            return null;
+        }
+
+        long line = records.line();
+        String reference = records.value(row, "referencenumber");
+        try {
+            PaymentDTO payment = new PaymentDTO();
+            payment.setInvoiceId(records.parseLong(row, "invoiceid", line));
+            payment.setAmount(records.parseDecimal(row, "amount", line));
+            payment.setPaymentMethod(parseMethod(row, line));
+            payment.setPaymentDate(records.parseDateTime(row, "paymentdate", line));
+            payment.setReferenceNumber(reference);
+            payment.setNotes(records.value(row, "notes"));
+            return ImportedPayment.parsed(line, reference, payment);
+        } catch (IllegalArgumentException e) {
+            return ImportedPayment.rejected(line, reference, e.getMessage());
+        }
+    }
+
+    private Payment.PaymentMethod parseMethod(String[] row, long line) {
+        String value = records.value(row, "paymentmethod");
+        try {
+            return value != null ? Payment.PaymentMethod.valueOf(value.toUpperCase(Locale.ROOT)) : null;
+        } catch (IllegalArgumentException e) {
+            throw records.invalid("paymentmethod", value, line);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.erp.backend.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// RFC 4180 records with a header row, shared by the CSV import readers. Columns are matched by
+// lower-cased header name; blank values read as null.
+class CsvRecordReader {
+
+    private static final int MAX_FIELD_LENGTH = 64 * 1024;
+
+    private final BufferedReader reader;
+    private final Map<String, Integer> columns = new HashMap<>();
+    private long lineNumber;
+    private long rowLine;
+
+    CsvRecordReader(Reader in, List<String> requiredColumns) throws IOException {
+        this.reader = new BufferedReader(in);
+
+        String[] header = next();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV input is empty");
+        }
+        for (int i = 0; i < header.length; i++) {
+            columns.put(header[i].trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String column : requiredColumns) {
+            if (!columns.containsKey(column)) {
+                throw new IllegalArgumentException("CSV header is missing column: " + column);
+            }
+        }
+    }
+
+    // Line on which the record last returned by next() starts
+    long line() {
+        return rowLine;
+    }
+
+    String value(String[] row, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= row.length) {
+            return null;
+        }
+        String value = row[index].trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    Long parseLong(String[] row, String column, long line) {
+        String value = value(row, column);
+        try {
+            return value != null ? Long.valueOf(value) : null;
+        } catch (NumberFormatException e) {
+            throw invalid(column, value, line);
+        }
+    }
+
+    Integer parseInteger(String[] row, String column, long line) {
+        String value = value(row, column);
+        try {
+            return value != null ? Integer.valueOf(value) : null;
+        } catch (NumberFormatException e) {
+            throw invalid(column, value, line);
+        }
+    }
+
+    BigDecimal parseDecimal(String[] row, String column, long line) {
+        String value = value(row, column);
+        try {
+            return value != null ? new BigDecimal(value) : null;
+        } catch (NumberFormatException e) {
+            throw invalid(column, value, line);
+        }
+    }
+
+    LocalDateTime parseDateTime(String[] row, String column, long line) {
+        String value = value(row, column);
+        try {
+            return value != null ? LocalDateTime.parse(value) : null;
+        } catch (DateTimeParseException e) {
+            throw invalid(column, value, line);
+        }
+    }
+
+    IllegalArgumentException invalid(String column, String value, long line) {
+        return new IllegalArgumentException("Invalid " + column + " '" + value + "' on line " + line);
+    }
+
+    // Reads one record, which may span several physical lines inside quotes; null at end of input
+    String[] next() throws IOException {
+        int c = reader.read();
+        while (c == '\r' || c == '\n') {
+            if (c == '\n') {
+                lineNumber++;
+            }
+            c = reader.read();
+        }
+        if (c == -1) {
+            return null;
+        }
+
+        rowLine = lineNumber + 1;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IllegalArgumentException("Unterminated quoted field starting on line " + rowLine);
+                }
+                if (c == '"') {
+                    int next = reader.read();
+                    if (next != '"') {
+                        quoted = false;
+                        c = next;
+                        continue;
+                    }
+                    field.append('"');
+                } else {
+                    if (c == '\n') {
+                        lineNumber++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                lineNumber++;
+                fields.add(field.toString());
+                return fields.toArray(new String[0]);
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+
+            if (field.length() > MAX_FIELD_LENGTH) {
+                throw new IllegalArgumentException("Field longer than " + MAX_FIELD_LENGTH + " characters on line " + rowLine);
+            }
+            c = reader.read();
+        }
+    }
+}
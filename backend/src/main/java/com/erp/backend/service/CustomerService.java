@@ -1,32 +1,66 @@
 package com.erp.backend.service;
 
+import com.erp.backend.dto.CursorPage;
 import com.erp.backend.dto.CustomerDTO;
 import com.erp.backend.exception.ResourceNotFoundException;
 import com.erp.backend.model.Customer;
 import com.erp.backend.repository.CustomerRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 @Service
 public class CustomerService {
 
     private final CustomerRepository customerRepository;
+    private final AutocompleteIndex searchIndex;
 
-    public CustomerService(CustomerRepository customerRepository) {
+    public CustomerService(CustomerRepository customerRepository,
+                           @Qualifier("customerAutocomplete") AutocompleteIndex searchIndex) {
         this.customerRepository = customerRepository;
+        this.searchIndex = searchIndex;
     }
 
     public Page<Customer> getAllCustomers(Pageable pageable) {
         return customerRepository.findAll(pageable);
     }
 
+    public CursorPage<Customer> getCustomersAfter(String after, Integer limit) {
+        KeysetCursor cursor = KeysetCursor.afterId(after);
+        int pageSize = KeysetCursor.limit(limit);
+        Slice<Customer> customers = customerRepository.findByIdGreaterThan(cursor.getId(), PageRequest.of(0, pageSize, Sort.by("id")));
+        return KeysetCursor.page(customers, pageSize, Customer::getId);
+    }
+
     public Page<Customer> getActiveCustomers(Pageable pageable) {
         return customerRepository.findByActive(true, pageable);
     }
 
+    // Typeahead over name, contact person, email and tax id; the LIKE scan only serves until the index is built
     public Page<Customer> searchCustomers(String name, Pageable pageable) {
-        return customerRepository.findByNameContainingIgnoreCase(name, pageable);
+        if (!searchIndex.isReady()) {
+            return customerRepository.findByNameContainingIgnoreCase(name, pageable);
+        }
+
+        AutocompleteIndex.Matches matches = searchIndex.search(name, (int) pageable.getOffset(), pageable.getPageSize());
+        Map<Long, Customer> customers = customerRepository.findAllById(matches.ids()).stream()
+                .collect(Collectors.toMap(Customer::getId, Function.identity()));
+        List<Customer> ranked = matches.ids().stream()
+                .map(customers::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new PageImpl<>(ranked, pageable, matches.total());
     }
 
     public Customer getCustomerById(Long id) {
@@ -47,7 +81,9 @@ public class CustomerService {
 
         Customer customer = new Customer();
         mapDtoToEntity(customerDTO, customer);
-        return customerRepository.save(customer);
+        Customer saved = customerRepository.save(customer);
+        indexAfterCommit(saved);
+        return saved;
     }
 
     public Customer updateCustomer(Long id, CustomerDTO customerDTO) {
@@ -67,7 +103,9 @@ public class CustomerService {
         }
 
         mapDtoToEntity(customerDTO, customer);
-        return customerRepository.save(customer);
+        Customer saved = customerRepository.save(customer);
+        indexAfterCommit(saved);
+        return saved;
     }
 
     public void deleteCustomer(Long id) {
@@ -75,6 +113,14 @@ public class CustomerService {
             throw new ResourceNotFoundException("Customer not found with id: " + id);
         }
         customerRepository.deleteById(id);
+        TransactionCallbacks.afterCommit(() -> searchIndex.remove(id));
+    }
+
+    // Field order as in SearchIndexConfig
+    private void indexAfterCommit(Customer customer) {
+        Long id = customer.getId();
+        String[] fields = {customer.getName(), customer.getContactPerson(), customer.getEmail(), customer.getTaxId()};
+        TransactionCallbacks.afterCommit(() -> searchIndex.put(id, fields));
     }
 
     private void mapDtoToEntity(CustomerDTO dto, Customer entity) {
@@ -0,0 +1,7 @@
+package com.erp.backend.service;
+
+public interface DocumentNumberAllocator {
+
+    // Returns a unique number of the form PREFIX-YYYYMMDD-NNNN, e.g. ORD-20240131-0042
+    String nextNumber(String prefix);
+}
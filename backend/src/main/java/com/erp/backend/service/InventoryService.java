@@ -0,0 +1,332 @@
+package com.erp.backend.service;
+
+import com.erp.backend.exception.ServiceBusyException;
+import com.erp.backend.model.Product;
+import com.erp.backend.model.StockMovement;
+import com.erp.backend.repository.ProductRepository;
+import com.erp.backend.repository.StockMovementRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Single entry point for changing products.stock_quantity. All writes are atomic conditional
+// SQL updates; standalone adjustments to the same product are coalesced into one write per window.
+// With the reservation ledger enabled, changes are checked in memory and journalled instead,
+// and the journal is applied to the products table in batches in the background.
+@Service
+public class InventoryService {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryService.class);
+
+    private final ProductRepository productRepository;
+    private final StockMovementRepository stockMovementRepository;
+    private final StockReservationLedger ledger;
+    private final TransactionTemplate requiresNew;
+    private final long coalesceWindowMs;
+    private final long adjustTimeoutMs;
+    private final int maxRetries;
+    private final int journalBatchSize;
+    private volatile boolean journalDrained;
+
+    private final Map<Long, List<PendingAdjustment>> pendingAdjustments = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flushExecutor;
+
+    private final LongAdder submittedAdjustments = new LongAdder();
+    private final LongAdder stockWrites = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+
+    public InventoryService(ProductRepository productRepository,
+                            StockMovementRepository stockMovementRepository,
+                            StockReservationLedger ledger,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${erp.inventory.coalesce-window-ms:5}") long coalesceWindowMs,
+                            @Value("${erp.inventory.flush-threads:2}") int flushThreads,
+                            @Value("${erp.inventory.adjust-timeout-ms:5000}") long adjustTimeoutMs,
+                            @Value("${erp.inventory.max-retries:3}") int maxRetries,
+                            @Value("${erp.inventory.ledger.flush-batch-size:1000}") int journalBatchSize) {
+        this.productRepository = productRepository;
+        this.stockMovementRepository = stockMovementRepository;
+        this.ledger = ledger;
+        this.coalesceWindowMs = coalesceWindowMs;
+        this.adjustTimeoutMs = adjustTimeoutMs;
+        this.maxRetries = maxRetries;
+        this.journalBatchSize = journalBatchSize;
+
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.flushExecutor = Executors.newScheduledThreadPool(Math.max(1, flushThreads), runnable -> {
+            Thread thread = new Thread(runnable, "stock-flush-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Applies deltas inside the caller's transaction in one batch. Returns the products whose
+    // negative delta was rejected because it would take stock below zero.
+    public List<Long> applyDeltas(Map<Long, Integer> deltas) {
+        Map<Long, Integer> nonZero = new HashMap<>();
+        deltas.forEach((productId, delta) -> {
+            if (delta != 0) {
+                nonZero.put(productId, delta);
+            }
+        });
+
+        if (ledger.isEnabled()) {
+            return reserveInLedger(nonZero);
+        }
+
+        List<Long> failed = productRepository.applyStockDeltas(nonZero);
+        stockWrites.add(nonZero.size() - failed.size());
+        conflicts.add(failed.size());
+        return failed;
+    }
+
+    // Stock a new order may draw on; ahead of the products table when the ledger is enabled
+    public long getAvailableStock(Product product) {
+        return ledger.isEnabled() ? ledger.getAvailable(product.getId()) : product.getStockQuantity();
+    }
+
+    public Integer getStockQuantity(Long productId) {
+        if (ledger.isEnabled()) {
+            return (int) ledger.getAvailable(productId);
+        }
+        return productRepository.findStockQuantityById(productId);
+    }
+
+    // Called after product stock was overwritten through the entity (create/update)
+    public void stockOverwritten(Long productId) {
+        if (ledger.isEnabled()) {
+            TransactionCallbacks.afterCommit(() -> ledger.refresh(productId));
+        }
+    }
+
+    // Moves journalled ledger movements into products.stock_quantity, one aggregated UPDATE per product
+    @Scheduled(fixedDelayString = "${erp.inventory.ledger.flush-interval-ms:200}")
+    public void flushJournal() {
+        // Without the ledger only a journal left over from an earlier ledger run needs draining
+        if (!ledger.isEnabled() && journalDrained) {
+            return;
+        }
+
+        int drained;
+        do {
+            drained = requiresNew.execute(status -> {
+                List<StockMovement> movements = stockMovementRepository.findOldestForUpdate(PageRequest.of(0, journalBatchSize));
+                if (movements.isEmpty()) {
+                    return 0;
+                }
+
+                Map<Long, Integer> deltas = new HashMap<>();
+                List<Long> ids = new ArrayList<>(movements.size());
+                for (StockMovement movement : movements) {
+                    deltas.merge(movement.getProductId(), movement.getDelta(), Integer::sum);
+                    ids.add(movement.getId());
+                }
+                deltas.values().removeIf(delta -> delta == 0);
+
+                productRepository.addStockDeltas(deltas);
+                stockMovementRepository.deleteByIdIn(ids);
+                stockWrites.add(deltas.size());
+                return movements.size();
+            });
+        } while (drained == journalBatchSize);
+        journalDrained = true;
+    }
+
+    // Standalone adjustment (e.g. a stock count or restock) committed in its own transaction.
+    // Concurrent adjustments to the same product within the coalesce window share a single write.
+    public void adjustStock(Long productId, int delta) {
+        submittedAdjustments.increment();
+        PendingAdjustment adjustment = new PendingAdjustment(delta);
+
+        if (ledger.isEnabled()) {
+            // The ledger serializes per product in memory, so there is nothing to coalesce
+            List<Long> failed = requiresNew.execute(status -> applyDeltas(Map.of(productId, delta)));
+            if (failed != null && !failed.isEmpty()) {
+                throw new IllegalArgumentException("Cannot reduce stock below zero. Current stock: " +
+                        ledger.getAvailable(productId) + ", Requested change: " + delta);
+            }
+            return;
+        }
+
+        if (coalesceWindowMs <= 0) {
+            flush(productId, List.of(adjustment));
+        } else {
+            pendingAdjustments.compute(productId, (id, batch) -> {
+                if (batch == null) {
+                    batch = new ArrayList<>();
+                    flushExecutor.schedule(() -> flush(id), coalesceWindowMs, TimeUnit.MILLISECONDS);
+                }
+                batch.add(adjustment);
+                return batch;
+            });
+        }
+
+        try {
+            adjustment.result.get(adjustTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Still queued means it was never written and can be withdrawn; otherwise its write is in flight
+            boolean withdrawn = withdraw(productId, adjustment);
+            log.warn("Stock adjustment for product {} timed out after {} ms ({})", productId, adjustTimeoutMs,
+                    withdrawn ? "withdrawn" : "write in flight");
+            throw new ServiceBusyException(withdrawn
+                    ? "Stock adjustment timed out and was not applied, please retry"
+                    : "Stock adjustment timed out while being written, check the stock before retrying");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Interrupted while waiting for the stock adjustment");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public long getSubmittedAdjustmentCount() {
+        return submittedAdjustments.sum();
+    }
+
+    public long getStockWriteCount() {
+        return stockWrites.sum();
+    }
+
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    public long getConflictCount() {
+        return conflicts.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushExecutor.shutdown();
+    }
+
+    private List<Long> reserveInLedger(Map<Long, Integer> deltas) {
+        List<Long> failed = ledger.tryReserve(deltas);
+        if (!failed.isEmpty()) {
+            conflicts.add(failed.size());
+            return failed;
+        }
+
+        // Journal rows commit with the caller; the ledger keeps the reservation only if they do
+        TransactionCallbacks.afterCompletion(committed -> ledger.complete(deltas, committed));
+        List<StockMovement> movements = new ArrayList<>(deltas.size());
+        deltas.forEach((productId, delta) -> movements.add(new StockMovement(productId, delta)));
+        stockMovementRepository.saveAll(movements);
+        return failed;
+    }
+
+    private boolean withdraw(Long productId, PendingAdjustment adjustment) {
+        boolean[] removed = new boolean[1];
+        pendingAdjustments.computeIfPresent(productId, (id, batch) -> {
+            removed[0] = batch.remove(adjustment);
+            return batch;
+        });
+        return removed[0];
+    }
+
+    private void flush(Long productId) {
+        List<PendingAdjustment> batch = pendingAdjustments.remove(productId);
+        if (batch != null && !batch.isEmpty()) {
+            flush(productId, batch);
+        }
+    }
+
+    private void flush(Long productId, List<PendingAdjustment> batch) {
+        try {
+            List<Boolean> accepted = writeWithRetry(productId, batch);
+            for (int i = 0; i < batch.size(); i++) {
+                PendingAdjustment adjustment = batch.get(i);
+                if (accepted.get(i)) {
+                    adjustment.result.complete(null);
+                } else {
+                    Integer currentStock = productRepository.findStockQuantityById(productId);
+                    adjustment.result.completeExceptionally(new IllegalArgumentException(
+                            "Cannot reduce stock below zero. Current stock: " + currentStock +
+                            ", Requested change: " + adjustment.delta));
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Stock adjustment for product {} failed", productId, e);
+            batch.forEach(adjustment -> adjustment.result.completeExceptionally(e));
+        }
+    }
+
+    private List<Boolean> writeWithRetry(Long productId, List<PendingAdjustment> batch) {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return requiresNew.execute(status -> write(productId, batch));
+            } catch (ConcurrencyFailureException e) {
+                // Deadlock or lock wait timeout: the transaction was rolled back, so it is safe to replay
+                if (attempt >= maxRetries) {
+                    throw e;
+                }
+                retries.increment();
+            }
+        }
+    }
+
+    private List<Boolean> write(Long productId, List<PendingAdjustment> batch) {
+        int netDelta = 0;
+        for (PendingAdjustment adjustment : batch) {
+            netDelta += adjustment.delta;
+        }
+
+        // Common case: the combined delta fits, so the whole window costs one UPDATE
+        if (productRepository.applyStockDeltas(Map.of(productId, netDelta)).isEmpty()) {
+            stockWrites.increment();
+            return batch.stream().map(adjustment -> true).toList();
+        }
+
+        // The combined delta would go negative: apply one by one in arrival order so that
+        // only the adjustments that actually overdraw the stock are rejected
+        List<Boolean> accepted = new ArrayList<>(batch.size());
+        for (PendingAdjustment adjustment : batch) {
+            boolean applied = productRepository.applyStockDeltas(Map.of(productId, adjustment.delta)).isEmpty();
+            if (applied) {
+                stockWrites.increment();
+            } else {
+                conflicts.increment();
+            }
+            accepted.add(applied);
+        }
+        return accepted;
+    }
+
+    private static final class PendingAdjustment {
+        private final int delta;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        private PendingAdjustment(int delta) {
+            this.delta = delta;
+        }
+    }
+}
@@ -0,0 +1,411 @@
+package com.erp.backend.service;
+
+import com.erp.backend.dto.InvoiceExportProgress;
+import com.erp.backend.exception.ResourceNotFoundException;
+import com.erp.backend.exception.ServiceBusyException;
+import com.erp.backend.model.Invoice;
+import com.erp.backend.repository.InvoiceRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// Exports the invoices of a date range as one ZIP of PDFs, in (invoice date, id) order. The caller's
+// thread scans ids and writes the archive; batches of invoices are loaded and rendered on a pool with
+// a thread per core. Rendering runs at most max-batches-in-flight batches ahead of the writer, so a
+// slow client or disk slows the export down instead of filling the heap. Only max-db-connections
+// loads run at once across all exports, whatever the thread count.
+//
+// A file export records a checkpoint (a keyset cursor past the last invoice written) after every
+// batch, once the batch is flushed and synced to disk; passing it as after starts a new archive with
+// the next invoice. A streamed export cannot know what the client received, so it publishes no
+// checkpoint: the client resumes with afterInvoice, the invoice number of the last complete entry in
+// its copy. Either way an export that stops early ends its archive when it can, with the cursor past
+// its last entry in the ZIP comment. Only max-streams exports stream at once; more get 503.
+@Service
+public class InvoiceExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoiceExportService.class);
+
+    // Finished jobs stay visible to the progress endpoint this long
+    private static final long JOB_RETENTION_HOURS = 24;
+
+    private final InvoiceRepository invoiceRepository;
+    private final InvoicePdfRenderer invoicePdfRenderer;
+    private final int batchSize;
+    private final int maxBatchesInFlight;
+    private final Path directory;
+    private final Semaphore databaseSlots;
+    private final Semaphore streamSlots;
+    private final ThreadPoolExecutor renderExecutor;
+    private final ThreadPoolExecutor fileExportExecutor;
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+    private final AtomicInteger runningCount = new AtomicInteger();
+    private final LongAdder exportedCount = new LongAdder();
+
+    public InvoiceExportService(InvoiceRepository invoiceRepository,
+                                InvoicePdfRenderer invoicePdfRenderer,
+                                @Value("${erp.invoice.export.threads:0}") int threads,
+                                @Value("${erp.invoice.export.max-db-connections:2}") int maxDbConnections,
+                                @Value("${erp.invoice.export.batch-size:50}") int batchSize,
+                                @Value("${erp.invoice.export.max-batches-in-flight:0}") int maxBatchesInFlight,
+                                @Value("${erp.invoice.export.max-streams:2}") int maxStreams,
+                                @Value("${erp.invoice.export.directory:exports}") String directory) {
+        this.invoiceRepository = invoiceRepository;
+        this.invoicePdfRenderer = invoicePdfRenderer;
+        this.batchSize = Math.max(1, batchSize);
+        this.directory = Paths.get(directory);
+        this.databaseSlots = new Semaphore(Math.max(1, maxDbConnections), true);
+        this.streamSlots = new Semaphore(Math.max(1, maxStreams));
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.maxBatchesInFlight = maxBatchesInFlight > 0 ? maxBatchesInFlight : 2 * poolSize;
+        // Unbounded queue, but each export keeps at most maxBatchesInFlight tasks in it
+        this.renderExecutor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), daemonThreads("invoice-export-"));
+        // File exports run one at a time; a few more may wait
+        this.fileExportExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(4), daemonThreads("invoice-export-file-"), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    private ExportJob createJob(LocalDateTime startDate, LocalDateTime endDate, String after) {
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("Start date must not be after end date");
+        }
+        KeysetCursor cursor = KeysetCursor.afterDate(after, startDate);
+        jobs.values().removeIf(job -> job.finishedAt != null
+                && job.finishedAt.isBefore(LocalDateTime.now().minusHours(JOB_RETENTION_HOURS)));
+        ExportJob job = new ExportJob(UUID.randomUUID().toString(), startDate, endDate, cursor);
+        jobs.put(job.id, job);
+        return job;
+    }
+
+    // Takes one of the max-streams slots for an export streamed to a client; closeStream gives it back.
+    // afterInvoice is the invoice number of the last complete entry of an earlier, interrupted download.
+    public ExportJob openStream(LocalDateTime startDate, LocalDateTime endDate, String after, String afterInvoice) {
+        if (after != null && afterInvoice != null) {
+            throw new IllegalArgumentException("Pass either after or afterInvoice, not both");
+        }
+        if (!streamSlots.tryAcquire()) {
+            throw new ServiceBusyException("Too many invoice exports streaming, please retry later");
+        }
+        try {
+            return createJob(startDate, endDate, afterInvoice != null ? entryCheckpoint(afterInvoice) : after);
+        } catch (RuntimeException e) {
+            streamSlots.release();
+            throw e;
+        }
+    }
+
+    public void closeStream() {
+        streamSlots.release();
+    }
+
+    // Writes the archive to out on the calling thread; out is finished as a ZIP but not closed
+    public void export(ExportJob job, OutputStream out) throws IOException {
+        export(job, out, null);
+    }
+
+    private void export(ExportJob job, OutputStream out, Flushable durable) throws IOException {
+        runningCount.incrementAndGet();
+        job.status = "RUNNING";
+        try {
+            writeArchive(job, out, durable);
+        } finally {
+            runningCount.decrementAndGet();
+        }
+    }
+
+    // Queues the export to a file in the export directory and returns straight away
+    public ExportJob exportToFile(LocalDateTime startDate, LocalDateTime endDate, String after) {
+        ExportJob job = createJob(startDate, endDate, after);
+        Path file = directory.resolve("invoices-" + job.id + ".zip");
+        job.file = file.toAbsolutePath().toString();
+        try {
+            fileExportExecutor.execute(() -> {
+                try {
+                    Files.createDirectories(directory);
+                    try (FileOutputStream out = new FileOutputStream(file.toFile())) {
+                        export(job, out, () -> out.getFD().sync());
+                    }
+                    log.info("Invoice export {} wrote {} invoices to {}", job.id, job.exported.get(), file);
+                } catch (Exception e) {
+                    job.fail(e);
+                    log.warn("Invoice export {} stopped after {} invoices; resume with after={}: {}",
+                            job.id, job.exported.get(), job.checkpoint, e.toString());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw new ServiceBusyException("Too many invoice exports queued, please retry later");
+        }
+        return job;
+    }
+
+    public InvoiceExportProgress getProgress(String jobId) {
+        ExportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new ResourceNotFoundException("Invoice export not found with id: " + jobId);
+        }
+        return job.toProgress();
+    }
+
+    public int getRunningCount() {
+        return runningCount.get();
+    }
+
+    public long getExportedCount() {
+        return exportedCount.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fileExportExecutor.shutdownNow();
+        renderExecutor.shutdownNow();
+    }
+
+    // With durable set, each batch is flushed and synced through it before the checkpoint moves past it
+    private void writeArchive(ExportJob job, OutputStream out, Flushable durable) throws IOException {
+        LocalDateTime afterDate = job.start.getSortKey();
+        long afterId = job.start.getId();
+        job.total = withDatabase(() -> invoiceRepository.countExportKeys(job.start.getSortKey(), job.start.getId(), job.endDate));
+
+        ZipOutputStream zip = new ZipOutputStream(out);
+        // PDF content streams are already deflated; a second pass gains little
+        zip.setLevel(Deflater.BEST_SPEED);
+        Deque<Future<List<RenderedInvoice>>> inFlight = new ArrayDeque<>();
+        boolean more = true;
+        try {
+            while (true) {
+                while (more && inFlight.size() < maxBatchesInFlight) {
+                    LocalDateTime scanDate = afterDate;
+                    long scanId = afterId;
+                    List<Object[]> keys = withDatabase(() -> invoiceRepository.findExportKeys(scanDate, scanId,
+                            job.endDate, PageRequest.of(0, batchSize)));
+                    more = keys.size() == batchSize;
+                    if (keys.isEmpty()) {
+                        break;
+                    }
+                    Object[] last = keys.get(keys.size() - 1);
+                    afterId = (Long) last[0];
+                    afterDate = (LocalDateTime) last[1];
+                    List<Long> ids = new ArrayList<>(keys.size());
+                    keys.forEach(key -> ids.add((Long) key[0]));
+                    inFlight.add(renderExecutor.submit(() -> renderBatch(ids)));
+                }
+                Future<List<RenderedInvoice>> next = inFlight.poll();
+                if (next == null) {
+                    break;
+                }
+                List<RenderedInvoice> batch = await(next);
+                for (RenderedInvoice invoice : batch) {
+                    ZipEntry entry = new ZipEntry(invoice.invoiceNumber() + ".pdf");
+                    entry.setTimeLocal(invoice.invoiceDate());
+                    zip.putNextEntry(entry);
+                    zip.write(invoice.pdf());
+                    zip.closeEntry();
+                }
+                if (!batch.isEmpty()) {
+                    RenderedInvoice last = batch.get(batch.size() - 1);
+                    job.written(last.id(), last.invoiceDate(), batch.size());
+                    if (durable != null) {
+                        zip.flush();
+                        durable.flush();
+                        job.checkpoint();
+                    }
+                    exportedCount.add(batch.size());
+                }
+            }
+            finish(zip, job);
+            job.complete();
+        } catch (IOException | RuntimeException e) {
+            // Not interrupted: an interrupt in the middle of a JDBC read can break the connection
+            inFlight.forEach(future -> future.cancel(false));
+            job.fail(e);
+            try {
+                finish(zip, job);
+            } catch (IOException | RuntimeException finishFailure) {
+                // The target is gone; the checkpoint is still on the job
+            }
+            throw e;
+        }
+    }
+
+    private void finish(ZipOutputStream zip, ExportJob job) throws IOException {
+        // Whoever reads the comment has every entry before it, so it may name the last one written
+        if (job.lastWrittenId != null) {
+            zip.setComment("last-invoice-id=" + job.lastWrittenId + " checkpoint="
+                    + KeysetCursor.afterDateToken(job.lastWrittenDate, job.lastWrittenId));
+        }
+        zip.finish();
+        zip.flush();
+    }
+
+    private String entryCheckpoint(String invoiceNumber) {
+        List<Object[]> keys = withDatabase(() -> invoiceRepository.findExportKeyByInvoiceNumber(invoiceNumber));
+        if (keys.isEmpty()) {
+            throw new ResourceNotFoundException("Invoice not found with number: " + invoiceNumber);
+        }
+        return KeysetCursor.afterDateToken((LocalDateTime) keys.get(0)[1], (Long) keys.get(0)[0]);
+    }
+
+    // Loads and renders one batch on a render thread, returning the PDFs in scan order
+    private List<RenderedInvoice> renderBatch(List<Long> ids) throws IOException {
+        List<Invoice> invoices = withDatabase(() -> invoiceRepository.findDocumentsByIdIn(ids));
+        Map<Long, Invoice> byId = new HashMap<>(invoices.size() * 2);
+        invoices.forEach(invoice -> byId.put(invoice.getId(), invoice));
+
+        List<RenderedInvoice> rendered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Invoice invoice = byId.get(id);
+            if (invoice == null) {
+                // Deleted since the scan
+                continue;
+            }
+            ByteArrayOutputStream pdf = new ByteArrayOutputStream(8192);
+            invoicePdfRenderer.render(invoice, pdf);
+            rendered.add(new RenderedInvoice(id, invoice.getInvoiceDate(), invoice.getInvoiceNumber(), pdf.toByteArray()));
+        }
+        return rendered;
+    }
+
+    private <T> T withDatabase(Supplier<T> query) {
+        try {
+            databaseSlots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for a database slot", e);
+        }
+        try {
+            return query.get();
+        } finally {
+            databaseSlots.release();
+        }
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for invoice renders");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record RenderedInvoice(Long id, LocalDateTime invoiceDate, String invoiceNumber, byte[] pdf) {
+    }
+
+    public static final class ExportJob {
+        private final String id;
+        private final LocalDateTime startDate;
+        private final LocalDateTime endDate;
+        private final KeysetCursor start;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final AtomicLong exported = new AtomicLong();
+        private volatile long total;
+        private volatile String status = "QUEUED";
+        private volatile Long lastWrittenId;
+        private volatile LocalDateTime lastWrittenDate;
+        // Only moved once the written entries are known to be safe (file exports)
+        private volatile Long lastInvoiceId;
+        private volatile String checkpoint;
+        private volatile String file;
+        private volatile String error;
+        private volatile LocalDateTime finishedAt;
+
+        private ExportJob(String id, LocalDateTime startDate, LocalDateTime endDate, KeysetCursor start) {
+            this.id = id;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.start = start;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        private void written(Long invoiceId, LocalDateTime invoiceDate, int entries) {
+            lastWrittenId = invoiceId;
+            lastWrittenDate = invoiceDate;
+            exported.addAndGet(entries);
+        }
+
+        private void checkpoint() {
+            lastInvoiceId = lastWrittenId;
+            checkpoint = KeysetCursor.afterDateToken(lastWrittenDate, lastWrittenId);
+        }
+
+        private void complete() {
+            status = "COMPLETED";
+            finishedAt = LocalDateTime.now();
+        }
+
+        private void fail(Exception e) {
+            if (finishedAt == null) {
+                status = "FAILED";
+                error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+                finishedAt = LocalDateTime.now();
+            }
+        }
+
+        private InvoiceExportProgress toProgress() {
+            return new InvoiceExportProgress(id, status, startDate, endDate, total, exported.get(), lastInvoiceId,
+                    checkpoint, file, error, startedAt, finishedAt);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.erp.backend.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Open invoices held in memory for statement matching, hashed by invoice number, by amount due and by
+// customer tax id plus amount due. Amounts are whole cents. Matches are taken off the balances as they
+// are made, so later lines see what each invoice still owes. The numbers of paid and closed invoices
+// are kept too, as 64-bit fingerprints only, so a line quoting one is reported instead of being matched
+// to some other invoice by its amount.
+class InvoiceMatchIndex {
+
+    static final class OpenInvoice {
+        private final long id;
+        private final String invoiceNumber;
+        private final String taxId;
+        private long dueCents;
+
+        private OpenInvoice(long id, String invoiceNumber, String taxId, long dueCents) {
+            this.id = id;
+            this.invoiceNumber = invoiceNumber;
+            this.taxId = taxId;
+            this.dueCents = dueCents;
+        }
+
+        long getId() {
+            return id;
+        }
+    }
+
+    // Either an invoice or the reason there is none
+    record Match(OpenInvoice invoice, String reason) {
+    }
+
+    private final Map<String, OpenInvoice> byNumber = new HashMap<>();
+    private final Map<Long, List<OpenInvoice>> byAmount = new HashMap<>();
+    private final Map<String, Map<Long, List<OpenInvoice>>> byTaxIdAndAmount = new HashMap<>();
+    private final NumberSet paidNumbers = new NumberSet();
+    private final NumberSet closedNumbers = new NumberSet();
+
+    static long cents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    void add(long id, String invoiceNumber, BigDecimal amountDue, String taxId) {
+        if (amountDue == null || amountDue.signum() <= 0) {
+            addPaid(invoiceNumber);
+            return;
+        }
+        OpenInvoice invoice = new OpenInvoice(id, invoiceNumber, normalizeTaxId(taxId), cents(amountDue));
+        if (invoiceNumber != null) {
+            byNumber.put(invoiceNumber.toUpperCase(Locale.ROOT), invoice);
+        }
+        link(invoice);
+    }
+
+    void addPaid(String invoiceNumber) {
+        paidNumbers.add(invoiceNumber);
+    }
+
+    // Cancelled or refunded
+    void addClosed(String invoiceNumber) {
+        closedNumbers.add(invoiceNumber);
+    }
+
+    // Invoices known by number, open or not
+    int size() {
+        return byNumber.size() + paidNumbers.size() + closedNumbers.size();
+    }
+
+    Match matchExact(String reference, String taxId, long cents) {
+        return match(reference, taxId, cents, 0);
+    }
+
+    Match matchWithin(String reference, String taxId, long cents, long toleranceCents) {
+        return match(reference, taxId, cents, toleranceCents);
+    }
+
+    // Records a payment against the invoice; once it owes nothing it drops out of the amount keys
+    void take(OpenInvoice invoice, long cents) {
+        unlink(invoice);
+        invoice.dueCents -= cents;
+        if (invoice.dueCents > 0) {
+            link(invoice);
+        }
+    }
+
+    // For an invoice that turned out not to accept payments after all
+    void close(OpenInvoice invoice) {
+        unlink(invoice);
+        invoice.dueCents = 0;
+    }
+
+    // A line that names an invoice is matched against that invoice only, whether it is still open or
+    // not; it may pay part of what is due but no more than the tolerance over it. Otherwise the payer's
+    // tax id narrows the search to one customer, and failing that the amount alone has to be unambiguous.
+    private Match match(String reference, String taxId, long cents, long tolerance) {
+        if (reference != null) {
+            for (String token : reference.toUpperCase(Locale.ROOT).split("[^A-Z0-9-]+")) {
+                OpenInvoice referenced = byNumber.get(token);
+                if (referenced != null) {
+                    return matchReferenced(referenced, cents, tolerance);
+                }
+                if (paidNumbers.contains(token)) {
+                    return unmatched("Invoice " + token + " is already settled");
+                }
+                if (closedNumbers.contains(token)) {
+                    return unmatched("Invoice " + token + " is cancelled or refunded");
+                }
+            }
+        }
+
+        String customer = normalizeTaxId(taxId);
+        if (customer != null) {
+            Map<Long, List<OpenInvoice>> customerInvoices = byTaxIdAndAmount.get(customer);
+            if (customerInvoices == null) {
+                return unmatched("No open invoices for tax id " + taxId);
+            }
+            return closest(customerInvoices, cents, tolerance, true);
+        }
+        return closest(byAmount, cents, tolerance, false);
+    }
+
+    // Probes the amount keys outward from the line's amount, so the nearest amount due wins. A tie
+    // within one customer goes to the oldest invoice; across customers it is left for a person.
+    private Match closest(Map<Long, List<OpenInvoice>> invoices, long cents, long tolerance, boolean oldestFirst) {
+        for (long distance = 0; distance <= tolerance; distance++) {
+            List<OpenInvoice> below = invoices.get(cents - distance);
+            List<OpenInvoice> above = distance > 0 ? invoices.get(cents + distance) : null;
+            if (below == null && above == null) {
+                continue;
+            }
+            List<OpenInvoice> candidates = new ArrayList<>();
+            addAll(candidates, below);
+            addAll(candidates, above);
+            if (candidates.size() > 1 && !oldestFirst) {
+                return unmatched(candidates.size() + " open invoices match the amount");
+            }
+            OpenInvoice oldest = candidates.get(0);
+            for (OpenInvoice candidate : candidates) {
+                if (candidate.id < oldest.id) {
+                    oldest = candidate;
+                }
+            }
+            return new Match(oldest, null);
+        }
+        return unmatched(tolerance > 0 ? "No open invoice within tolerance of the amount" : "No open invoice for the amount");
+    }
+
+    private static Match matchReferenced(OpenInvoice referenced, long cents, long tolerance) {
+        if (referenced.dueCents <= 0) {
+            return unmatched("Invoice " + referenced.invoiceNumber + " is already settled");
+        }
+        if (cents > referenced.dueCents + tolerance) {
+            return unmatched("Amount is more than the amount due on " + referenced.invoiceNumber);
+        }
+        return new Match(referenced, null);
+    }
+
+    private void link(OpenInvoice invoice) {
+        byAmount.computeIfAbsent(invoice.dueCents, key -> new ArrayList<>(1)).add(invoice);
+        if (invoice.taxId != null) {
+            byTaxIdAndAmount.computeIfAbsent(invoice.taxId, key -> new HashMap<>())
+                    .computeIfAbsent(invoice.dueCents, key -> new ArrayList<>(1)).add(invoice);
+        }
+    }
+
+    private void unlink(OpenInvoice invoice) {
+        if (invoice.dueCents <= 0) {
+            return;
+        }
+        remove(byAmount, invoice);
+        if (invoice.taxId != null) {
+            Map<Long, List<OpenInvoice>> customerInvoices = byTaxIdAndAmount.get(invoice.taxId);
+            if (customerInvoices != null) {
+                remove(customerInvoices, invoice);
+            }
+        }
+    }
+
+    private static void remove(Map<Long, List<OpenInvoice>> invoices, OpenInvoice invoice) {
+        List<OpenInvoice> sameAmount = invoices.get(invoice.dueCents);
+        if (sameAmount != null && sameAmount.remove(invoice) && sameAmount.isEmpty()) {
+            invoices.remove(invoice.dueCents);
+        }
+    }
+
+    private static void addAll(List<OpenInvoice> candidates, List<OpenInvoice> invoices) {
+        if (invoices != null) {
+            candidates.addAll(invoices);
+        }
+    }
+
+    // Tax ids are compared without spaces, dots or dashes and ignoring case
+    private static String normalizeTaxId(String taxId) {
+        if (taxId == null) {
+            return null;
+        }
+        String normalized = taxId.replaceAll("[^A-Za-z0-9]", "").toUpperCase(Locale.ROOT);
+        return normalized.isEmpty() ? null : normalized;
+    }
+
+    private static Match unmatched(String reason) {
+        return new Match(null, reason);
+    }
+
+    // Upper-cased invoice numbers as sorted FNV-1a fingerprints, 8 bytes each. A collision could only
+    // make an unknown token look like a closed invoice, which leaves the line for a person to check.
+    private static final class NumberSet {
+        private long[] fingerprints = new long[16];
+        private int size;
+        private boolean sorted = true;
+
+        private void add(String invoiceNumber) {
+            if (invoiceNumber == null) {
+                return;
+            }
+            if (size == fingerprints.length) {
+                fingerprints = Arrays.copyOf(fingerprints, size * 2);
+            }
+            fingerprints[size++] = fingerprint(invoiceNumber.toUpperCase(Locale.ROOT));
+            sorted = false;
+        }
+
+        private boolean contains(String upperCaseNumber) {
+            if (size == 0) {
+                return false;
+            }
+            if (!sorted) {
+                Arrays.sort(fingerprints, 0, size);
+                sorted = true;
+            }
+            return Arrays.binarySearch(fingerprints, 0, size, fingerprint(upperCaseNumber)) >= 0;
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private static long fingerprint(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.erp.backend.service;
+
+import com.erp.backend.model.Customer;
+import com.erp.backend.model.Invoice;
+import com.erp.backend.model.OrderItem;
+import com.itextpdf.text.BaseColor;
+import com.itextpdf.text.Document;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Element;
+import com.itextpdf.text.Font;
+import com.itextpdf.text.Image;
+import com.itextpdf.text.PageSize;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.Phrase;
+import com.itextpdf.text.Rectangle;
+import com.itextpdf.text.pdf.BaseFont;
+import com.itextpdf.text.pdf.PdfPCell;
+import com.itextpdf.text.pdf.PdfPTable;
+import com.itextpdf.text.pdf.PdfWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+// Writes an invoice as PDF straight to the given stream. Fonts and the logo are loaded once and shared
+// by every render; each document only gets a copy of the decoded logo. Line rows are handed to iText
+// in chunks, so finished pages are written out instead of the whole table being held until the end.
+@Component
+public class InvoicePdfRenderer {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoicePdfRenderer.class);
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final int ROWS_PER_CHUNK = 50;
+    private static final BaseColor HEADER_BACKGROUND = new BaseColor(230, 230, 230);
+
+    private final String companyName;
+    private final Image logo;
+    private final Font titleFont;
+    private final Font headingFont;
+    private final Font bodyFont;
+    private final Font smallFont;
+
+    private final LongAdder renderCount = new LongAdder();
+    private final LongAdder totalRenderNanos = new LongAdder();
+    private final LongAdder renderedBytes = new LongAdder();
+    private final LongAdder failureCount = new LongAdder();
+
+    public InvoicePdfRenderer(ResourceLoader resourceLoader,
+                              @Value("${erp.invoice.pdf.company-name:ERP System}") String companyName,
+                              @Value("${erp.invoice.pdf.logo:}") String logoLocation) throws DocumentException, IOException {
+        this.companyName = companyName;
+        this.logo = loadLogo(resourceLoader, logoLocation);
+
+        // Standard Type 1 fonts: nothing to embed, and a BaseFont is safe to share between writers
+        BaseFont regular = BaseFont.createFont(BaseFont.HELVETICA, BaseFont.WINANSI, BaseFont.NOT_EMBEDDED);
+        BaseFont bold = BaseFont.createFont(BaseFont.HELVETICA_BOLD, BaseFont.WINANSI, BaseFont.NOT_EMBEDDED);
+        this.titleFont = new Font(bold, 18);
+        this.headingFont = new Font(bold, 9);
+        this.bodyFont = new Font(regular, 9);
+        this.smallFont = new Font(regular, 8, Font.NORMAL, BaseColor.DARK_GRAY);
+    }
+
+    // The invoice must come with its customer, order and lines loaded (InvoiceService.getInvoiceForDocument).
+    // The stream is flushed but not closed. Render time includes waiting on a slow client.
+    public void render(Invoice invoice, OutputStream out) throws IOException {
+        long started = System.nanoTime();
+        CountingOutputStream counted = new CountingOutputStream(out);
+        Document document = new Document(PageSize.A4, 36, 36, 36, 36);
+        try {
+            PdfWriter writer = PdfWriter.getInstance(document, counted);
+            writer.setCloseStream(false);
+            document.addTitle("Invoice " + invoice.getInvoiceNumber());
+            document.addCreator(companyName);
+            document.open();
+
+            document.add(header(invoice));
+            document.add(parties(invoice));
+            addLines(document, invoice);
+            document.add(totals(invoice));
+            if (invoice.getNotes() != null && !invoice.getNotes().isBlank()) {
+                Paragraph notes = new Paragraph(invoice.getNotes(), smallFont);
+                notes.setSpacingBefore(12);
+                document.add(notes);
+            }
+            document.close();
+            counted.flush();
+            renderCount.increment();
+        } catch (DocumentException e) {
+            failureCount.increment();
+            throw new IOException("Could not render invoice " + invoice.getInvoiceNumber(), e);
+        } catch (IOException | RuntimeException e) {
+            failureCount.increment();
+            throw e;
+        } finally {
+            totalRenderNanos.add(System.nanoTime() - started);
+            renderedBytes.add(counted.count);
+        }
+    }
+
+    public long getRenderCount() {
+        return renderCount.sum();
+    }
+
+    public long getTotalRenderNanos() {
+        return totalRenderNanos.sum();
+    }
+
+    public long getRenderedBytes() {
+        return renderedBytes.sum();
+    }
+
+    public long getFailureCount() {
+        return failureCount.sum();
+    }
+
+    private PdfPTable header(Invoice invoice) throws DocumentException {
+        PdfPTable table = new PdfPTable(2);
+        table.setWidthPercentage(100);
+        table.setWidths(new float[]{1, 1});
+
+        PdfPCell brand;
+        if (logo != null) {
+            brand = new PdfPCell(Image.getInstance(logo), false);
+        } else {
+            brand = new PdfPCell(new Phrase(companyName, titleFont));
+        }
+        brand.setBorder(Rectangle.NO_BORDER);
+        table.addCell(brand);
+
+        PdfPCell details = new PdfPCell();
+        details.setBorder(Rectangle.NO_BORDER);
+        details.setHorizontalAlignment(Element.ALIGN_RIGHT);
+        details.addElement(right(new Paragraph("INVOICE", titleFont)));
+        details.addElement(right(new Paragraph(invoice.getInvoiceNumber(), headingFont)));
+        details.addElement(right(new Paragraph("Date: " + date(invoice.getInvoiceDate()), bodyFont)));
+        details.addElement(right(new Paragraph("Due: " + date(invoice.getDueDate()), bodyFont)));
+        details.addElement(right(new Paragraph("Status: " + invoice.getStatus(), bodyFont)));
+        table.addCell(details);
+        table.setSpacingAfter(18);
+        return table;
+    }
+
+    private PdfPTable parties(Invoice invoice) {
+        PdfPTable table = new PdfPTable(2);
+        table.setWidthPercentage(100);
+
+        Customer customer = invoice.getCustomer();
+        PdfPCell billTo = new PdfPCell();
+        billTo.setBorder(Rectangle.NO_BORDER);
+        billTo.addElement(new Paragraph("Bill to", headingFont));
+        billTo.addElement(new Paragraph(customer.getName(), bodyFont));
+        addIfPresent(billTo, customer.getAddress());
+        addIfPresent(billTo, join(customer.getCity(), customer.getState(), customer.getPostalCode()));
+        addIfPresent(billTo, customer.getCountry());
+        addIfPresent(billTo, customer.getEmail());
+        if (customer.getTaxId() != null) {
+            addIfPresent(billTo, "Tax ID: " + customer.getTaxId());
+        }
+        table.addCell(billTo);
+
+        PdfPCell orderCell = new PdfPCell();
+        orderCell.setBorder(Rectangle.NO_BORDER);
+        if (invoice.getOrder() != null) {
+            orderCell.addElement(new Paragraph("Order", headingFont));
+            orderCell.addElement(new Paragraph(invoice.getOrder().getOrderNumber(), bodyFont));
+            addIfPresent(orderCell, "Ordered " + date(invoice.getOrder().getOrderDate()));
+            addIfPresent(orderCell, invoice.getOrder().getPaymentMethod());
+        }
+        table.addCell(orderCell);
+        table.setSpacingAfter(18);
+        return table;
+    }
+
+    private void addLines(Document document, Invoice invoice) throws DocumentException {
+        if (invoice.getOrder() == null || invoice.getOrder().getOrderItems().isEmpty()) {
+            return;
+        }
+        PdfPTable table = new PdfPTable(new float[]{2, 5, 1.2f, 1.8f, 1.2f, 1.2f, 2});
+        table.setWidthPercentage(100);
+        table.setHeaderRows(1);
+        // Incomplete tables can be added more than once; each add lays out and releases the rows so far
+        table.setComplete(false);
+        for (String heading : new String[]{"SKU", "Description", "Qty", "Unit price", "Disc %", "Tax %", "Amount"}) {
+            PdfPCell cell = new PdfPCell(new Phrase(heading, headingFont));
+            cell.setBackgroundColor(HEADER_BACKGROUND);
+            table.addCell(cell);
+        }
+
+        List<OrderItem> items = invoice.getOrder().getOrderItems();
+        for (int i = 0; i < items.size(); i++) {
+            OrderItem item = items.get(i);
+            table.addCell(new Phrase(item.getProduct().getSku(), bodyFont));
+            table.addCell(new Phrase(item.getProduct().getName(), bodyFont));
+            table.addCell(number(Integer.toString(item.getQuantity())));
+            table.addCell(number(money(item.getUnitPrice())));
+            table.addCell(number(percent(item.getDiscountPercent())));
+            table.addCell(number(percent(item.getTaxPercent())));
+            table.addCell(number(money(item.getTotal())));
+            if ((i + 1) % ROWS_PER_CHUNK == 0) {
+                document.add(table);
+            }
+        }
+        table.setComplete(true);
+        document.add(table);
+    }
+
+    private PdfPTable totals(Invoice invoice) throws DocumentException {
+        PdfPTable table = new PdfPTable(2);
+        table.setWidthPercentage(40);
+        table.setHorizontalAlignment(Element.ALIGN_RIGHT);
+        table.setWidths(new float[]{3, 2});
+        table.setSpacingBefore(12);
+        addTotal(table, "Subtotal", invoice.getSubtotal(), bodyFont);
+        addTotal(table, "Discount", invoice.getDiscountAmount(), bodyFont);
+        addTotal(table, "Tax", invoice.getTaxAmount(), bodyFont);
+        addTotal(table, "Total", invoice.getTotalAmount(), headingFont);
+        addTotal(table, "Paid", invoice.getAmountPaid(), bodyFont);
+        addTotal(table, "Amount due", invoice.getAmountDue(), headingFont);
+        return table;
+    }
+
+    private void addTotal(PdfPTable table, String label, BigDecimal amount, Font font) {
+        PdfPCell labelCell = new PdfPCell(new Phrase(label, font));
+        labelCell.setBorder(Rectangle.NO_BORDER);
+        table.addCell(labelCell);
+        PdfPCell amountCell = new PdfPCell(new Phrase(money(amount), font));
+        amountCell.setBorder(Rectangle.NO_BORDER);
+        amountCell.setHorizontalAlignment(Element.ALIGN_RIGHT);
+        table.addCell(amountCell);
+    }
+
+    private PdfPCell number(String text) {
+        PdfPCell cell = new PdfPCell(new Phrase(text, bodyFont));
+        cell.setHorizontalAlignment(Element.ALIGN_RIGHT);
+        return cell;
+    }
+
+    private void addIfPresent(PdfPCell cell, String text) {
+        if (text != null && !text.isBlank()) {
+            cell.addElement(new Paragraph(text, bodyFont));
+        }
+    }
+
+    private static Paragraph right(Paragraph paragraph) {
+        paragraph.setAlignment(Element.ALIGN_RIGHT);
+        return paragraph;
+    }
+
+    private static String join(String... parts) {
+        StringBuilder joined = new StringBuilder();
+        for (String part : parts) {
+            if (part != null && !part.isBlank()) {
+                if (joined.length() > 0) {
+                    joined.append(", ");
+                }
+                joined.append(part);
+            }
+        }
+        return joined.toString();
+    }
+
+    private static String date(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.format(DATE_FORMAT) : "";
+    }
+
+    private static String money(BigDecimal amount) {
+        return amount != null ? amount.setScale(2, RoundingMode.HALF_UP).toPlainString() : "0.00";
+    }
+
+    private static String percent(BigDecimal value) {
+        return value != null ? value.stripTrailingZeros().toPlainString() : "0";
+    }
+
+    private static Image loadLogo(ResourceLoader resourceLoader, String location) throws IOException {
+        if (location == null || location.isBlank()) {
+            return null;
+        }
+        Resource resource = resourceLoader.getResource(location);
+        if (!resource.exists()) {
+            log.warn("Invoice logo {} not found; invoices are rendered without it", location);
+            return null;
+        }
+        try (InputStream in = resource.getInputStream()) {
+            Image image = Image.getInstance(in.readAllBytes());
+            image.scaleToFit(160, 60);
+            return image;
+        } catch (DocumentException e) {
+            throw new IOException("Could not read invoice logo " + location, e);
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
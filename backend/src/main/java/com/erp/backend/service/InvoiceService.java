@@ -1,5 +1,6 @@
 package com.erp.backend.service;
 
+import com.erp.backend.dto.CursorPage;
 import com.erp.backend.dto.InvoiceDTO;
 import com.erp.backend.exception.ResourceNotFoundException;
 import com.erp.backend.model.Customer;
@@ -8,8 +9,12 @@ import com.erp.backend.model.Order;
 import com.erp.backend.repository.CustomerRepository;
 import com.erp.backend.repository.InvoiceRepository;
 import com.erp.backend.repository.OrderRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -17,9 +22,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
 
 @Service
 public class InvoiceService {
@@ -28,21 +33,31 @@ public class InvoiceService {
     private final CustomerRepository customerRepository;
     private final OrderRepository orderRepository;
     private final UserService userService;
+    private final DocumentNumberAllocator documentNumberAllocator;
 
     public InvoiceService(InvoiceRepository invoiceRepository,
                          CustomerRepository customerRepository,
                          OrderRepository orderRepository,
-                         UserService userService) {
+                         UserService userService,
+                         DocumentNumberAllocator documentNumberAllocator) {
         this.invoiceRepository = invoiceRepository;
         this.customerRepository = customerRepository;
         this.orderRepository = orderRepository;
         this.userService = userService;
+        this.documentNumberAllocator = documentNumberAllocator;
     }
 
     public Page<Invoice> getAllInvoices(Pageable pageable) {
         return invoiceRepository.findAll(pageable);
     }
 
+    public CursorPage<Invoice> getInvoicesAfter(String after, Integer limit) {
+        KeysetCursor cursor = KeysetCursor.afterId(after);
+        int pageSize = KeysetCursor.limit(limit);
+        Slice<Invoice> invoices = invoiceRepository.findByIdGreaterThan(cursor.getId(), PageRequest.of(0, pageSize, Sort.by("id")));
+        return KeysetCursor.page(invoices, pageSize, Invoice::getId);
+    }
+
     public Page<Invoice> getInvoicesByCustomer(Long customerId, Pageable pageable) {
         if (!customerRepository.existsById(customerId)) {
             throw new ResourceNotFoundException("Customer not found with id: " + customerId);
@@ -58,6 +73,15 @@ public class InvoiceService {
         return invoiceRepository.findByInvoiceDateBetween(startDate, endDate, pageable);
     }
 
+    public CursorPage<Invoice> getInvoicesByDateRangeAfter(LocalDateTime startDate, LocalDateTime endDate,
+                                                           String after, Integer limit) {
+        KeysetCursor cursor = KeysetCursor.afterDate(after, startDate);
+        int pageSize = KeysetCursor.limit(limit);
+        Slice<Invoice> invoices = invoiceRepository.findByInvoiceDateAfter(cursor.getSortKey(), cursor.getId(), endDate,
+                PageRequest.of(0, pageSize, Sort.by("invoiceDate", "id")));
+        return KeysetCursor.page(invoices, pageSize, Invoice::getId, Invoice::getInvoiceDate);
+    }
+
     public List<Invoice> getOverdueInvoices() {
         return invoiceRepository.findOverdueInvoices(LocalDateTime.now());
     }
@@ -67,6 +91,12 @@ public class InvoiceService {
                 .orElseThrow(() -> new ResourceNotFoundException("Invoice not found with id: " + id));
     }
 
+    @Transactional(readOnly = true)
+    public Invoice getInvoiceForDocument(Long id) {
+        return invoiceRepository.findDocumentById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Invoice not found with id: " + id));
+    }
+
     public Invoice getInvoiceByOrderId(Long orderId) {
         if (!orderRepository.existsById(orderId)) {
             throw new ResourceNotFoundException("Order not found with id: " + orderId);
@@ -97,11 +127,8 @@ public class InvoiceService {
             }
         }
 
-        // Generate unique invoice number
-        String invoiceNumber = generateInvoiceNumber();
-        while (invoiceRepository.existsByInvoiceNumber(invoiceNumber)) {
-            invoiceNumber = generateInvoiceNumber();
-        }
+        // Allocate invoice number from the pre-reserved sequence block
+        String invoiceNumber = documentNumberAllocator.nextNumber("INV");
 
         // Create new invoice
         Invoice invoice = new Invoice();
@@ -197,28 +224,27 @@ public class InvoiceService {
         return invoiceRepository.save(invoice);
     }
 
+    // Moves the balances of several invoices at once: one conditional UPDATE per invoice, sent as a
+    // single batch, recomputing amount due and status in the database. Callers net their changes per
+    // invoice first; zero deltas are skipped. Every payment posted or deleted goes through here.
+    @Timed(value = "erp.payments", extraTags = {"operation", "apply-invoice-deltas"})
     @Transactional
-    public Invoice recordPayment(Long id, BigDecimal paymentAmount) {
-        Invoice invoice = getInvoiceById(id);
+    public void applyPaymentDeltas(Map<Long, BigDecimal> deltas) {
+        Map<Long, BigDecimal> nonZero = new HashMap<>();
+        deltas.forEach((invoiceId, delta) -> {
+            if (delta.signum() != 0) {
+                nonZero.put(invoiceId, delta);
+            }
+        });
 
-        // Cannot record payment for cancelled or refunded invoices
-        if (invoice.getStatus() == Invoice.InvoiceStatus.CANCELLED || 
-            invoice.getStatus() == Invoice.InvoiceStatus.REFUNDED) {
+        List<Long> rejected = invoiceRepository.applyPaymentDeltas(nonZero);
+        if (!rejected.isEmpty()) {
+            Long invoiceId = rejected.get(0);
+            if (!invoiceRepository.existsById(invoiceId)) {
+                throw new ResourceNotFoundException("Invoice not found with id: " + invoiceId);
+            }
             throw new IllegalArgumentException("Cannot record payment for cancelled or refunded invoices");
         }
-
-        // Update amount paid
-        BigDecimal newAmountPaid = invoice.getAmountPaid().add(paymentAmount);
-        invoice.setAmountPaid(newAmountPaid);
-
-        // Update status based on payment
-        if (newAmountPaid.compareTo(invoice.getTotalAmount()) >= 0) {
-            invoice.setStatus(Invoice.InvoiceStatus.PAID);
-        } else if (newAmountPaid.compareTo(BigDecimal.ZERO) > 0) {
-            invoice.setStatus(Invoice.InvoiceStatus.PARTIALLY_PAID);
-        }
-
-        return invoiceRepository.save(invoice);
     }
 
     @Transactional
@@ -233,11 +259,4 @@ public class InvoiceService {
         invoice.setStatus(Invoice.InvoiceStatus.CANCELLED);
         return invoiceRepository.save(invoice);
     }
-
-    private String generateInvoiceNumber() {
-        // Format: INV-YYYYMMDD-XXXX (where XXXX is a random 4-digit number)
-        String datePrefix = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        String randomSuffix = String.format("%04d", new Random().nextInt(10000));
-        return "INV-" + datePrefix + "-" + randomSuffix;
-    }
 }
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.erp.backend.service;
+
+import com.erp.backend.dto.OrderDTO;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// Reads either a top-level JSON array of orders or newline-delimited order objects
+class JsonOrderImportReader implements OrderImportReader {
+
+    private final ObjectMapper objectMapper;
+    private final JsonParser parser;
+    private boolean holdingFirstToken;
+    private long record;
+
+    JsonOrderImportReader(ObjectMapper objectMapper, InputStream in) throws IOException {
+        this.objectMapper = objectMapper;
+        this.parser = objectMapper.getFactory().createParser(in);
+        // Inside an array the elements follow; otherwise the first token already starts the first order
+        this.holdingFirstToken = parser.nextToken() != JsonToken.START_ARRAY;
+    }
+
+    @Override
+    public ImportedOrder next() throws IOException {
+        JsonToken token = holdingFirstToken ? parser.currentToken() : parser.nextToken();
+        holdingFirstToken = false;
+        if (token == null || token == JsonToken.END_ARRAY) {
+            return null;
+        }
+
+        record++;
+        if (token != JsonToken.START_OBJECT) {
+            throw new IllegalArgumentException("Expected an order object at record " + record + " but found " + token);
+        }
+
+        // Bind via a tree so a bad value only rejects this order and the parser stays on the next one
+        JsonNode node = objectMapper.readTree(parser);
+        String reference = node.path("orderNumber").asText(null);
+        try {
+            return ImportedOrder.parsed(record, reference, objectMapper.treeToValue(node, OrderDTO.class));
+        } catch (JsonProcessingException e) {
+            return ImportedOrder.rejected(record, reference, "Invalid order: " + e.getOriginalMessage());
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.erp.backend.service;
+
+import com.erp.backend.dto.PaymentDTO;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// Reads either a top-level JSON array of payments or newline-delimited payment objects
+class JsonPaymentImportReader implements PaymentImportReader {
+
+    private final ObjectMapper objectMapper;
+    private final JsonParser parser;
+    private boolean holdingFirstToken;
+    private long record;
+
+    JsonPaymentImportReader(ObjectMapper objectMapper, InputStream in) throws IOException {
+        this.objectMapper = objectMapper;
+        this.parser = objectMapper.getFactory().createParser(in);
+        this.holdingFirstToken = parser.nextToken() != JsonToken.START_ARRAY;
+    }
+
+    @Override
+    public ImportedPayment next() throws IOException {
+        JsonToken token = holdingFirstToken ? parser.currentToken() : parser.nextToken();
+        holdingFirstToken = false;
+        if (token == null || token == JsonToken.END_ARRAY) {
+            return null;
+        }
+
+        record++;
+        if (token != JsonToken.START_OBJECT) {
+            throw new IllegalArgumentException("Expected a payment object at record " + record + " but found " + token);
+        }
+
+        JsonNode node = objectMapper.readTree(parser);
+        String reference = node.path("referenceNumber").asText(null);
+        try {
+            return ImportedPayment.parsed(record, reference, objectMapper.treeToValue(node, PaymentDTO.class));
+        } catch (JsonProcessingException e) {
+            return ImportedPayment.rejected(record, reference, "Invalid payment: " + e.getOriginalMessage());
+        }
+    }
+}
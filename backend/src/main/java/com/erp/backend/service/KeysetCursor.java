@@ -0,0 +1,109 @@
+package com.erp.backend.service;
+
+import com.erp.backend.dto.CursorPage;
+import org.springframework.data.domain.Slice;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+// Position in a keyset-paginated listing: the (sort key, id) of the last row returned.
+// Encoded as an opaque URL-safe token so clients cannot depend on its layout.
+public final class KeysetCursor {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    private static final String VERSION = "1";
+
+    private final LocalDateTime sortKey;
+    private final long id;
+
+    private KeysetCursor(LocalDateTime sortKey, long id) {
+        this.sortKey = sortKey;
+        this.id = id;
+    }
+
+    // Cursor for listings ordered by id alone; null starts from the beginning
+    public static KeysetCursor afterId(String token) {
+        if (token == null || token.isBlank()) {
+            return new KeysetCursor(null, 0);
+        }
+        KeysetCursor cursor = decode(token);
+        if (cursor.sortKey != null) {
+            throw new IllegalArgumentException("Cursor does not belong to this listing");
+        }
+        return cursor;
+    }
+
+    // Cursor for listings ordered by (date, id); null starts at the first row on or after start
+    public static KeysetCursor afterDate(String token, LocalDateTime start) {
+        if (token == null || token.isBlank()) {
+            return new KeysetCursor(start, 0);
+        }
+        KeysetCursor cursor = decode(token);
+        if (cursor.sortKey == null) {
+            throw new IllegalArgumentException("Cursor does not belong to this listing");
+        }
+        // A cursor from an earlier, wider range must not reach back before the requested start
+        return cursor.sortKey.isBefore(start) ? new KeysetCursor(start, 0) : cursor;
+    }
+
+    // Token for a (date, id) position reached outside a Slice, such as an export checkpoint
+    public static String afterDateToken(LocalDateTime sortKey, long id) {
+        return new KeysetCursor(sortKey, id).encode();
+    }
+
+    public static int limit(Integer requested) {
+        if (requested == null) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.max(1, Math.min(MAX_LIMIT, requested));
+    }
+
+    public static <T> CursorPage<T> page(Slice<T> slice, int limit, Function<T, Long> idOf) {
+        return page(slice, limit, idOf, row -> null);
+    }
+
+    public static <T> CursorPage<T> page(Slice<T> slice, int limit, Function<T, Long> idOf,
+                                         Function<T, LocalDateTime> sortKeyOf) {
+        List<T> content = slice.getContent();
+        String next = null;
+        if (slice.hasNext() && !content.isEmpty()) {
+            T last = content.get(content.size() - 1);
+            next = new KeysetCursor(sortKeyOf.apply(last), idOf.apply(last)).encode();
+        }
+        return new CursorPage<>(content, limit, slice.hasNext(), next);
+    }
+
+    public LocalDateTime getSortKey() {
+        return sortKey;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    private String encode() {
+        String raw = VERSION + "|" + id + (sortKey != null ? "|" + sortKey : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static KeysetCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length < 2 || parts.length > 3 || !VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            long id = Long.parseLong(parts[1]);
+            LocalDateTime sortKey = parts.length == 3 ? LocalDateTime.parse(parts[2]) : null;
+            return new KeysetCursor(sortKey, id);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.erp.backend.service;
+
+import com.erp.backend.exception.ServiceBusyException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Password checks run on a small pool of their own rather than on request threads. At most
+// erp.security.login.threads BCrypt hashes run at once and up to queue-capacity logins wait;
+// beyond that a login is refused straight away, so a burst of logins leaves CPU and request
+// threads for the rest of the API.
+@Service
+public class LoginService {
+
+    private final AuthenticationManager authenticationManager;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder rejectedCount = new LongAdder();
+
+    public LoginService(AuthenticationManager authenticationManager,
+                        @Value("${erp.security.login.threads:0}") int threads,
+                        @Value("${erp.security.login.queue-capacity:100}") int queueCapacity) {
+        this.authenticationManager = authenticationManager;
+
+        // 0 means half the cores, leaving the other half for everything else
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "login-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // Completes with the authentication, or exceptionally with the AuthenticationException
+    public CompletableFuture<Authentication> authenticate(String username, String password) {
+        try {
+            return CompletableFuture.supplyAsync(() -> authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(username, password)), executor);
+        } catch (RejectedExecutionException e) {
+            rejectedCount.increment();
+            throw new ServiceBusyException("Too many logins in progress, please retry shortly");
+        }
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
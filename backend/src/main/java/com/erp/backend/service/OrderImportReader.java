@@ -0,0 +1,24 @@
+package com.erp.backend.service;
+
+import com.erp.backend.dto.OrderDTO;
+
+import java.io.IOException;
+
+// Pulls one order at a time from an import file so the file is never held in memory
+interface OrderImportReader {
+
+    // Returns null at the end of the input. A record that cannot be turned into an order comes back
+    // with an error instead; a file that cannot be read any further throws.
+    ImportedOrder next() throws IOException;
+
+    record ImportedOrder(long row, String reference, OrderDTO order, String error) {
+
+        static ImportedOrder parsed(long row, String reference, OrderDTO order) {
+            return new ImportedOrder(row, reference, order, null);
+        }
+
+        static ImportedOrder rejected(long row, String reference, String error) {
+            return new ImportedOrder(row, reference, null, error);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.erp.backend.service;
+
+import com.erp.backend.dto.OrderDTO;
+import com.erp.backend.dto.OrderImportResult;
+import com.erp.backend.dto.OrderImportSummary;
+import com.erp.backend.dto.OrderItemDTO;
+import com.erp.backend.exception.InsufficientStockException;
+import com.erp.backend.model.Order;
+import com.erp.backend.repository.CustomerRepository;
+import com.erp.backend.repository.ProductRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Bulk order import for EDI files. Orders are read one at a time, written in chunks of
+// erp.import.chunk-size and answered with one NDJSON result line per order as each chunk completes,
+// so heap use does not grow with file size. Each chunk checks the customers and products it names
+// with one IN query each.
+@Service
+public class OrderImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderImportService.class);
+
+    public enum Format {
+        JSON, CSV;
+
+        public static Format fromContentType(String contentType) {
+            return contentType != null && contentType.toLowerCase(Locale.ROOT).contains("csv") ? CSV : JSON;
+        }
+    }
+
+    private final OrderService orderService;
+    private final CustomerRepository customerRepository;
+    private final ProductRepository productRepository;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final EntityManager entityManager;
+    private final int chunkSize;
+
+    public OrderImportService(OrderService orderService,
+                              CustomerRepository customerRepository,
+                              ProductRepository productRepository,
+                              ObjectMapper objectMapper,
+                              Validator validator,
+                              EntityManager entityManager,
+                              @Value("${erp.import.chunk-size:500}") int chunkSize) {
+        this.orderService = orderService;
+        this.customerRepository = customerRepository;
+        this.productRepository = productRepository;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.entityManager = entityManager;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    public OrderImportSummary importOrders(InputStream in, Format format, OutputStream out) throws IOException {
+        OrderImportSummary summary = new OrderImportSummary();
+        List<OrderImportReader.ImportedOrder> chunk = new ArrayList<>(chunkSize);
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            // One JSON document per line; the servlet container owns and closes the stream
+            generator.setRootValueSeparator(null);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            try {
+                OrderImportReader reader = format == Format.CSV
+                        ? new CsvOrderImportReader(new InputStreamReader(in, StandardCharsets.UTF_8))
+                        : new JsonOrderImportReader(objectMapper, in);
+
+                OrderImportReader.ImportedOrder imported;
+                while ((imported = reader.next()) != null) {
+                    summary.setTotal(summary.getTotal() + 1);
+                    String error = imported.error() != null ? imported.error() : validate(imported.order());
+                    if (error != null) {
+                        write(generator, summary, failed(imported, error));
+                        continue;
+                    }
+
+                    chunk.add(imported);
+                    if (chunk.size() == chunkSize) {
+                        writeChunk(chunk, generator, summary);
+                        chunk.clear();
+                        generator.flush();
+                    }
+                }
+            } catch (JsonProcessingException | IllegalArgumentException e) {
+                // The file is malformed from here on; keep what was read before the fault. Any other
+                // IOException is the request breaking off (the client went away), and the orders read
+                // since the last chunk may be cut short, so it propagates without writing them
+                log.warn("Order import stopped after {} records: {}", summary.getTotal(), e.getMessage());
+                summary.setError(e.getMessage());
+            }
+
+            if (!chunk.isEmpty()) {
+                writeChunk(chunk, generator, summary);
+            }
+            generator.writeObject(summary);
+            generator.writeRaw('\n');
+        }
+        return summary;
+    }
+
+    private String validate(OrderDTO order) {
+        Set<ConstraintViolation<OrderDTO>> violations = validator.validate(order);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private String missingReference(OrderDTO order, Set<Long> customerIds, Set<Long> productIds) {
+        if (!customerIds.contains(order.getCustomerId())) {
+            return "Customer not found with id: " + order.getCustomerId();
+        }
+        for (OrderItemDTO item : order.getOrderItems()) {
+            if (!productIds.contains(item.getProductId())) {
+                return "Product not found with id: " + item.getProductId();
+            }
+        }
+        return null;
+    }
+
+    private void writeChunk(List<OrderImportReader.ImportedOrder> chunk, JsonGenerator generator,
+                            OrderImportSummary summary) throws IOException {
+        Set<Long> customerIds = new HashSet<>();
+        Set<Long> productIds = new HashSet<>();
+        for (OrderImportReader.ImportedOrder imported : chunk) {
+            customerIds.add(imported.order().getCustomerId());
+            for (OrderItemDTO item : imported.order().getOrderItems()) {
+                productIds.add(item.getProductId());
+            }
+        }
+        Set<Long> knownCustomers = new HashSet<>(customerRepository.findIdsByIdIn(customerIds));
+        Set<Long> knownProducts = new HashSet<>(productRepository.findIdsByIdIn(productIds));
+
+        // Orders naming an unknown customer or product fail on their own so the rest can go in one batch
+        List<OrderImportReader.ImportedOrder> creatable = new ArrayList<>(chunk.size());
+        for (OrderImportReader.ImportedOrder imported : chunk) {
+            String error = missingReference(imported.order(), knownCustomers, knownProducts);
+            if (error != null) {
+                write(generator, summary, failed(imported, error));
+            } else {
+                creatable.add(imported);
+            }
+        }
+        if (!creatable.isEmpty()) {
+            createChunk(creatable, generator, summary);
+        }
+
+        // The request keeps one persistence context open (open-in-view); without this it grows with the file
+        entityManager.clear();
+    }
+
+    private void createChunk(List<OrderImportReader.ImportedOrder> chunk, JsonGenerator generator,
+                             OrderImportSummary summary) throws IOException {
+        List<OrderDTO> orders = chunk.stream().map(OrderImportReader.ImportedOrder::order).toList();
+        try {
+            List<Order> created = orderService.createOrders(orders);
+            for (int i = 0; i < chunk.size(); i++) {
+                write(generator, summary, created(chunk.get(i), created.get(i)));
+            }
+        } catch (RuntimeException e) {
+            // Usually one order short on stock; replay the chunk one order at a time so only that one fails
+            log.debug("Order import chunk failed, retrying orders individually: {}", e.getMessage());
+            entityManager.clear();
+            for (OrderImportReader.ImportedOrder imported : chunk) {
+                try {
+                    write(generator, summary, created(imported, orderService.createOrder(imported.order())));
+                } catch (RuntimeException orderFailure) {
+                    entityManager.clear();
+                    write(generator, summary, failed(imported, describe(orderFailure)));
+                }
+            }
+        }
+    }
+
+    private void write(JsonGenerator generator, OrderImportSummary summary, OrderImportResult result) throws IOException {
+        if (result.getStatus() == OrderImportResult.Status.CREATED) {
+            summary.setCreated(summary.getCreated() + 1);
+        } else {
+            summary.setFailed(summary.getFailed() + 1);
+        }
+        generator.writeObject(result);
+        generator.writeRaw('\n');
+    }
+
+    private OrderImportResult created(OrderImportReader.ImportedOrder imported, Order order) {
+        return new OrderImportResult(imported.row(), imported.reference(), OrderImportResult.Status.CREATED,
+                order.getId(), order.getOrderNumber(), null);
+    }
+
+    private OrderImportResult failed(OrderImportReader.ImportedOrder imported, String error) {
+        return new OrderImportResult(imported.row(), imported.reference(), OrderImportResult.Status.FAILED,
+                null, null, error);
+    }
+
+    private String describe(RuntimeException e) {
+        if (e instanceof InsufficientStockException stockException) {
+            return String.join("; ", stockException.getShortfalls().values());
+        }
+        return e.getMessage();
+    }
+}
@@ -1,18 +1,25 @@
 package com.erp.backend.service;
 
+import com.erp.backend.dto.CursorPage;
 import com.erp.backend.dto.OrderDTO;
 import com.erp.backend.dto.OrderItemDTO;
+import com.erp.backend.exception.InsufficientStockException;
 import com.erp.backend.exception.ResourceNotFoundException;
 import com.erp.backend.model.Customer;
 import com.erp.backend.model.Order;
 import com.erp.backend.model.OrderItem;
 import com.erp.backend.model.Product;
+import com.erp.backend.model.User;
 import com.erp.backend.repository.CustomerRepository;
 import com.erp.backend.repository.OrderItemRepository;
 import com.erp.backend.repository.OrderRepository;
 import com.erp.backend.repository.ProductRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -20,10 +27,14 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class OrderService {
@@ -33,23 +44,39 @@ public class OrderService {
     private final CustomerRepository customerRepository;
     private final ProductRepository productRepository;
     private final UserService userService;
+    private final DocumentNumberAllocator documentNumberAllocator;
+    private final InventoryService inventoryService;
+    private final ProductCatalogCache productCatalogCache;
 
     public OrderService(OrderRepository orderRepository, 
                        OrderItemRepository orderItemRepository,
                        CustomerRepository customerRepository,
                        ProductRepository productRepository,
-                       UserService userService) {
+                       UserService userService,
+                       DocumentNumberAllocator documentNumberAllocator,
+                       InventoryService inventoryService,
+                       ProductCatalogCache productCatalogCache) {
         this.orderRepository = orderRepository;
         this.orderItemRepository = orderItemRepository;
         this.customerRepository = customerRepository;
         this.productRepository = productRepository;
         this.userService = userService;
+        this.documentNumberAllocator = documentNumberAllocator;
+        this.inventoryService = inventoryService;
+        this.productCatalogCache = productCatalogCache;
     }
 
     public Page<Order> getAllOrders(Pageable pageable) {
         return orderRepository.findAll(pageable);
     }
 
+    public CursorPage<Order> getOrdersAfter(String after, Integer limit) {
+        KeysetCursor cursor = KeysetCursor.afterId(after);
+        int pageSize = KeysetCursor.limit(limit);
+        Slice<Order> orders = orderRepository.findByIdGreaterThan(cursor.getId(), PageRequest.of(0, pageSize, Sort.by("id")));
+        return KeysetCursor.page(orders, pageSize, Order::getId);
+    }
+
     public Page<Order> getOrdersByCustomer(Long customerId, Pageable pageable) {
         if (!customerRepository.existsById(customerId)) {
             throw new ResourceNotFoundException("Customer not found with id: " + customerId);
@@ -69,79 +96,46 @@ public class OrderService {
         return orderRepository.findByOrderDateBetween(startDate, endDate, pageable);
     }
 
+    public CursorPage<Order> getOrdersByDateRangeAfter(LocalDateTime startDate, LocalDateTime endDate,
+                                                       String after, Integer limit) {
+        KeysetCursor cursor = KeysetCursor.afterDate(after, startDate);
+        int pageSize = KeysetCursor.limit(limit);
+        Slice<Order> orders = orderRepository.findByOrderDateAfter(cursor.getSortKey(), cursor.getId(), endDate,
+                PageRequest.of(0, pageSize, Sort.by("orderDate", "id")));
+        return KeysetCursor.page(orders, pageSize, Order::getId, Order::getOrderDate);
+    }
+
     public Order getOrderById(Long id) {
         return orderRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + id));
     }
 
+    @Timed(value = "erp.orders", extraTags = {"operation", "create"})
     @Transactional
     public Order createOrder(OrderDTO orderDTO) {
         // Validate customer exists
         Customer customer = customerRepository.findById(orderDTO.getCustomerId())
                 .orElseThrow(() -> new ResourceNotFoundException("Customer not found with id: " + orderDTO.getCustomerId()));
 
-        // Generate unique order number
-        String orderNumber = generateOrderNumber();
-        while (orderRepository.existsByOrderNumber(orderNumber)) {
-            orderNumber = generateOrderNumber();
-        }
+        // Load every referenced product in one query and validate stock for all lines before writing anything
+        Map<Long, Product> products = loadProducts(orderDTO.getOrderItems());
+        Map<Long, Integer> quantities = sumQuantitiesByProduct(orderDTO.getOrderItems());
+        checkStockAvailability(orderDTO.getOrderItems(), quantities, Map.of(), products);
 
-        // Create new order
-        Order order = new Order();
-        order.setOrderNumber(orderNumber);
-        order.setCustomer(customer);
-        order.setOrderDate(orderDTO.getOrderDate() != null ? orderDTO.getOrderDate() : LocalDateTime.now());
-        order.setDeliveryDate(orderDTO.getDeliveryDate());
-        order.setStatus(orderDTO.getStatus() != null ? orderDTO.getStatus() : Order.OrderStatus.PENDING);
-        order.setShippingAddress(orderDTO.getShippingAddress());
-        order.setShippingCity(orderDTO.getShippingCity());
-        order.setShippingState(orderDTO.getShippingState());
-        order.setShippingCountry(orderDTO.getShippingCountry());
-        order.setShippingPostalCode(orderDTO.getShippingPostalCode());
-        order.setShippingMethod(orderDTO.getShippingMethod());
-        order.setPaymentMethod(orderDTO.getPaymentMethod());
-        order.setPaymentStatus(orderDTO.getPaymentStatus() != null ? orderDTO.getPaymentStatus() : Order.PaymentStatus.PENDING);
-        order.setTaxAmount(orderDTO.getTaxAmount() != null ? orderDTO.getTaxAmount() : BigDecimal.ZERO);
-        order.setShippingCost(orderDTO.getShippingCost() != null ? orderDTO.getShippingCost() : BigDecimal.ZERO);
-        order.setDiscountAmount(orderDTO.getDiscountAmount() != null ? orderDTO.getDiscountAmount() : BigDecimal.ZERO);
-        order.setNotes(orderDTO.getNotes());
-        
-        // Set created by user if authenticated
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication != null && authentication.isAuthenticated()) {
-            order.setCreatedBy(userService.loadUserByUsername(authentication.getName()));
-        }
+        Order order = newOrder(orderDTO, customer, currentUser());
 
         // Save order first to get ID
         order = orderRepository.save(order);
 
+        // Reserve stock for all lines in a single batched conditional update
+        Map<Long, Integer> deltas = new HashMap<>();
+        quantities.forEach((productId, quantity) -> deltas.put(productId, -quantity));
+        applyStockDeltas(orderDTO.getOrderItems(), deltas, products);
+
         // Process order items
         List<OrderItem> orderItems = new ArrayList<>();
         for (OrderItemDTO itemDTO : orderDTO.getOrderItems()) {
-            Product product = productRepository.findById(itemDTO.getProductId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + itemDTO.getProductId()));
-
-            // Check stock availability
-            if (product.getStockQuantity() < itemDTO.getQuantity()) {
-                throw new IllegalArgumentException("Insufficient stock for product: " + product.getName());
-            }
-
-            // Create order item
-            OrderItem orderItem = new OrderItem();
-            orderItem.setOrder(order);
-            orderItem.setProduct(product);
-            orderItem.setQuantity(itemDTO.getQuantity());
-            orderItem.setUnitPrice(itemDTO.getUnitPrice() != null ? itemDTO.getUnitPrice() : product.getPrice());
-            orderItem.setDiscountPercent(itemDTO.getDiscountPercent() != null ? itemDTO.getDiscountPercent() : BigDecimal.ZERO);
-            orderItem.setTaxPercent(itemDTO.getTaxPercent() != null ? itemDTO.getTaxPercent() : BigDecimal.ZERO);
-            
-            // Calculate total
-            orderItem.calculateTotal();
-            orderItems.add(orderItem);
-
-            // Update product stock
-            product.setStockQuantity(product.getStockQuantity() - itemDTO.getQuantity());
-            productRepository.save(product);
+            orderItems.add(newOrderItem(order, itemDTO, products.get(itemDTO.getProductId())));
         }
 
         // Save order items
@@ -153,6 +147,52 @@ public class OrderService {
         return orderRepository.save(order);
     }
 
+    // Creates a batch of orders in one transaction: one lookup per table, one stock update for the
+    // whole batch and batched inserts. Any failure rolls back the entire batch.
+    @Timed(value = "erp.orders", extraTags = {"operation", "create-batch"})
+    @Transactional
+    public List<Order> createOrders(List<OrderDTO> orderDTOs) {
+        Set<Long> customerIds = new HashSet<>();
+        List<OrderItemDTO> allItems = new ArrayList<>();
+        for (OrderDTO orderDTO : orderDTOs) {
+            customerIds.add(orderDTO.getCustomerId());
+            allItems.addAll(orderDTO.getOrderItems());
+        }
+
+        Map<Long, Customer> customers = new HashMap<>();
+        for (Customer customer : customerRepository.findAllById(customerIds)) {
+            customers.put(customer.getId(), customer);
+        }
+        if (customers.size() < customerIds.size()) {
+            customerIds.removeAll(customers.keySet());
+            throw new ResourceNotFoundException("Customer not found with id: " +
+                    customerIds.stream().sorted().map(String::valueOf).collect(Collectors.joining(", ")));
+        }
+
+        Map<Long, Product> products = loadProducts(allItems);
+        Map<Long, Integer> quantities = sumQuantitiesByProduct(allItems);
+        checkStockAvailability(allItems, quantities, Map.of(), products);
+
+        Map<Long, Integer> deltas = new HashMap<>();
+        quantities.forEach((productId, quantity) -> deltas.put(productId, -quantity));
+        applyStockDeltas(allItems, deltas, products);
+
+        User createdBy = currentUser();
+        List<Order> orders = new ArrayList<>(orderDTOs.size());
+        for (OrderDTO orderDTO : orderDTOs) {
+            Order order = newOrder(orderDTO, customers.get(orderDTO.getCustomerId()), createdBy);
+            for (OrderItemDTO itemDTO : orderDTO.getOrderItems()) {
+                order.getOrderItems().add(newOrderItem(order, itemDTO, products.get(itemDTO.getProductId())));
+            }
+            order.recalculateTotals();
+            orders.add(order);
+        }
+
+        // Items are cascaded from their order; with sequence ids both go out as batched inserts
+        return orderRepository.saveAll(orders);
+    }
+
+    @Timed(value = "erp.orders", extraTags = {"operation", "update"})
     @Transactional
     public Order updateOrder(Long id, OrderDTO orderDTO) {
         Order order = getOrderById(id);
@@ -222,12 +262,20 @@ public class OrderService {
 
         // Update order items if provided
         if (orderDTO.getOrderItems() != null && !orderDTO.getOrderItems().isEmpty()) {
-            // Restore stock quantities for existing items
+            Map<Long, Product> products = loadProducts(orderDTO.getOrderItems());
+            Map<Long, Integer> quantities = sumQuantitiesByProduct(orderDTO.getOrderItems());
+
+            // Stock held by the current items is released, so it counts as available for the new ones
+            Map<Long, Integer> released = new HashMap<>();
             for (OrderItem existingItem : order.getOrderItems()) {
-                Product product = existingItem.getProduct();
-                product.setStockQuantity(product.getStockQuantity() + existingItem.getQuantity());
-                productRepository.save(product);
+                released.merge(existingItem.getProduct().getId(), existingItem.getQuantity(), Integer::sum);
             }
+            checkStockAvailability(orderDTO.getOrderItems(), quantities, released, products);
+
+            // Apply only the net change per product, in one batched conditional update
+            Map<Long, Integer> deltas = new HashMap<>(released);
+            quantities.forEach((productId, quantity) -> deltas.merge(productId, -quantity, Integer::sum));
+            applyStockDeltas(orderDTO.getOrderItems(), deltas, products);
 
             // Remove existing items
             orderItemRepository.deleteByOrderId(order.getId());
@@ -236,30 +284,7 @@ public class OrderService {
             // Add new items
             List<OrderItem> newOrderItems = new ArrayList<>();
             for (OrderItemDTO itemDTO : orderDTO.getOrderItems()) {
-                Product product = productRepository.findById(itemDTO.getProductId())
-                        .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + itemDTO.getProductId()));
-
-                // Check stock availability
-                if (product.getStockQuantity() < itemDTO.getQuantity()) {
-                    throw new IllegalArgumentException("Insufficient stock for product: " + product.getName());
-                }
-
-                // Create order item
-                OrderItem orderItem = new OrderItem();
-                orderItem.setOrder(order);
-                orderItem.setProduct(product);
-                orderItem.setQuantity(itemDTO.getQuantity());
-                orderItem.setUnitPrice(itemDTO.getUnitPrice() != null ? itemDTO.getUnitPrice() : product.getPrice());
-                orderItem.setDiscountPercent(itemDTO.getDiscountPercent() != null ? itemDTO.getDiscountPercent() : BigDecimal.ZERO);
-                orderItem.setTaxPercent(itemDTO.getTaxPercent() != null ? itemDTO.getTaxPercent() : BigDecimal.ZERO);
-                
-                // Calculate total
-                orderItem.calculateTotal();
-                newOrderItems.add(orderItem);
-
-                // Update product stock
-                product.setStockQuantity(product.getStockQuantity() - itemDTO.getQuantity());
-                productRepository.save(product);
+                newOrderItems.add(newOrderItem(order, itemDTO, products.get(itemDTO.getProductId())));
             }
 
             // Save new order items
@@ -272,6 +297,7 @@ public class OrderService {
         return orderRepository.save(order);
     }
 
+    @Timed(value = "erp.orders", extraTags = {"operation", "cancel"})
     @Transactional
     public void cancelOrder(Long id) {
         Order order = getOrderById(id);
@@ -281,12 +307,18 @@ public class OrderService {
             throw new IllegalArgumentException("Cannot cancel delivered orders");
         }
 
-        // Restore stock quantities
+        // Stock was already restored when the order was cancelled
+        if (order.getStatus() == Order.OrderStatus.CANCELLED) {
+            throw new IllegalArgumentException("Order is already cancelled");
+        }
+
+        // Restore stock quantities in one batched update
+        Map<Long, Integer> released = new HashMap<>();
         for (OrderItem item : order.getOrderItems()) {
-            Product product = item.getProduct();
-            product.setStockQuantity(product.getStockQuantity() + item.getQuantity());
-            productRepository.save(product);
+            released.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
         }
+        inventoryService.applyDeltas(released);
+        evictStockAfterCommit(released);
 
         // Update order status
         order.setStatus(Order.OrderStatus.CANCELLED);
@@ -294,10 +326,118 @@ public class OrderService {
         orderRepository.save(order);
     }
 
-    private String generateOrderNumber() {
-        // Format: ORD-YYYYMMDD-XXXX (where XXXX is a random 4-digit number)
-        String datePrefix = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        String randomSuffix = String.format("%04d", new Random().nextInt(10000));
-        return "ORD-" + datePrefix + "-" + randomSuffix;
+    private User currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()) {
+            return userService.findByUsername(authentication.getName());
+        }
+        return null;
+    }
+
+    private Order newOrder(OrderDTO orderDTO, Customer customer, User createdBy) {
+        Order order = new Order();
+        // Allocate order number from the pre-reserved sequence block
+        order.setOrderNumber(documentNumberAllocator.nextNumber("ORD"));
+        order.setCustomer(customer);
+        order.setOrderDate(orderDTO.getOrderDate() != null ? orderDTO.getOrderDate() : LocalDateTime.now());
+        order.setDeliveryDate(orderDTO.getDeliveryDate());
+        order.setStatus(orderDTO.getStatus() != null ? orderDTO.getStatus() : Order.OrderStatus.PENDING);
+        order.setShippingAddress(orderDTO.getShippingAddress());
+        order.setShippingCity(orderDTO.getShippingCity());
+        order.setShippingState(orderDTO.getShippingState());
+        order.setShippingCountry(orderDTO.getShippingCountry());
+        order.setShippingPostalCode(orderDTO.getShippingPostalCode());
+        order.setShippingMethod(orderDTO.getShippingMethod());
+        order.setPaymentMethod(orderDTO.getPaymentMethod());
+        order.setPaymentStatus(orderDTO.getPaymentStatus() != null ? orderDTO.getPaymentStatus() : Order.PaymentStatus.PENDING);
+        order.setTaxAmount(orderDTO.getTaxAmount() != null ? orderDTO.getTaxAmount() : BigDecimal.ZERO);
+        order.setShippingCost(orderDTO.getShippingCost() != null ? orderDTO.getShippingCost() : BigDecimal.ZERO);
+        order.setDiscountAmount(orderDTO.getDiscountAmount() != null ? orderDTO.getDiscountAmount() : BigDecimal.ZERO);
+        order.setNotes(orderDTO.getNotes());
+        order.setCreatedBy(createdBy);
+        return order;
+    }
+
+    private OrderItem newOrderItem(Order order, OrderItemDTO itemDTO, Product product) {
+        OrderItem orderItem = new OrderItem();
+        orderItem.setOrder(order);
+        orderItem.setProduct(product);
+        orderItem.setQuantity(itemDTO.getQuantity());
+        orderItem.setUnitPrice(itemDTO.getUnitPrice() != null ? itemDTO.getUnitPrice() : product.getUnitPrice());
+        orderItem.setDiscountPercent(itemDTO.getDiscountPercent() != null ? itemDTO.getDiscountPercent() : BigDecimal.ZERO);
+        orderItem.setTaxPercent(itemDTO.getTaxPercent() != null ? itemDTO.getTaxPercent() : BigDecimal.ZERO);
+        orderItem.calculateTotal();
+        return orderItem;
+    }
+
+    private Map<Long, Product> loadProducts(List<OrderItemDTO> items) {
+        Set<Long> productIds = new HashSet<>();
+        for (OrderItemDTO itemDTO : items) {
+            productIds.add(itemDTO.getProductId());
+        }
+
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productRepository.findAllById(productIds)) {
+            products.put(product.getId(), product);
+        }
+
+        if (products.size() < productIds.size()) {
+            productIds.removeAll(products.keySet());
+            throw new ResourceNotFoundException("Product not found with id: " +
+                    productIds.stream().sorted().map(String::valueOf).collect(Collectors.joining(", ")));
+        }
+        return products;
+    }
+
+    private Map<Long, Integer> sumQuantitiesByProduct(List<OrderItemDTO> items) {
+        // The same product may appear on several lines; stock has to cover their sum
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (OrderItemDTO itemDTO : items) {
+            quantities.merge(itemDTO.getProductId(), itemDTO.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    private void checkStockAvailability(List<OrderItemDTO> items, Map<Long, Integer> quantities,
+                                        Map<Long, Integer> released, Map<Long, Product> products) {
+        Map<String, String> shortfalls = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            Product product = products.get(items.get(i).getProductId());
+            int requested = quantities.get(product.getId());
+            long available = inventoryService.getAvailableStock(product) + released.getOrDefault(product.getId(), 0);
+            if (available < requested) {
+                shortfalls.put("orderItems[" + i + "]", "Insufficient stock for product: " + product.getName() +
+                        " (requested " + requested + ", available " + available + ")");
+            }
+        }
+
+        if (!shortfalls.isEmpty()) {
+            throw new InsufficientStockException(shortfalls);
+        }
+    }
+
+    private void applyStockDeltas(List<OrderItemDTO> items, Map<Long, Integer> deltas, Map<Long, Product> products) {
+        List<Long> failed = inventoryService.applyDeltas(deltas);
+        if (failed.isEmpty()) {
+            evictStockAfterCommit(deltas);
+            return;
+        }
+
+        // Another order took the stock between our read and the conditional update
+        Map<String, String> shortfalls = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            Long productId = items.get(i).getProductId();
+            if (failed.contains(productId)) {
+                shortfalls.put("orderItems[" + i + "]", "Insufficient stock for product: " +
+                        products.get(productId).getName() + " (stock changed while the order was being placed)");
+            }
+        }
+        throw new InsufficientStockException(shortfalls);
+    }
+
+    // The product cache holds stock for a few seconds; drop it once the new quantities are visible
+    private void evictStockAfterCommit(Map<Long, Integer> deltas) {
+        Set<Long> productIds = Set.copyOf(deltas.keySet());
+        TransactionCallbacks.afterCommit(() -> productCatalogCache.evictStock(productIds));
     }
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.erp.backend.service;
+
+import com.erp.backend.dto.PaymentDTO;
+
+import java.io.IOException;
+
+// Pulls one payment at a time from a settlement file so the file is never held in memory
+interface PaymentImportReader {
+
+    // Returns null at the end of the input. A record that cannot be turned into a payment comes back
+    // with an error instead; a file that cannot be read any further throws.
+    ImportedPayment next() throws IOException;
+
+    record ImportedPayment(long row, String reference, PaymentDTO payment, String error) {
+
+        static ImportedPayment parsed(long row, String reference, PaymentDTO payment) {
+            return new ImportedPayment(row, reference, payment, null);
+        }
+
+        static ImportedPayment rejected(long row, String reference, String error) {
+            return new ImportedPayment(row, reference, null, error);
+        }
+    }
+}
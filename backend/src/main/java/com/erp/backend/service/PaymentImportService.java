@@ -0,0 +1,217 @@
+package com.erp.backend.service;
+
+import com.erp.backend.dto.PaymentDTO;
+import com.erp.backend.dto.PaymentImportResult;
+import com.erp.backend.dto.PaymentImportSummary;
+import com.erp.backend.exception.ResourceNotFoundException;
+import com.erp.backend.model.Invoice;
+import com.erp.backend.model.Payment;
+import com.erp.backend.repository.InvoiceRepository;
+import com.erp.backend.repository.PaymentRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Bulk payment posting for acquirer settlement files. Payments are read one at a time and posted in
+// chunks of erp.payments.import.chunk-size: the chunk's invoices are checked with one query, the
+// balances move with one aggregated update per invoice, and the payments are batch-inserted. Each
+// payment is answered with one NDJSON result line as its chunk commits. A payment whose reference number
+// was already posted to the same invoice, by an earlier import or earlier in this one, fails as a
+// duplicate, so posting a settlement file again does not pay its invoices twice.
+@Service
+public class PaymentImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentImportService.class);
+
+    private final PaymentService paymentService;
+    private final InvoiceRepository invoiceRepository;
+    private final PaymentRepository paymentRepository;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final EntityManager entityManager;
+    private final int chunkSize;
+
+    public PaymentImportService(PaymentService paymentService,
+                                InvoiceRepository invoiceRepository,
+                                PaymentRepository paymentRepository,
+                                ObjectMapper objectMapper,
+                                Validator validator,
+                                EntityManager entityManager,
+                                @Value("${erp.payments.import.chunk-size:1000}") int chunkSize) {
+        this.paymentService = paymentService;
+        this.invoiceRepository = invoiceRepository;
+        this.paymentRepository = paymentRepository;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.entityManager = entityManager;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    public PaymentImportSummary importPayments(InputStream in, OrderImportService.Format format, OutputStream out)
+            throws IOException {
+        PaymentImportSummary summary = new PaymentImportSummary();
+        List<PaymentImportReader.ImportedPayment> chunk = new ArrayList<>(chunkSize);
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            try {
+                PaymentImportReader reader = format == OrderImportService.Format.CSV
+                        ? new CsvPaymentImportReader(new InputStreamReader(in, StandardCharsets.UTF_8))
+                        : new JsonPaymentImportReader(objectMapper, in);
+
+                PaymentImportReader.ImportedPayment imported;
+                while ((imported = reader.next()) != null) {
+                    summary.setTotal(summary.getTotal() + 1);
+                    String error = imported.error() != null ? imported.error() : validate(imported.payment());
+                    if (error != null) {
+                        write(generator, summary, failed(imported, error));
+                        continue;
+                    }
+
+                    chunk.add(imported);
+                    if (chunk.size() == chunkSize) {
+                        postChunk(chunk, generator, summary);
+                        chunk.clear();
+                        generator.flush();
+                    }
+                }
+            } catch (JsonProcessingException | IllegalArgumentException e) {
+                // A malformed file keeps what was read before the fault; any other IOException is the
+                // upload breaking off, and propagates without posting the unfinished chunk
+                log.warn("Payment import stopped after {} records: {}", summary.getTotal(), e.getMessage());
+                summary.setError(e.getMessage());
+            }
+
+            if (!chunk.isEmpty()) {
+                postChunk(chunk, generator, summary);
+            }
+            generator.writeObject(summary);
+            generator.writeRaw('\n');
+        }
+        return summary;
+    }
+
+    private String validate(PaymentDTO payment) {
+        Set<ConstraintViolation<PaymentDTO>> violations = validator.validate(payment);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private void postChunk(List<PaymentImportReader.ImportedPayment> chunk, JsonGenerator generator,
+                           PaymentImportSummary summary) throws IOException {
+        Set<Long> invoiceIds = new HashSet<>();
+        Set<String> references = new HashSet<>();
+        for (PaymentImportReader.ImportedPayment imported : chunk) {
+            invoiceIds.add(imported.payment().getInvoiceId());
+            if (imported.payment().getReferenceNumber() != null) {
+                references.add(imported.payment().getReferenceNumber());
+            }
+        }
+        Map<Long, Invoice.InvoiceStatus> statuses = new HashMap<>();
+        for (Object[] row : invoiceRepository.findStatusesByIdIn(invoiceIds)) {
+            statuses.put((Long) row[0], (Invoice.InvoiceStatus) row[1]);
+        }
+        // Grows with the chunk's own payments, so a reference repeated within the chunk is caught too
+        Set<PostedReference> posted = new HashSet<>();
+        if (!references.isEmpty()) {
+            for (Object[] row : paymentRepository.findPostedReferences(references)) {
+                posted.add(new PostedReference((Long) row[0], (String) row[1]));
+            }
+        }
+
+        // Payments against unknown or closed invoices fail on their own so the rest can go in one batch
+        List<PaymentImportReader.ImportedPayment> postable = new ArrayList<>(chunk.size());
+        for (PaymentImportReader.ImportedPayment imported : chunk) {
+            Long invoiceId = imported.payment().getInvoiceId();
+            Invoice.InvoiceStatus status = statuses.get(invoiceId);
+            if (status == null) {
+                write(generator, summary, failed(imported, "Invoice not found with id: " + invoiceId));
+            } else if (status == Invoice.InvoiceStatus.CANCELLED || status == Invoice.InvoiceStatus.REFUNDED) {
+                write(generator, summary, failed(imported, "Cannot add payment to a cancelled or refunded invoice"));
+            } else if (imported.payment().getReferenceNumber() != null
+                    && !posted.add(new PostedReference(invoiceId, imported.payment().getReferenceNumber()))) {
+                write(generator, summary, failed(imported, "Duplicate payment: reference "
+                        + imported.payment().getReferenceNumber() + " is already posted to invoice " + invoiceId));
+            } else {
+                postable.add(imported);
+            }
+        }
+
+        if (!postable.isEmpty()) {
+            List<PaymentDTO> payments = postable.stream().map(PaymentImportReader.ImportedPayment::payment).toList();
+            try {
+                List<Payment> created = paymentService.createPayments(payments);
+                for (int i = 0; i < postable.size(); i++) {
+                    write(generator, summary, posted(postable.get(i), created.get(i)));
+                }
+            } catch (IllegalArgumentException | ResourceNotFoundException e) {
+                // An invoice was closed or deleted after the check above; post one at a time so only its
+                // payments fail. Anything else (the database going away) stops the import.
+                log.debug("Payment import chunk failed, retrying payments individually: {}", e.getMessage());
+                entityManager.clear();
+                for (PaymentImportReader.ImportedPayment imported : postable) {
+                    try {
+                        write(generator, summary, posted(imported, paymentService.createPayment(imported.payment())));
+                    } catch (IllegalArgumentException | ResourceNotFoundException paymentFailure) {
+                        entityManager.clear();
+                        write(generator, summary, failed(imported, paymentFailure.getMessage()));
+                    }
+                }
+            }
+        }
+
+        entityManager.clear();
+    }
+
+    private void write(JsonGenerator generator, PaymentImportSummary summary, PaymentImportResult result)
+            throws IOException {
+        if (result.getStatus() == PaymentImportResult.Status.POSTED) {
+            summary.setPosted(summary.getPosted() + 1);
+            summary.setAmountPosted(summary.getAmountPosted().add(result.getAmount()));
+        } else {
+            summary.setFailed(summary.getFailed() + 1);
+        }
+        generator.writeObject(result);
+        generator.writeRaw('\n');
+    }
+
+    private PaymentImportResult posted(PaymentImportReader.ImportedPayment imported, Payment payment) {
+        return new PaymentImportResult(imported.row(), imported.reference(), PaymentImportResult.Status.POSTED,
+                payment.getId(), payment.getInvoice().getId(), payment.getAmount(), null);
+    }
+
+    private PaymentImportResult failed(PaymentImportReader.ImportedPayment imported, String error) {
+        PaymentDTO payment = imported.payment();
+        return new PaymentImportResult(imported.row(), imported.reference(), PaymentImportResult.Status.FAILED,
+                null, payment != null ? payment.getInvoiceId() : null, payment != null ? payment.getAmount() : null, error);
+    }
+
+    private record PostedReference(Long invoiceId, String referenceNumber) {
+    }
+}
@@ -1,20 +1,30 @@
 package com.erp.backend.service;
 
+import com.erp.backend.dto.CursorPage;
 import com.erp.backend.dto.PaymentDTO;
 import com.erp.backend.exception.ResourceNotFoundException;
 import com.erp.backend.model.Invoice;
 import com.erp.backend.model.Payment;
+import com.erp.backend.model.User;
 import com.erp.backend.repository.InvoiceRepository;
 import com.erp.backend.repository.PaymentRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class PaymentService {
@@ -38,6 +48,13 @@ public class PaymentService {
         return paymentRepository.findAll(pageable);
     }
 
+    public CursorPage<Payment> getPaymentsAfter(String after, Integer limit) {
+        KeysetCursor cursor = KeysetCursor.afterId(after);
+        int pageSize = KeysetCursor.limit(limit);
+        Slice<Payment> payments = paymentRepository.findByIdGreaterThan(cursor.getId(), PageRequest.of(0, pageSize, Sort.by("id")));
+        return KeysetCursor.page(payments, pageSize, Payment::getId);
+    }
+
     public Page<Payment> getPaymentsByInvoice(Long invoiceId, Pageable pageable) {
         if (!invoiceRepository.existsById(invoiceId)) {
             throw new ResourceNotFoundException("Invoice not found with id: " + invoiceId);
@@ -60,6 +77,15 @@ public class PaymentService {
         return paymentRepository.findByPaymentDateBetween(startDate, endDate, pageable);
     }
 
+    public CursorPage<Payment> getPaymentsByDateRangeAfter(LocalDateTime startDate, LocalDateTime endDate,
+                                                           String after, Integer limit) {
+        KeysetCursor cursor = KeysetCursor.afterDate(after, startDate);
+        int pageSize = KeysetCursor.limit(limit);
+        Slice<Payment> payments = paymentRepository.findByPaymentDateAfter(cursor.getSortKey(), cursor.getId(), endDate,
+                PageRequest.of(0, pageSize, Sort.by("paymentDate", "id")));
+        return KeysetCursor.page(payments, pageSize, Payment::getId, Payment::getPaymentDate);
+    }
+
     public Page<Payment> getPaymentsByCustomer(Long customerId, Pageable pageable) {
         return paymentRepository.findByCustomerId(customerId, pageable);
     }
@@ -69,6 +95,7 @@ public class PaymentService {
                 .orElseThrow(() -> new ResourceNotFoundException("Payment not found with id: " + id));
     }
 
+    @Timed(value = "erp.payments", extraTags = {"operation", "create"})
     @Transactional
     public Payment createPayment(PaymentDTO paymentDTO) {
         // Validate invoice exists
@@ -93,18 +120,51 @@ public class PaymentService {
         // Set created by user if authenticated
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication != null && authentication.isAuthenticated()) {
-            payment.setCreatedBy(userService.loadUserByUsername(authentication.getName()));
+            payment.setCreatedBy(userService.findByUsername(authentication.getName()));
         }
 
         // Save payment
         Payment savedPayment = paymentRepository.save(payment);
 
         // Update invoice payment status
-        invoiceService.recordPayment(invoice.getId(), paymentDTO.getAmount());
+        invoiceService.applyPaymentDeltas(Map.of(invoice.getId(), paymentDTO.getAmount()));
 
         return savedPayment;
     }
 
+    // Posts a batch of payments in one transaction. Balances move first, one aggregated update per
+    // invoice, so a missing, cancelled or refunded invoice rejects the whole batch before anything is
+    // inserted; the payments then go out as batched inserts.
+    @Timed(value = "erp.payments", extraTags = {"operation", "create-batch"})
+    @Transactional
+    public List<Payment> createPayments(List<PaymentDTO> paymentDTOs) {
+        Map<Long, BigDecimal> deltas = new HashMap<>();
+        for (PaymentDTO paymentDTO : paymentDTOs) {
+            deltas.merge(paymentDTO.getInvoiceId(), paymentDTO.getAmount(), BigDecimal::add);
+        }
+        invoiceService.applyPaymentDeltas(deltas);
+
+        User createdBy = null;
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()) {
+            createdBy = userService.findByUsername(authentication.getName());
+        }
+
+        List<Payment> payments = new ArrayList<>(paymentDTOs.size());
+        for (PaymentDTO paymentDTO : paymentDTOs) {
+            Payment payment = new Payment();
+            payment.setInvoice(invoiceRepository.getReferenceById(paymentDTO.getInvoiceId()));
+            payment.setPaymentDate(paymentDTO.getPaymentDate());
+            payment.setAmount(paymentDTO.getAmount());
+            payment.setPaymentMethod(paymentDTO.getPaymentMethod());
+            payment.setReferenceNumber(paymentDTO.getReferenceNumber());
+            payment.setNotes(paymentDTO.getNotes());
+            payment.setCreatedBy(createdBy);
+            payments.add(payment);
+        }
+        return paymentRepository.saveAll(payments);
+    }
+
     @Transactional
     public Payment updatePayment(Long id, PaymentDTO paymentDTO) {
         Payment payment = getPaymentById(id);
@@ -116,8 +176,11 @@ public class PaymentService {
             throw new IllegalArgumentException("Cannot update payment for a cancelled or refunded invoice");
         }
 
+        Long oldInvoiceId = invoice.getId();
+        BigDecimal oldAmount = payment.getAmount();
+
         // If invoice ID is changing, validate new invoice exists
-        if (!payment.getInvoice().getId().equals(paymentDTO.getInvoiceId())) {
+        if (!oldInvoiceId.equals(paymentDTO.getInvoiceId())) {
             Invoice newInvoice = invoiceRepository.findById(paymentDTO.getInvoiceId())
                     .orElseThrow(() -> new ResourceNotFoundException("Invoice not found with id: " + paymentDTO.getInvoiceId()));
             
@@ -127,21 +190,20 @@ public class PaymentService {
                 throw new IllegalArgumentException("Cannot move payment to a cancelled or refunded invoice");
             }
             
-            // Adjust old invoice payment status
-            invoiceService.recordPayment(invoice.getId(), payment.getAmount().negate());
-            
-            // Set new invoice
             payment.setInvoice(newInvoice);
         }
 
-        // If amount is changing, adjust invoice payment status
-        if (paymentDTO.getAmount() != null && !payment.getAmount().equals(paymentDTO.getAmount())) {
-            // Adjust invoice payment status by removing old amount and adding new amount
-            invoiceService.recordPayment(payment.getInvoice().getId(), payment.getAmount().negate());
+        if (paymentDTO.getAmount() != null) {
             payment.setAmount(paymentDTO.getAmount());
-            invoiceService.recordPayment(payment.getInvoice().getId(), paymentDTO.getAmount());
         }
 
+        // Take the old amount off the old invoice and put the new amount on the current one; netted per
+        // invoice, so an unchanged payment writes nothing and a changed one writes each invoice once
+        Map<Long, BigDecimal> deltas = new HashMap<>();
+        deltas.merge(oldInvoiceId, oldAmount.negate(), BigDecimal::add);
+        deltas.merge(payment.getInvoice().getId(), payment.getAmount(), BigDecimal::add);
+        invoiceService.applyPaymentDeltas(deltas);
+
         // Update other fields
         if (paymentDTO.getPaymentDate() != null) {
             payment.setPaymentDate(paymentDTO.getPaymentDate());
@@ -174,7 +236,7 @@ public class PaymentService {
         }
 
         // Adjust invoice payment status
-        invoiceService.recordPayment(invoice.getId(), payment.getAmount().negate());
+        invoiceService.applyPaymentDeltas(Map.of(invoice.getId(), payment.getAmount().negate()));
 
         // Delete payment
         paymentRepository.deleteById(id);
@@ -0,0 +1,20 @@
+package com.erp.backend.service;
+
+import java.util.Arrays;
+
+// Growable sorted list of record slots for one index term; slots are only ever appended in increasing order
+final class Postings {
+
+    int[] docs = new int[4];
+    int size;
+
+    void add(int doc) {
+        if (size > 0 && docs[size - 1] == doc) {
+            return;
+        }
+        if (size == docs.length) {
+            docs = Arrays.copyOf(docs, size * 2);
+        }
+        docs[size++] = doc;
+    }
+}
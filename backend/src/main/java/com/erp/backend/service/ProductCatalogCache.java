@@ -0,0 +1,152 @@
+package com.erp.backend.service;
+
+import com.erp.backend.model.Category;
+import com.erp.backend.model.Product;
+import com.erp.backend.model.Supplier;
+import com.erp.backend.model.User;
+import com.erp.backend.repository.ProductRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+// Read-through cache of product read models for the single-product endpoints. Catalog data is
+// cached for minutes; stock is held in its own entry that expires within seconds, and stock writes
+// evict it on commit, so a cached product does not show stale stock after a change made here.
+// Entries are detached snapshots and every read returns a fresh copy, so callers cannot change
+// what others see. Lookups that find nothing are not cached.
+@Component
+public class ProductCatalogCache {
+
+    private final ProductRepository productRepository;
+    private final InventoryService inventoryService;
+
+    private final Cache<Long, Product> productsById;
+    private final Cache<String, Long> idsBySku;
+    private final Cache<Long, Integer> stockById;
+
+    public ProductCatalogCache(ProductRepository productRepository,
+                               InventoryService inventoryService,
+                               @Value("${erp.catalog.cache.max-size:10000}") long maxSize,
+                               @Value("${erp.catalog.cache.ttl-seconds:600}") long ttlSeconds,
+                               @Value("${erp.catalog.cache.stock-ttl-ms:2000}") long stockTtlMs) {
+        this.productRepository = productRepository;
+        this.inventoryService = inventoryService;
+
+        this.productsById = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.idsBySku = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.stockById = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(stockTtlMs))
+                .recordStats()
+                .build();
+    }
+
+    public Optional<Product> findById(Long id) {
+        Product cached = productsById.get(id, key -> productRepository.findWithCatalogById(key)
+                .map(ProductCatalogCache::copy)
+                .orElse(null));
+        if (cached == null) {
+            return Optional.empty();
+        }
+
+        Product product = copy(cached);
+        Integer stock = stockById.get(id, inventoryService::getStockQuantity);
+        if (stock != null) {
+            product.setStockQuantity(stock);
+        }
+        return Optional.of(product);
+    }
+
+    public Optional<Product> findBySku(String sku) {
+        Long id = idsBySku.get(sku, key -> productRepository.findIdBySku(key).orElse(null));
+        if (id == null) {
+            return Optional.empty();
+        }
+        Optional<Product> product = findById(id);
+        // The SKU may have moved to another product since the mapping was cached
+        if (product.isEmpty() || !sku.equals(product.get().getSku())) {
+            idsBySku.invalidate(sku);
+            return Optional.empty();
+        }
+        return product;
+    }
+
+    // Catalog data changed; call after the change has committed
+    public void evict(Long id, String... skus) {
+        productsById.invalidate(id);
+        stockById.invalidate(id);
+        for (String sku : skus) {
+            if (sku != null) {
+                idsBySku.invalidate(sku);
+            }
+        }
+    }
+
+    // Only stock changed; the catalog entry stays valid
+    public void evictStock(Long id) {
+        stockById.invalidate(id);
+    }
+
+    public void evictStock(Collection<Long> ids) {
+        stockById.invalidateAll(ids);
+    }
+
+    public Map<String, CacheStats> getStats() {
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        stats.put("productsById", productsById.stats());
+        stats.put("idsBySku", idsBySku.stats());
+        stats.put("stockById", stockById.stats());
+        return stats;
+    }
+
+    // Copies every property the entity serializes, so a snapshot renders exactly like the entity it
+    // was taken from. Associations are copied one level deep, as far as Product's JSON reaches into
+    // them, so a snapshot holds no lazy proxies or session state.
+    private static Product copy(Product source) {
+        Product product = new Product();
+        BeanUtils.copyProperties(source, product, "category", "supplier", "createdBy");
+        product.setCreatedBy(copy(source.getCreatedBy()));
+
+        if (source.getCategory() != null) {
+            Category category = new Category();
+            BeanUtils.copyProperties(source.getCategory(), category, "parent", "subcategories", "products", "createdBy");
+            category.setCreatedBy(copy(source.getCategory().getCreatedBy()));
+            product.setCategory(category);
+        }
+        if (source.getSupplier() != null) {
+            Supplier supplier = new Supplier();
+            BeanUtils.copyProperties(source.getSupplier(), supplier);
+            product.setSupplier(supplier);
+        }
+        return product;
+    }
+
+    // Only what createdBy renders; credentials and contact details never enter the cache
+    private static User copy(User source) {
+        if (source == null) {
+            return null;
+        }
+        User user = new User();
+        user.setId(source.getId());
+        user.setUsername(source.getUsername());
+        user.setFullName(source.getFullName());
+        return user;
+    }
+}
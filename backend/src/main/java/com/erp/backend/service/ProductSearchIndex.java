@@ -0,0 +1,519 @@
+package com.erp.backend.service;
+
+import com.erp.backend.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// In-process inverted index over product name, SKU, barcode and description. Every word is
+// indexed by its trigrams and by its one- and two-character prefixes, per field, with postings
+// kept as sorted int arrays of document slots. A query word of three or more characters matches
+// anywhere inside a word (like LIKE '%x%'); shorter query words match word prefixes. Name, SKU
+// and barcode candidates are verified against the stored text; description matches rely on the
+// trigrams alone so the descriptions themselves do not have to be held in memory.
+@Component
+public class ProductSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    public static final int MAX_RANKED_RESULTS = 10_000;
+
+    private static final int NAME = 0;
+    private static final int SKU = 1;
+    private static final int BARCODE = 2;
+    private static final int DESCRIPTION = 3;
+    private static final int[] FIELD_WEIGHTS = {8, 6, 4, 1};
+    private static final int PREFIX_BONUS = 2;
+    private static final int EXACT_CODE_BONUS = 10;
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate readOnly;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "product-search-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Guarded by lock; null until the first build finishes
+    private Index index;
+    // Changes made while a rebuild is reading the table, replayed onto the new index before it goes live
+    private List<Document> changesDuringRebuild;
+
+    public ProductSearchIndex(ProductRepository productRepository, PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    public record SearchResult(List<Long> productIds, int total) {
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return index != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Ranked product ids for one page of results; total counts all matches up to MAX_RANKED_RESULTS
+    public SearchResult search(String query, int offset, int limit) {
+        List<String> words = words(query);
+        lock.readLock().lock();
+        try {
+            if (index == null || words.isEmpty()) {
+                return new SearchResult(List.of(), 0);
+            }
+            return index.search(words, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Call after a product write has committed
+    public void put(Long id, String name, String sku, String barcode, String description) {
+        Document document = new Document(id, name, sku, barcode, description);
+        boolean compact;
+        lock.writeLock().lock();
+        try {
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(document);
+            }
+            if (index == null) {
+                return;
+            }
+            index.put(document);
+            compact = index.needsCompaction() && changesDuringRebuild == null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (compact) {
+            rebuildAsync();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuildAsync();
+    }
+
+    public void rebuildAsync() {
+        rebuildExecutor.execute(this::rebuild);
+    }
+
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            if (changesDuringRebuild != null) {
+                return;
+            }
+            changesDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long started = System.currentTimeMillis();
+        Index fresh = new Index();
+        try {
+            readOnly.executeWithoutResult(status -> {
+                try (Stream<Object[]> rows = productRepository.streamSearchFields()) {
+                    rows.forEach(row -> fresh.put(new Document((Long) row[0], (String) row[1], (String) row[2],
+                            (String) row[3], (String) row[4])));
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("Product search index rebuild failed; searches keep using the previous index", e);
+            lock.writeLock().lock();
+            try {
+                changesDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild.forEach(fresh::put);
+            changesDuringRebuild = null;
+            index = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Product search index built: {} products, {} postings lists in {} ms",
+                fresh.liveCount(), fresh.postings.size(), System.currentTimeMillis() - started);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    private static List<String> words(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        Set<String> words = new LinkedHashSet<>();
+        for (String word : normalize(text).split(" ")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return new ArrayList<>(words);
+    }
+
+    // Lower case, with every run of non-alphanumeric characters collapsed to one space
+    private static String normalize(String text) {
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean space = true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(c);
+                space = false;
+            } else if (!space) {
+                normalized.append(' ');
+                space = true;
+            }
+        }
+        int length = normalized.length();
+        return space && length > 0 ? normalized.substring(0, length - 1) : normalized.toString();
+    }
+
+    // field in the top byte, gram length in the next, then up to three 16-bit chars
+    private static long gramKey(int field, String word, int start, int length) {
+        long key = ((long) field << 56) | ((long) length << 48);
+        for (int i = 0; i < length; i++) {
+            key |= (long) word.charAt(start + i) << (16 * (2 - i));
+        }
+        return key;
+    }
+
+    private record Document(Long id, String name, String sku, String barcode, String description) {
+
+        private String field(int field) {
+            return switch (field) {
+                case NAME -> name;
+                case SKU -> sku;
+                case BARCODE -> barcode;
+                default -> description;
+            };
+        }
+    }
+
+    private static final class Index {
+        private final Map<Long, Postings> postings = new HashMap<>();
+        private final Map<Long, Integer> slotByProductId = new HashMap<>();
+        // Per slot; text fields kept normalized for verification (descriptions are not kept)
+        private long[] productIds = new long[1024];
+        private String[][] texts = new String[3][1024];
+        private final BitSet deleted = new BitSet();
+        private int slots;
+
+        private void put(Document document) {
+            // Updates never touch existing postings: the old slot is tombstoned and a new one appended
+            Integer previous = slotByProductId.get(document.id());
+            if (previous != null) {
+                deleted.set(previous);
+            }
+
+            int slot = slots++;
+            if (slot == productIds.length) {
+                productIds = Arrays.copyOf(productIds, slot * 2);
+                for (int field = 0; field < texts.length; field++) {
+                    texts[field] = Arrays.copyOf(texts[field], slot * 2);
+                }
+            }
+            productIds[slot] = document.id();
+            slotByProductId.put(document.id(), slot);
+
+            for (int field = NAME; field <= DESCRIPTION; field++) {
+                String text = document.field(field);
+                String normalized = text != null ? normalize(text) : "";
+                if (field != DESCRIPTION) {
+                    texts[field][slot] = normalized;
+                }
+                for (String word : normalized.split(" ")) {
+                    addWord(field, word, slot);
+                }
+            }
+        }
+
+        private void addWord(int field, String word, int slot) {
+            for (int length = 1; length <= Math.min(2, word.length()); length++) {
+                postings.computeIfAbsent(gramKey(field, word, 0, length), key -> new Postings()).add(slot);
+            }
+            for (int start = 0; start + 3 <= word.length(); start++) {
+                postings.computeIfAbsent(gramKey(field, word, start, 3), key -> new Postings()).add(slot);
+            }
+        }
+
+        private boolean needsCompaction() {
+            return slots > 1024 && deleted.cardinality() * 4L > slots;
+        }
+
+        private int liveCount() {
+            return slots - deleted.cardinality();
+        }
+
+        private SearchResult search(List<String> words, int offset, int limit) {
+            // Every query word must match in at least one field; scores add up across words. Words of
+            // three or more characters go first: their trigram intersections are small, and the short
+            // words after them are only checked against those candidates. Their prefix postings can
+            // cover most of the catalog, so they are never walked in full while a longer word narrows.
+            List<String> ordered = new ArrayList<>(words);
+            ordered.sort(Comparator.comparingLong(word -> word.length() >= 3 ? -1 : prefixCount(word)));
+
+            int[] docs = null;
+            int[] scores = null;
+            for (String word : ordered) {
+                int[][] matched = docs == null || word.length() >= 3 ? matchWord(word) : matchWordWithin(word, docs);
+                if (docs == null) {
+                    docs = matched[0];
+                    scores = matched[1];
+                } else {
+                    int[][] merged = intersect(docs, scores, matched[0], matched[1]);
+                    docs = merged[0];
+                    scores = merged[1];
+                }
+                if (docs.length == 0) {
+                    return new SearchResult(List.of(), 0);
+                }
+            }
+            return topResults(docs, scores, offset, limit);
+        }
+
+        // Sorted slots matching the word in any field, with the word's best field score for each
+        private int[][] matchWord(String word) {
+            int[] docs = new int[0];
+            int[] scores = new int[0];
+            for (int field = NAME; field <= DESCRIPTION; field++) {
+                int[] candidates;
+                int count;
+                if (word.length() < 3) {
+                    // Prefix postings are read in place rather than copied
+                    Postings prefix = postings.get(gramKey(field, word, 0, word.length()));
+                    if (prefix == null) {
+                        continue;
+                    }
+                    candidates = prefix.docs;
+                    count = prefix.size;
+                } else {
+                    candidates = trigramCandidates(field, word);
+                    count = candidates.length;
+                }
+                int[][] fieldMatches = score(field, word, candidates, count);
+                int[][] merged = union(docs, scores, fieldMatches[0], fieldMatches[1]);
+                docs = merged[0];
+                scores = merged[1];
+            }
+            return new int[][]{docs, scores};
+        }
+
+        // Like matchWord for a word shorter than three characters, but only over the given sorted
+        // slots: each is looked up in the word's prefix postings instead of walking them
+        private int[][] matchWordWithin(String word, int[] within) {
+            int[] docs = new int[0];
+            int[] scores = new int[0];
+            for (int field = NAME; field <= DESCRIPTION; field++) {
+                Postings prefix = postings.get(gramKey(field, word, 0, word.length()));
+                if (prefix == null) {
+                    continue;
+                }
+                int[] candidates = new int[Math.min(within.length, prefix.size)];
+                int count = 0;
+                int from = 0;
+                for (int slot : within) {
+                    if (count == candidates.length) {
+                        break;
+                    }
+                    int at = Arrays.binarySearch(prefix.docs, from, prefix.size, slot);
+                    if (at >= 0) {
+                        candidates[count++] = slot;
+                        from = at + 1;
+                    } else {
+                        from = -at - 1;
+                    }
+                    if (from == prefix.size) {
+                        break;
+                    }
+                }
+                int[][] fieldMatches = score(field, word, candidates, count);
+                int[][] merged = union(docs, scores, fieldMatches[0], fieldMatches[1]);
+                docs = merged[0];
+                scores = merged[1];
+            }
+            return new int[][]{docs, scores};
+        }
+
+        // Verifies the first count candidates against the stored text and scores the survivors
+        private int[][] score(int field, String word, int[] candidates, int count) {
+            int[] fieldDocs = new int[count];
+            int[] fieldScores = new int[count];
+            int matched = 0;
+            for (int i = 0; i < count; i++) {
+                int slot = candidates[i];
+                if (deleted.get(slot)) {
+                    continue;
+                }
+                int score = FIELD_WEIGHTS[field];
+                if (field != DESCRIPTION) {
+                    String text = texts[field][slot];
+                    int at = word.length() >= 3 ? text.indexOf(word) : wordPrefixAt(text, word);
+                    if (at < 0) {
+                        continue;
+                    }
+                    if (at == 0) {
+                        score += PREFIX_BONUS;
+                    }
+                    if (field != NAME && text.equals(word)) {
+                        score += EXACT_CODE_BONUS;
+                    }
+                }
+                fieldDocs[matched] = slot;
+                fieldScores[matched++] = score;
+            }
+            return new int[][]{Arrays.copyOf(fieldDocs, matched), Arrays.copyOf(fieldScores, matched)};
+        }
+
+        // Slots holding a word that starts with the short word, summed over fields
+        private long prefixCount(String word) {
+            long count = 0;
+            for (int field = NAME; field <= DESCRIPTION; field++) {
+                Postings prefix = postings.get(gramKey(field, word, 0, word.length()));
+                if (prefix != null) {
+                    count += prefix.size;
+                }
+            }
+            return count;
+        }
+
+        private int[] trigramCandidates(int field, String word) {
+            // Intersect trigram postings, rarest first, so the working set shrinks as fast as possible
+            List<Postings> lists = new ArrayList<>(word.length() - 2);
+            for (int start = 0; start + 3 <= word.length(); start++) {
+                Postings gram = postings.get(gramKey(field, word, start, 3));
+                if (gram == null) {
+                    return new int[0];
+                }
+                lists.add(gram);
+            }
+            lists.sort((a, b) -> Integer.compare(a.size, b.size));
+
+            int[] result = Arrays.copyOf(lists.get(0).docs, lists.get(0).size);
+            for (int i = 1; i < lists.size() && result.length > 0; i++) {
+                result = intersect(result, lists.get(i).docs, lists.get(i).size);
+            }
+            return result;
+        }
+
+        private static int wordPrefixAt(String text, String prefix) {
+            for (int at = text.indexOf(prefix); at >= 0; at = text.indexOf(prefix, at + 1)) {
+                if (at == 0 || text.charAt(at - 1) == ' ') {
+                    return at;
+                }
+            }
+            return -1;
+        }
+
+        private SearchResult topResults(int[] docs, int[] scores, int offset, int limit) {
+            int total = Math.min(docs.length, MAX_RANKED_RESULTS);
+            int wanted = Math.min(offset + limit, total);
+            if (offset >= wanted) {
+                return new SearchResult(List.of(), total);
+            }
+
+            TopK top = new TopK(wanted);
+            for (int i = 0; i < docs.length; i++) {
+                top.offer(scores[i], docs[i]);
+            }
+            List<Long> ids = new ArrayList<>(wanted - offset);
+            for (int slot : top.slots(offset)) {
+                ids.add(productIds[slot]);
+            }
+            return new SearchResult(ids, total);
+        }
+
+        private static int[] intersect(int[] a, int[] b, int bSize) {
+            int[] result = new int[Math.min(a.length, bSize)];
+            int i = 0;
+            int j = 0;
+            int count = 0;
+            while (i < a.length && j < bSize) {
+                if (a[i] < b[j]) {
+                    i++;
+                } else if (a[i] > b[j]) {
+                    j++;
+                } else {
+                    result[count++] = a[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+
+        // Docs in both lists; scores are added
+        private static int[][] intersect(int[] aDocs, int[] aScores, int[] bDocs, int[] bScores) {
+            int[] docs = new int[Math.min(aDocs.length, bDocs.length)];
+            int[] scores = new int[docs.length];
+            int i = 0;
+            int j = 0;
+            int count = 0;
+            while (i < aDocs.length && j < bDocs.length) {
+                if (aDocs[i] < bDocs[j]) {
+                    i++;
+                } else if (aDocs[i] > bDocs[j]) {
+                    j++;
+                } else {
+                    docs[count] = aDocs[i];
+                    scores[count++] = aScores[i++] + bScores[j++];
+                }
+            }
+            return new int[][]{Arrays.copyOf(docs, count), Arrays.copyOf(scores, count)};
+        }
+
+        // Docs in either list; a doc in both keeps its better score
+        private static int[][] union(int[] aDocs, int[] aScores, int[] bDocs, int[] bScores) {
+            int[] docs = new int[aDocs.length + bDocs.length];
+            int[] scores = new int[docs.length];
+            int i = 0;
+            int j = 0;
+            int count = 0;
+            while (i < aDocs.length || j < bDocs.length) {
+                if (j == bDocs.length || (i < aDocs.length && aDocs[i] < bDocs[j])) {
+                    docs[count] = aDocs[i];
+                    scores[count++] = aScores[i++];
+                } else if (i == aDocs.length || bDocs[j] < aDocs[i]) {
+                    docs[count] = bDocs[j];
+                    scores[count++] = bScores[j++];
+                } else {
+                    docs[count] = aDocs[i];
+                    scores[count++] = Math.max(aScores[i++], bScores[j++]);
+                }
+            }
+            return new int[][]{Arrays.copyOf(docs, count), Arrays.copyOf(scores, count)};
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.erp.backend.service;
 
+import com.erp.backend.dto.CursorPage;
 import com.erp.backend.dto.ProductDTO;
 import com.erp.backend.exception.ResourceNotFoundException;
 import com.erp.backend.model.Category;
@@ -9,13 +10,21 @@ import com.erp.backend.repository.CategoryRepository;
 import com.erp.backend.repository.ProductRepository;
 import com.erp.backend.repository.SupplierRepository;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ProductService {
@@ -24,15 +33,27 @@ public class ProductService {
     private final CategoryRepository categoryRepository;
     private final SupplierRepository supplierRepository;
     private final UserService userService;
+    private final InventoryService inventoryService;
+    private final ProductCatalogCache productCatalogCache;
+    private final CategoryTreeIndex categoryTreeIndex;
+    private final ProductSearchIndex productSearchIndex;
 
     public ProductService(ProductRepository productRepository,
                          CategoryRepository categoryRepository,
                          SupplierRepository supplierRepository,
-                         UserService userService) {
+                         UserService userService,
+                         InventoryService inventoryService,
+                         ProductCatalogCache productCatalogCache,
+                         CategoryTreeIndex categoryTreeIndex,
+                         ProductSearchIndex productSearchIndex) {
         this.productRepository = productRepository;
         this.categoryRepository = categoryRepository;
         this.supplierRepository = supplierRepository;
         this.userService = userService;
+        this.inventoryService = inventoryService;
+        this.productCatalogCache = productCatalogCache;
+        this.categoryTreeIndex = categoryTreeIndex;
+        this.productSearchIndex = productSearchIndex;
     }
 
     public Page<Product> getAllProducts(Pageable pageable) {
@@ -43,8 +64,30 @@ public class ProductService {
         return productRepository.findByActive(true, pageable);
     }
 
+    public CursorPage<Product> getProductsAfter(boolean activeOnly, String after, Integer limit) {
+        KeysetCursor cursor = KeysetCursor.afterId(after);
+        int pageSize = KeysetCursor.limit(limit);
+        Pageable pageable = PageRequest.of(0, pageSize, Sort.by("id"));
+        Slice<Product> products = activeOnly
+                ? productRepository.findByActiveAndIdGreaterThan(true, cursor.getId(), pageable)
+                : productRepository.findByIdGreaterThan(cursor.getId(), pageable);
+        return KeysetCursor.page(products, pageSize, Product::getId);
+    }
+
+    // Ranked by relevance from the in-memory index; the LIKE scan only serves while the index is still building
     public Page<Product> searchProducts(String name, Pageable pageable) {
-        return productRepository.findByNameContainingIgnoreCase(name, pageable);
+        if (!productSearchIndex.isReady()) {
+            return productRepository.findByNameContainingIgnoreCase(name, pageable);
+        }
+
+        ProductSearchIndex.SearchResult result = productSearchIndex.search(name, (int) pageable.getOffset(), pageable.getPageSize());
+        Map<Long, Product> products = productRepository.findAllById(result.productIds()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<Product> ranked = result.productIds().stream()
+                .map(products::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new PageImpl<>(ranked, pageable, result.total());
     }
 
     public Page<Product> getProductsByCategory(Long categoryId, Pageable pageable) {
@@ -58,7 +101,8 @@ public class ProductService {
         if (!categoryRepository.existsById(categoryId)) {
             throw new ResourceNotFoundException("Category not found with id: " + categoryId);
         }
-        return productRepository.findByCategoryOrParentCategory(categoryId, pageable);
+        // Whole subtree at any depth from the in-memory index, then one IN query
+        return productRepository.findByCategoryIdIn(categoryTreeIndex.getDescendantIds(categoryId), pageable);
     }
 
     public Page<Product> getProductsBySupplier(Long supplierId, Pageable pageable) {
@@ -69,10 +113,15 @@ public class ProductService {
     }
 
     public Product getProductById(Long id) {
-        return productRepository.findById(id)
+        return productCatalogCache.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
     }
 
+    public Product getProductBySku(String sku) {
+        return productCatalogCache.findBySku(sku)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with SKU: " + sku));
+    }
+
     @Transactional
     public Product createProduct(ProductDTO productDTO) {
         // Validate SKU uniqueness
@@ -86,15 +135,20 @@ public class ProductService {
         // Set created by user if authenticated
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication != null && authentication.isAuthenticated()) {
-            product.setCreatedBy(userService.loadUserByUsername(authentication.getName()));
+            product.setCreatedBy(userService.findByUsername(authentication.getName()));
         }
 
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        inventoryService.stockOverwritten(savedProduct.getId());
+        indexAfterCommit(savedProduct);
+        return savedProduct;
     }
 
     @Transactional
     public Product updateProduct(Long id, ProductDTO productDTO) {
-        Product product = getProductById(id);
+        // Writes work on the managed entity, never on a cached snapshot
+        Product product = loadProduct(id);
+        String previousSku = product.getSku();
         
         // Check if SKU is being changed and if the new SKU already exists
         if (!product.getSku().equals(productDTO.getSku()) && productRepository.existsBySku(productDTO.getSku())) {
@@ -102,34 +156,52 @@ public class ProductService {
         }
         
         mapDtoToEntity(productDTO, product);
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        inventoryService.stockOverwritten(savedProduct.getId());
+        TransactionCallbacks.afterCommit(() -> productCatalogCache.evict(id, previousSku, savedProduct.getSku()));
+        indexAfterCommit(savedProduct);
+        return savedProduct;
     }
 
     @Transactional
     public void deleteProduct(Long id) {
-        Product product = getProductById(id);
+        Product product = loadProduct(id);
         
         // Instead of deleting, mark as inactive
         product.setActive(false);
         productRepository.save(product);
+        TransactionCallbacks.afterCommit(() -> productCatalogCache.evict(id, product.getSku()));
     }
 
     public List<Product> getLowStockProducts() {
         return productRepository.findLowStockProducts();
     }
 
-    @Transactional
+    // Not transactional: the adjustment commits on its own (possibly coalesced with others)
+    // and the product is read afterwards so the response reflects the committed stock
     public Product updateStock(Long id, Integer quantity) {
-        Product product = getProductById(id);
-        
-        // Validate quantity
-        if (product.getStockQuantity() + quantity < 0) {
-            throw new IllegalArgumentException("Cannot reduce stock below zero. Current stock: " + 
-                    product.getStockQuantity() + ", Requested change: " + quantity);
+        if (!productRepository.existsById(id)) {
+            throw new ResourceNotFoundException("Product not found with id: " + id);
         }
-        
-        product.setStockQuantity(product.getStockQuantity() + quantity);
-        return productRepository.save(product);
+
+        inventoryService.adjustStock(id, quantity);
+        productCatalogCache.evictStock(id);
+        return getProductById(id);
+    }
+
+    // Values are captured now; the entity may be detached or changed again by the time the commit completes
+    private void indexAfterCommit(Product product) {
+        Long id = product.getId();
+        String name = product.getName();
+        String sku = product.getSku();
+        String barcode = product.getBarcode();
+        String description = product.getDescription();
+        TransactionCallbacks.afterCommit(() -> productSearchIndex.put(id, name, sku, barcode, description));
+    }
+
+    private Product loadProduct(Long id) {
+        return productRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
     }
 
     private void mapDtoToEntity(ProductDTO dto, Product entity) {
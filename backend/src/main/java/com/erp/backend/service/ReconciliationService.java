@@ -0,0 +1,423 @@
+package com.erp.backend.service;
+
+import com.erp.backend.dto.PaymentDTO;
+import com.erp.backend.dto.ReconciliationReport;
+import com.erp.backend.exception.ResourceNotFoundException;
+import com.erp.backend.exception.ServiceBusyException;
+import com.erp.backend.model.Invoice;
+import com.erp.backend.model.Payment;
+import com.erp.backend.repository.InvoiceRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Reconciles bank statement CSVs against open invoices. Invoices are paged into an InvoiceMatchIndex
+// once per job, the closed ones by number only, then the statement is streamed from disk twice: the first pass takes
+// exact matches only and the second tries the lines still open within erp.reconciliation.amount-tolerance,
+// so a near miss never takes an invoice that a later line pays exactly. Matches are posted through
+// PaymentService in batches, and the lines left over are written to a report next to the statement,
+// which the job report names relative to the statement directory.
+// The database sees one query per index page and one posting per batch, however long the statement.
+@Service
+public class ReconciliationService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReconciliationService.class);
+
+    private static final long JOB_RETENTION_HOURS = 24;
+    private static final int INDEX_PAGE_SIZE = 10_000;
+    private static final int MAX_REFERENCE_LENGTH = 255;
+    private static final List<String> REQUIRED_COLUMNS = List.of("amount");
+
+    private final InvoiceRepository invoiceRepository;
+    private final PaymentService paymentService;
+    private final Path directory;
+    private final long toleranceCents;
+    private final int postBatchSize;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, ReconciliationJob> jobs = new ConcurrentHashMap<>();
+    private final AtomicInteger runningCount = new AtomicInteger();
+    private final LongAdder processedLines = new LongAdder();
+    private final LongAdder matchedLines = new LongAdder();
+
+    public ReconciliationService(InvoiceRepository invoiceRepository,
+                                 PaymentService paymentService,
+                                 @Value("${erp.reconciliation.directory:statements}") String directory,
+                                 @Value("${erp.reconciliation.amount-tolerance:0.05}") BigDecimal amountTolerance,
+                                 @Value("${erp.reconciliation.post-batch-size:1000}") int postBatchSize) {
+        this.invoiceRepository = invoiceRepository;
+        this.paymentService = paymentService;
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+        this.toleranceCents = InvoiceMatchIndex.cents(amountTolerance.abs());
+        this.postBatchSize = Math.max(1, postBatchSize);
+        // One job at a time: two jobs indexing the same invoices would both match them
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(4),
+                daemonThreads("reconciliation-"), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // Queues reconciliation of a statement in the statement directory and returns straight away
+    public ReconciliationReport start(String fileName) {
+        Path statement = directory.resolve(fileName).normalize();
+        if (!statement.startsWith(directory) || statement.equals(directory)) {
+            throw new IllegalArgumentException("Statement file must be inside the statement directory");
+        }
+        if (!Files.isRegularFile(statement)) {
+            throw new ResourceNotFoundException("Statement file not found: " + fileName);
+        }
+
+        jobs.values().removeIf(job -> job.finishedAt != null
+                && job.finishedAt.isBefore(LocalDateTime.now().minusHours(JOB_RETENTION_HOURS)));
+        ReconciliationJob job = new ReconciliationJob(UUID.randomUUID().toString(), directory, statement);
+        jobs.put(job.id, job);
+        try {
+            // Runs as the caller, so the posted payments record who reconciled them
+            executor.execute(new DelegatingSecurityContextRunnable(() -> run(job)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw new ServiceBusyException("Too many reconciliations queued, please retry later");
+        }
+        return job.toReport();
+    }
+
+    public ReconciliationReport getReport(String jobId) {
+        ReconciliationJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new ResourceNotFoundException("Reconciliation not found with id: " + jobId);
+        }
+        return job.toReport();
+    }
+
+    public int getRunningCount() {
+        return runningCount.get();
+    }
+
+    public long getProcessedLineCount() {
+        return processedLines.sum();
+    }
+
+    public long getMatchedLineCount() {
+        return matchedLines.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(ReconciliationJob job) {
+        runningCount.incrementAndGet();
+        job.runningSince = LocalDateTime.now();
+        try {
+            reconcile(job);
+            job.complete();
+            log.info("Reconciliation {} of {}: {} of {} lines matched ({} exact, {} within tolerance)", job.id,
+                    job.statement.getFileName(), job.matchedExact.get() + job.matchedWithinTolerance.get(),
+                    job.linesRead.get(), job.matchedExact.get(), job.matchedWithinTolerance.get());
+        } catch (Exception e) {
+            job.fail(e);
+            log.warn("Reconciliation {} of {} failed after {} lines: {}", job.id, job.statement.getFileName(),
+                    job.linesRead.get(), e.toString());
+        } finally {
+            runningCount.decrementAndGet();
+        }
+    }
+
+    private void reconcile(ReconciliationJob job) throws IOException {
+        job.status = "INDEXING";
+        InvoiceMatchIndex index = loadInvoices();
+        job.invoicesIndexed = index.size();
+
+        // Statement lines already posted, by line number, so the tolerance pass skips them
+        BitSet matched = new BitSet();
+        job.status = "EXACT";
+        matchPass(job, index, matched, null);
+
+        job.status = "TOLERANCE";
+        try (Writer unmatched = Files.newBufferedWriter(job.unmatchedFile, StandardCharsets.UTF_8)) {
+            unmatched.write("line,amount,reference,taxId,reason\n");
+            matchPass(job, index, matched, unmatched);
+        }
+    }
+
+    // Closed invoices are indexed by number only, so a line quoting one is reported rather than matched elsewhere
+    private InvoiceMatchIndex loadInvoices() {
+        InvoiceMatchIndex index = new InvoiceMatchIndex();
+        long afterId = 0;
+        List<Object[]> page;
+        do {
+            page = invoiceRepository.findMatchKeys(afterId, PageRequest.of(0, INDEX_PAGE_SIZE));
+            for (Object[] row : page) {
+                Invoice.InvoiceStatus status = (Invoice.InvoiceStatus) row[4];
+                if (status == Invoice.InvoiceStatus.PAID) {
+                    index.addPaid((String) row[1]);
+                } else if (status == Invoice.InvoiceStatus.CANCELLED || status == Invoice.InvoiceStatus.REFUNDED) {
+                    index.addClosed((String) row[1]);
+                } else {
+                    index.add((Long) row[0], (String) row[1], (BigDecimal) row[2], (String) row[3]);
+                }
+            }
+            if (!page.isEmpty()) {
+                afterId = (Long) page.get(page.size() - 1)[0];
+            }
+        } while (page.size() == INDEX_PAGE_SIZE);
+        return index;
+    }
+
+    // Exact pass when unmatched is null; otherwise the tolerance pass, which also reports what is left
+    private void matchPass(ReconciliationJob job, InvoiceMatchIndex index, BitSet matched, Writer unmatched)
+            throws IOException {
+        boolean tolerance = unmatched != null;
+        List<PendingPayment> pending = new ArrayList<>(postBatchSize);
+        try (Reader in = Files.newBufferedReader(job.statement, StandardCharsets.UTF_8)) {
+            CsvRecordReader records = new CsvRecordReader(in, REQUIRED_COLUMNS);
+            String[] row;
+            while ((row = records.next()) != null) {
+                int line = Math.toIntExact(records.line());
+                if (matched.get(line)) {
+                    continue;
+                }
+                if (!tolerance) {
+                    job.linesRead.incrementAndGet();
+                    processedLines.increment();
+                }
+
+                StatementLine statementLine;
+                try {
+                    statementLine = parse(records, row, line);
+                } catch (IllegalArgumentException e) {
+                    if (tolerance) {
+                        writeUnmatched(job, unmatched, line, records.value(row, "amount"),
+                                records.value(row, "reference"), records.value(row, "taxid"), e.getMessage());
+                    }
+                    continue;
+                }
+
+                InvoiceMatchIndex.Match match = tolerance
+                        ? index.matchWithin(statementLine.reference(), statementLine.taxId(), statementLine.cents(), toleranceCents)
+                        : index.matchExact(statementLine.reference(), statementLine.taxId(), statementLine.cents());
+                if (match.invoice() == null) {
+                    if (tolerance) {
+                        writeUnmatched(job, unmatched, statementLine, match.reason());
+                    }
+                    continue;
+                }
+
+                index.take(match.invoice(), statementLine.cents());
+                matched.set(line);
+                pending.add(new PendingPayment(statementLine, match.invoice()));
+                if (pending.size() == postBatchSize) {
+                    post(job, pending, tolerance, index, matched, unmatched);
+                    pending.clear();
+                }
+            }
+        }
+        if (!pending.isEmpty()) {
+            post(job, pending, tolerance, index, matched, unmatched);
+        }
+    }
+
+    private StatementLine parse(CsvRecordReader records, String[] row, long line) {
+        BigDecimal amount = records.parseDecimal(row, "amount", line);
+        if (amount == null) {
+            throw new IllegalArgumentException("amount is required");
+        }
+        if (amount.signum() <= 0) {
+            throw new IllegalArgumentException("Not a credit");
+        }
+        return new StatementLine(line, amount, InvoiceMatchIndex.cents(amount), records.value(row, "reference"),
+                records.value(row, "taxid"), parseDate(records, row, line), parseMethod(records, row, line));
+    }
+
+    // Statements usually carry a booking date only; a date-time is taken as given
+    private LocalDateTime parseDate(CsvRecordReader records, String[] row, long line) {
+        String value = records.value(row, "date");
+        try {
+            if (value == null) {
+                return null;
+            }
+            return value.length() == 10 ? LocalDate.parse(value).atStartOfDay() : LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw records.invalid("date", value, line);
+        }
+    }
+
+    private Payment.PaymentMethod parseMethod(CsvRecordReader records, String[] row, long line) {
+        String value = records.value(row, "paymentmethod");
+        try {
+            return value != null ? Payment.PaymentMethod.valueOf(value.toUpperCase(Locale.ROOT))
+                    : Payment.PaymentMethod.BANK_TRANSFER;
+        } catch (IllegalArgumentException e) {
+            throw records.invalid("paymentmethod", value, line);
+        }
+    }
+
+    private void post(ReconciliationJob job, List<PendingPayment> pending, boolean tolerance,
+                      InvoiceMatchIndex index, BitSet matched, Writer unmatched) throws IOException {
+        List<PaymentDTO> payments = new ArrayList<>(pending.size());
+        for (PendingPayment payment : pending) {
+            payments.add(toPayment(job, payment, tolerance));
+        }
+        try {
+            paymentService.createPayments(payments);
+            pending.forEach(payment -> job.posted(payment.line().cents(), tolerance));
+            matchedLines.add(pending.size());
+        } catch (IllegalArgumentException | ResourceNotFoundException e) {
+            // An invoice was closed or deleted after indexing; post one at a time so only its lines are left over
+            log.debug("Reconciliation {} batch failed, posting payments individually: {}", job.id, e.getMessage());
+            for (int i = 0; i < pending.size(); i++) {
+                PendingPayment payment = pending.get(i);
+                try {
+                    paymentService.createPayment(payments.get(i));
+                    job.posted(payment.line().cents(), tolerance);
+                    matchedLines.increment();
+                } catch (IllegalArgumentException | ResourceNotFoundException paymentFailure) {
+                    index.close(payment.invoice());
+                    // After the exact pass the line gets another chance in the tolerance pass
+                    matched.clear((int) payment.line().line());
+                    if (unmatched != null) {
+                        writeUnmatched(job, unmatched, payment.line(), "Posting failed: " + paymentFailure.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    private PaymentDTO toPayment(ReconciliationJob job, PendingPayment pending, boolean tolerance) {
+        StatementLine line = pending.line();
+        PaymentDTO payment = new PaymentDTO();
+        payment.setInvoiceId(pending.invoice().getId());
+        payment.setAmount(line.amount());
+        payment.setPaymentDate(line.date());
+        payment.setPaymentMethod(line.method());
+        String reference = line.reference();
+        payment.setReferenceNumber(reference != null && reference.length() > MAX_REFERENCE_LENGTH
+                ? reference.substring(0, MAX_REFERENCE_LENGTH) : reference);
+        payment.setNotes("Reconciliation " + job.id + ", statement line " + line.line()
+                + (tolerance ? ", matched within tolerance" : ""));
+        return payment;
+    }
+
+    private void writeUnmatched(ReconciliationJob job, Writer out, StatementLine line, String reason) throws IOException {
+        writeUnmatched(job, out, line.line(), line.amount().toPlainString(), line.reference(), line.taxId(), reason);
+    }
+
+    private void writeUnmatched(ReconciliationJob job, Writer out, long line, String amount, String reference,
+                                String taxId, String reason) throws IOException {
+        out.write(line + "," + csv(amount) + "," + csv(reference) + "," + csv(taxId) + "," + csv(reason) + "\n");
+        job.unmatched.incrementAndGet();
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record StatementLine(long line, BigDecimal amount, long cents, String reference, String taxId,
+                                 LocalDateTime date, Payment.PaymentMethod method) {
+    }
+
+    private record PendingPayment(StatementLine line, InvoiceMatchIndex.OpenInvoice invoice) {
+    }
+
+    private static final class ReconciliationJob {
+        private final String id;
+        private final Path statement;
+        private final Path unmatchedFile;
+        private final String unmatchedFileName;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final AtomicLong linesRead = new AtomicLong();
+        private final AtomicLong matchedExact = new AtomicLong();
+        private final AtomicLong matchedWithinTolerance = new AtomicLong();
+        private final AtomicLong unmatched = new AtomicLong();
+        private final AtomicLong postedCents = new AtomicLong();
+        private volatile String status = "QUEUED";
+        private volatile long invoicesIndexed;
+        private volatile LocalDateTime runningSince;
+        private volatile String error;
+        private volatile LocalDateTime finishedAt;
+
+        private ReconciliationJob(String id, Path directory, Path statement) {
+            this.id = id;
+            this.statement = statement;
+            this.unmatchedFile = statement.resolveSibling("reconciliation-" + id + "-unmatched.csv");
+            this.unmatchedFileName = directory.relativize(unmatchedFile).toString();
+        }
+
+        private void posted(long cents, boolean tolerance) {
+            (tolerance ? matchedWithinTolerance : matchedExact).incrementAndGet();
+            postedCents.addAndGet(cents);
+        }
+
+        private void complete() {
+            status = "COMPLETED";
+            finishedAt = LocalDateTime.now();
+        }
+
+        private void fail(Exception e) {
+            status = "FAILED";
+            error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            finishedAt = LocalDateTime.now();
+        }
+
+        private ReconciliationReport toReport() {
+            long lines = linesRead.get();
+            long matched = matchedExact.get() + matchedWithinTolerance.get();
+            Double matchRate = lines > 0 ? Math.round(10_000.0 * matched / lines) / 100.0 : null;
+            Double linesPerSecond = null;
+            if (runningSince != null) {
+                long millis = Duration.between(runningSince, finishedAt != null ? finishedAt : LocalDateTime.now()).toMillis();
+                linesPerSecond = millis > 0 ? Math.round(lines * 1000.0 / millis * 10) / 10.0 : null;
+            }
+            return new ReconciliationReport(id, status, statement.getFileName().toString(), invoicesIndexed, lines,
+                    matchedExact.get(), matchedWithinTolerance.get(), unmatched.get(),
+                    BigDecimal.valueOf(postedCents.get(), 2), matchRate, linesPerSecond,
+                    Files.exists(unmatchedFile) ? unmatchedFileName : null, error, startedAt, finishedAt);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.erp.backend.service;
+
+import com.erp.backend.model.Order;
+import com.erp.backend.repository.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Cancels orders that were never paid within the reservation TTL, returning their stock
+@Component
+public class ReservationExpiryJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationExpiryJob.class);
+    private static final int BATCH_SIZE = 100;
+
+    private final OrderRepository orderRepository;
+    private final OrderService orderService;
+    private final long ttlMinutes;
+
+    public ReservationExpiryJob(OrderRepository orderRepository,
+                                OrderService orderService,
+                                @Value("${erp.inventory.reservation-ttl-minutes:0}") long ttlMinutes) {
+        this.orderRepository = orderRepository;
+        this.orderService = orderService;
+        this.ttlMinutes = ttlMinutes;
+    }
+
+    @Scheduled(fixedDelayString = "${erp.inventory.reservation-expiry-interval-ms:60000}")
+    public void expireReservations() {
+        if (ttlMinutes <= 0) {
+            return;
+        }
+
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(ttlMinutes);
+        List<Order> expired = orderRepository.findByStatusAndPaymentStatusAndCreatedAtBefore(
+                Order.OrderStatus.PENDING, Order.PaymentStatus.PENDING, cutoff,
+                PageRequest.of(0, BATCH_SIZE, Sort.by("createdAt")));
+
+        int cancelled = 0;
+        for (Order order : expired) {
+            try {
+                orderService.cancelOrder(order.getId());
+                cancelled++;
+            } catch (RuntimeException e) {
+                // Paid or changed since it was read; the next run sees its current state
+                log.warn("Could not expire order {}", order.getOrderNumber(), e);
+            }
+        }
+        if (cancelled > 0) {
+            log.info("Expired {} unpaid orders older than {} minutes", cancelled, ttlMinutes);
+        }
+    }
+}
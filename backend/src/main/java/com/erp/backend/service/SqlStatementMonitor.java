@@ -0,0 +1,203 @@
+package com.erp.backend.service;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Sees every JDBC execution through the proxied DataSource. Executions are counted against the
+// request scope of the calling thread (see SqlStatsFilter) and in process-wide totals; any slower
+// than the threshold goes into a fixed ring buffer of recent slow queries. A JDBC batch is one
+// execution, since a round trip is what the budget is about. Only bind parameter types are kept,
+// never values.
+@Component
+public class SqlStatementMonitor implements QueryExecutionListener {
+
+    private static final String STARTED = "erp.started";
+    private static final int MAX_SQL_LENGTH = 2000;
+    // Distinct statements tracked per request for the "most repeated" report
+    private static final int MAX_DISTINCT_PER_REQUEST = 200;
+
+    private final long slowThresholdNanos;
+    private final SlowQuery[] slowQueries;
+    private final ReentrantLock slowQueryLock = new ReentrantLock();
+    private int slowQueryNext;
+
+    private final ThreadLocal<RequestStats> currentRequest = new ThreadLocal<>();
+    private final LongAdder statementCount = new LongAdder();
+    private final LongAdder totalStatementNanos = new LongAdder();
+    private final LongAdder slowStatementCount = new LongAdder();
+
+    public SqlStatementMonitor(@Value("${erp.sql.slow-query.threshold-ms:200}") long slowThresholdMs,
+                               @Value("${erp.sql.slow-query.buffer-size:100}") int bufferSize) {
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMs);
+        this.slowQueries = new SlowQuery[Math.max(1, bufferSize)];
+    }
+
+    // Starts counting for the current thread; pair with end() in a finally block
+    public RequestStats begin(String request) {
+        RequestStats stats = new RequestStats(request);
+        currentRequest.set(stats);
+        return stats;
+    }
+
+    public void end() {
+        currentRequest.remove();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        execInfo.addCustomValue(STARTED, System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Long started = execInfo.getCustomValue(STARTED, Long.class);
+        long elapsed = started != null ? System.nanoTime() - started : TimeUnit.MILLISECONDS.toNanos(execInfo.getElapsedTime());
+        statementCount.increment();
+        totalStatementNanos.add(elapsed);
+
+        String sql = queryInfoList.isEmpty() ? "" : queryInfoList.get(0).getQuery();
+        RequestStats stats = currentRequest.get();
+        if (stats != null) {
+            stats.record(sql, elapsed);
+        }
+        if (elapsed >= slowThresholdNanos) {
+            slowStatementCount.increment();
+            recordSlowQuery(execInfo, queryInfoList, elapsed, stats);
+        }
+    }
+
+    // Slowest first
+    public List<SlowQuery> getSlowQueries() {
+        List<SlowQuery> snapshot = new ArrayList<>(slowQueries.length);
+        slowQueryLock.lock();
+        try {
+            for (SlowQuery query : slowQueries) {
+                if (query != null) {
+                    snapshot.add(query);
+                }
+            }
+        } finally {
+            slowQueryLock.unlock();
+        }
+        snapshot.sort(Comparator.comparingDouble(SlowQuery::elapsedMs).reversed());
+        return snapshot;
+    }
+
+    public long getStatementCount() {
+        return statementCount.sum();
+    }
+
+    public long getTotalStatementNanos() {
+        return totalStatementNanos.sum();
+    }
+
+    public long getSlowStatementCount() {
+        return slowStatementCount.sum();
+    }
+
+    private void recordSlowQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList, long elapsed, RequestStats stats) {
+        List<String> statements = new ArrayList<>(queryInfoList.size());
+        List<String> bindShapes = new ArrayList<>(queryInfoList.size());
+        for (QueryInfo queryInfo : queryInfoList) {
+            String sql = queryInfo.getQuery();
+            statements.add(sql.length() > MAX_SQL_LENGTH ? sql.substring(0, MAX_SQL_LENGTH) + "..." : sql);
+            List<List<ParameterSetOperation>> parameters = queryInfo.getParametersList();
+            bindShapes.add(parameters.isEmpty() ? "()" : bindShape(parameters.get(0)));
+        }
+        SlowQuery slowQuery = new SlowQuery(Instant.now(), elapsed / 1_000_000.0, statements, bindShapes,
+                execInfo.isBatch() ? execInfo.getBatchSize() : 1, execInfo.isSuccess(),
+                stats != null ? stats.getRequest() : null, Thread.currentThread().getName());
+
+        slowQueryLock.lock();
+        try {
+            slowQueries[slowQueryNext] = slowQuery;
+            slowQueryNext = (slowQueryNext + 1) % slowQueries.length;
+        } finally {
+            slowQueryLock.unlock();
+        }
+    }
+
+    // "(Long, String, null)": the Java type bound to each placeholder, in parameter order
+    private static String bindShape(List<ParameterSetOperation> operations) {
+        ParameterSetOperation[] sorted = operations.toArray(new ParameterSetOperation[0]);
+        Arrays.sort(sorted, Comparator.comparingInt(operation ->
+                operation.getArgs()[0] instanceof Integer index ? index : Integer.MAX_VALUE));
+        StringBuilder shape = new StringBuilder("(");
+        for (ParameterSetOperation operation : sorted) {
+            if (shape.length() > 1) {
+                shape.append(", ");
+            }
+            Object[] args = operation.getArgs();
+            if (ParameterSetOperation.isSetNullParameterOperation(operation) || args.length < 2 || args[1] == null) {
+                shape.append("null");
+            } else {
+                shape.append(args[1].getClass().getSimpleName());
+            }
+        }
+        return shape.append(')').toString();
+    }
+
+    public static final class RequestStats {
+        private final String request;
+        private final Map<String, int[]> countsBySql = new HashMap<>();
+        private int statements;
+        private long statementNanos;
+
+        private RequestStats(String request) {
+            this.request = request;
+        }
+
+        private void record(String sql, long elapsed) {
+            statements++;
+            statementNanos += elapsed;
+            int[] count = countsBySql.get(sql);
+            if (count != null) {
+                count[0]++;
+            } else if (countsBySql.size() < MAX_DISTINCT_PER_REQUEST) {
+                countsBySql.put(sql, new int[]{1});
+            }
+        }
+
+        public String getRequest() {
+            return request;
+        }
+
+        public int getStatements() {
+            return statements;
+        }
+
+        public long getStatementNanos() {
+            return statementNanos;
+        }
+
+        // The statement executed most often in this request, usually the culprit when a budget is blown
+        public Map.Entry<String, Integer> getMostRepeated() {
+            Map.Entry<String, Integer> most = null;
+            for (Map.Entry<String, int[]> entry : countsBySql.entrySet()) {
+                if (most == null || entry.getValue()[0] > most.getValue()) {
+                    most = Map.entry(entry.getKey(), entry.getValue()[0]);
+                }
+            }
+            return most;
+        }
+    }
+
+    public record SlowQuery(Instant executedAt, double elapsedMs, List<String> statements, List<String> bindShapes,
+                            int batchSize, boolean success, String request, String thread) {
+    }
+}
@@ -0,0 +1,375 @@
+package com.erp.backend.service;
+
+import com.erp.backend.repository.ProductRepository;
+import com.erp.backend.repository.StockMovementRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+// In-memory available-to-promise quantities per product, kept in front of products.stock_quantity.
+// available = stock_quantity + pending stock_movements, so the ledger can be rebuilt from the
+// database at any time. Quantities live in primitive open-addressing maps split over lock stripes,
+// so a reservation touches only the stripes of its own products and never waits on a row lock.
+// The ledger is authoritative for one node only; run it on a single writer node.
+@Component
+public class StockReservationLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(StockReservationLedger.class);
+
+    private static final int MAX_REFRESH_ATTEMPTS = 3;
+
+    private final ProductRepository productRepository;
+    private final StockMovementRepository stockMovementRepository;
+    private final TransactionTemplate readOnly;
+    private final boolean enabled;
+
+    private final Stripe[] stripes;
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private volatile boolean loaded;
+
+    public StockReservationLedger(ProductRepository productRepository,
+                                  StockMovementRepository stockMovementRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${erp.inventory.ledger.enabled:false}") boolean enabled,
+                                  @Value("${erp.inventory.ledger.stripes:64}") int stripeCount) {
+        this.productRepository = productRepository;
+        this.stockMovementRepository = stockMovementRepository;
+        this.enabled = enabled;
+
+        // Stock and pending movements must be read from the same snapshot
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.readOnly.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.readOnly.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        int count = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getAvailable(Long productId) {
+        ensureLoaded();
+        Stripe stripe = stripeFor(productId);
+        stripe.lock.lock();
+        try {
+            return stripe.available(productId);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    // Applies all deltas or none. Returns the products whose negative delta would overdraw them.
+    // Applied deltas stay in flight until complete() is called for them.
+    public List<Long> tryReserve(Map<Long, Integer> deltas) {
+        ensureLoaded();
+        loadMissing(deltas);
+
+        List<Stripe> locked = lockStripes(deltas);
+        try {
+            List<Long> failed = new ArrayList<>();
+            for (Map.Entry<Long, Integer> entry : deltas.entrySet()) {
+                Stripe stripe = stripeFor(entry.getKey());
+                if (entry.getValue() < 0 && stripe.available(entry.getKey()) + entry.getValue() < 0) {
+                    failed.add(entry.getKey());
+                }
+            }
+            if (!failed.isEmpty()) {
+                return failed;
+            }
+
+            for (Map.Entry<Long, Integer> entry : deltas.entrySet()) {
+                stripeFor(entry.getKey()).add(entry.getKey(), entry.getValue(), entry.getValue());
+            }
+            return failed;
+        } finally {
+            locked.forEach(stripe -> stripe.lock.unlock());
+        }
+    }
+
+    // Called once the transaction that reserved the deltas has finished; a rollback gives the stock back
+    public void complete(Map<Long, Integer> deltas, boolean committed) {
+        List<Stripe> locked = lockStripes(deltas);
+        try {
+            for (Map.Entry<Long, Integer> entry : deltas.entrySet()) {
+                int delta = entry.getValue();
+                Stripe stripe = stripeFor(entry.getKey());
+                stripe.add(entry.getKey(), committed ? 0 : -delta, -delta);
+                stripe.completions++;
+            }
+        } finally {
+            locked.forEach(stripe -> stripe.lock.unlock());
+        }
+    }
+
+    // Re-reads one product after its stock was written outside the ledger (e.g. a product edit).
+    // The database is read without the stripe lock; if a reservation on the stripe completed in the
+    // meantime the read may or may not include it, so it is taken again.
+    public void refresh(Long productId) {
+        if (!loaded) {
+            return;
+        }
+        Stripe stripe = stripeFor(productId);
+        for (int attempt = 0; attempt < MAX_REFRESH_ATTEMPTS; attempt++) {
+            long completions = stripe.completions();
+            long available = readAvailable(productId);
+            stripe.lock.lock();
+            try {
+                if (stripe.completions == completions) {
+                    stripe.reset(productId, available);
+                    return;
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        log.warn("Stock reservation ledger could not refresh product {}; rebuilding", productId);
+        rebuild();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            ensureLoaded();
+        }
+    }
+
+    public void rebuild() {
+        loadLock.lock();
+        try {
+            load();
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loadLock.lock();
+        try {
+            if (!loaded) {
+                load();
+            }
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private void load() {
+        long started = System.currentTimeMillis();
+        Stripe[] fresh = new Stripe[stripes.length];
+        for (int i = 0; i < fresh.length; i++) {
+            fresh[i] = new Stripe();
+        }
+
+        long products = readOnly.execute(status -> {
+            long count = 0;
+            try (Stream<Object[]> stockLevels = productRepository.streamStockLevels()) {
+                for (Object[] row : (Iterable<Object[]>) stockLevels::iterator) {
+                    Long productId = (Long) row[0];
+                    fresh[indexFor(productId)].reset(productId, ((Number) row[1]).longValue());
+                    count++;
+                }
+            }
+            for (Object[] row : stockMovementRepository.sumDeltasByProduct()) {
+                Long productId = (Long) row[0];
+                fresh[indexFor(productId)].add(productId, ((Number) row[1]).longValue(), 0);
+            }
+            return count;
+        });
+
+        // Every stripe is locked, in stripe order like a reservation, before any is replaced: a
+        // reservation spanning several stripes then sees either the old ledger or the new one, never a
+        // mix, and no reservation or completion can slip in between carrying over and replacing
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+        }
+        try {
+            for (int i = 0; i < stripes.length; i++) {
+                stripes[i].replaceWith(fresh[i]);
+            }
+        } finally {
+            for (Stripe stripe : stripes) {
+                stripe.lock.unlock();
+            }
+        }
+        loaded = true;
+        log.info("Stock reservation ledger loaded {} products in {} ms", products, System.currentTimeMillis() - started);
+    }
+
+    private void loadMissing(Map<Long, Integer> deltas) {
+        // Products created after the last rebuild are read on first use. Nothing can be reserved
+        // against a product the ledger does not hold yet, so the read needs no lock; a concurrent
+        // first use may have added it by the time the lock is taken, and then that entry wins.
+        for (Long productId : deltas.keySet()) {
+            Stripe stripe = stripeFor(productId);
+            if (stripe.containsLocked(productId)) {
+                continue;
+            }
+            long available = readAvailable(productId);
+            stripe.lock.lock();
+            try {
+                if (!stripe.contains(productId)) {
+                    stripe.reset(productId, available);
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    private long readAvailable(Long productId) {
+        Long available = readOnly.execute(status -> {
+            Integer stock = productRepository.findStockQuantityById(productId);
+            return stock == null ? 0L : stock + stockMovementRepository.sumDeltasByProductId(productId);
+        });
+        return available == null ? 0L : available;
+    }
+
+    private List<Stripe> lockStripes(Map<Long, Integer> deltas) {
+        // Always lock in stripe order so multi-product reservations cannot deadlock each other
+        TreeMap<Integer, Stripe> involved = new TreeMap<>();
+        for (Long productId : deltas.keySet()) {
+            int index = indexFor(productId);
+            involved.put(index, stripes[index]);
+        }
+        List<Stripe> locked = new ArrayList<>(involved.size());
+        for (Stripe stripe : involved.values()) {
+            stripe.lock.lock();
+            locked.add(stripe);
+        }
+        return locked;
+    }
+
+    private Stripe stripeFor(Long productId) {
+        return stripes[indexFor(productId)];
+    }
+
+    private int indexFor(long productId) {
+        long hash = productId * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 40) & (stripes.length - 1);
+    }
+
+    // Open-addressing map from product id to (available, in flight); id 0 marks an empty slot
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private long[] keys = new long[16];
+        private long[] available = new long[16];
+        private long[] inFlight = new long[16];
+        private int size;
+        // Reservations completed on this stripe, so a refresh can tell whether one raced its read
+        private long completions;
+
+        private boolean containsLocked(long productId) {
+            lock.lock();
+            try {
+                return contains(productId);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private long completions() {
+            lock.lock();
+            try {
+                return completions;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean contains(long productId) {
+            return keys[slot(keys, productId)] == productId;
+        }
+
+        private long available(long productId) {
+            int slot = slot(keys, productId);
+            return keys[slot] == productId ? available[slot] : 0;
+        }
+
+        private void add(long productId, long availableDelta, long inFlightDelta) {
+            int slot = insert(productId);
+            available[slot] += availableDelta;
+            inFlight[slot] += inFlightDelta;
+        }
+
+        // Committed value from the database; reservations still in flight are not part of it yet
+        private void reset(long productId, long committedAvailable) {
+            int slot = insert(productId);
+            available[slot] = committedAvailable + inFlight[slot];
+        }
+
+        private void replaceWith(Stripe loaded) {
+            // Keep the in-flight reservations made while the snapshot was being read
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != 0 && inFlight[i] != 0) {
+                    loaded.add(keys[i], inFlight[i], inFlight[i]);
+                }
+            }
+            keys = loaded.keys;
+            available = loaded.available;
+            inFlight = loaded.inFlight;
+            size = loaded.size;
+        }
+
+        private int insert(long productId) {
+            int slot = slot(keys, productId);
+            if (keys[slot] == productId) {
+                return slot;
+            }
+            if ((size + 1) * 4 > keys.length * 3) {
+                grow();
+                slot = slot(keys, productId);
+            }
+            keys[slot] = productId;
+            size++;
+            return slot;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            long[] oldAvailable = available;
+            long[] oldInFlight = inFlight;
+            keys = new long[oldKeys.length * 2];
+            available = new long[keys.length];
+            inFlight = new long[keys.length];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    int slot = slot(keys, oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    available[slot] = oldAvailable[i];
+                    inFlight[slot] = oldInFlight[i];
+                }
+            }
+        }
+
+        private static int slot(long[] keys, long productId) {
+            int mask = keys.length - 1;
+            int slot = (int) ((productId * 0xC2B2AE3D27D4EB4FL) >>> 33) & mask;
+            while (keys[slot] != 0 && keys[slot] != productId) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+}
@@ -4,17 +4,28 @@ import com.erp.backend.dto.SupplierDTO;
 import com.erp.backend.exception.ResourceNotFoundException;
 import com.erp.backend.model.Supplier;
 import com.erp.backend.repository.SupplierRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 @Service
 public class SupplierService {
 
     private final SupplierRepository supplierRepository;
+    private final AutocompleteIndex searchIndex;
 
-    public SupplierService(SupplierRepository supplierRepository) {
+    public SupplierService(SupplierRepository supplierRepository,
+                           @Qualifier("supplierAutocomplete") AutocompleteIndex searchIndex) {
         this.supplierRepository = supplierRepository;
+        this.searchIndex = searchIndex;
     }
 
     public Page<Supplier> getAllSuppliers(Pageable pageable) {
@@ -25,8 +36,20 @@ public class SupplierService {
         return supplierRepository.findByActive(true, pageable);
     }
 
+    // Typeahead over name, contact person, email and tax id; the LIKE scan only serves until the index is built
     public Page<Supplier> searchSuppliers(String name, Pageable pageable) {
-        return supplierRepository.findByNameContainingIgnoreCase(name, pageable);
+        if (!searchIndex.isReady()) {
+            return supplierRepository.findByNameContainingIgnoreCase(name, pageable);
+        }
+
+        AutocompleteIndex.Matches matches = searchIndex.search(name, (int) pageable.getOffset(), pageable.getPageSize());
+        Map<Long, Supplier> suppliers = supplierRepository.findAllById(matches.ids()).stream()
+                .collect(Collectors.toMap(Supplier::getId, Function.identity()));
+        List<Supplier> ranked = matches.ids().stream()
+                .map(suppliers::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new PageImpl<>(ranked, pageable, matches.total());
     }
 
     public Supplier getSupplierById(Long id) {
@@ -47,7 +70,9 @@ public class SupplierService {
 
         Supplier supplier = new Supplier();
         mapDtoToEntity(supplierDTO, supplier);
-        return supplierRepository.save(supplier);
+        Supplier saved = supplierRepository.save(supplier);
+        indexAfterCommit(saved);
+        return saved;
     }
 
     public Supplier updateSupplier(Long id, SupplierDTO supplierDTO) {
@@ -67,7 +92,9 @@ public class SupplierService {
         }
 
         mapDtoToEntity(supplierDTO, supplier);
-        return supplierRepository.save(supplier);
+        Supplier saved = supplierRepository.save(supplier);
+        indexAfterCommit(saved);
+        return saved;
     }
 
     public void deleteSupplier(Long id) {
@@ -75,6 +102,14 @@ public class SupplierService {
             throw new ResourceNotFoundException("Supplier not found with id: " + id);
         }
         supplierRepository.deleteById(id);
+        TransactionCallbacks.afterCommit(() -> searchIndex.remove(id));
+    }
+
+    // Field order as in SearchIndexConfig
+    private void indexAfterCommit(Supplier supplier) {
+        Long id = supplier.getId();
+        String[] fields = {supplier.getName(), supplier.getContactPerson(), supplier.getEmail(), supplier.getTaxId()};
+        TransactionCallbacks.afterCommit(() -> searchIndex.put(id, fields));
     }
 
     private void mapDtoToEntity(SupplierDTO dto, Supplier entity) {
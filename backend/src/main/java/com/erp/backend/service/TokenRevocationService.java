@@ -0,0 +1,144 @@
+package com.erp.backend.service;
+
+import com.erp.backend.model.RevokedToken;
+import com.erp.backend.repository.RevokedTokenRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Revoked token ids live in the revoked_tokens table and, on every node, in an exact in-memory set
+// fronted by a Bloom filter. The per-request check is the Bloom filter alone unless it reports a
+// possible hit, so an ordinary token costs a few hashes and no I/O. Nodes pick up each other's
+// revocations by polling the table; rows and set entries are dropped once the token has expired.
+@Service
+public class TokenRevocationService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final int expectedEntries;
+    private final long pollOverlapMs;
+
+    // token id -> expiry in epoch millis
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private volatile BloomFilter bloomFilter;
+    private LocalDateTime lastPoll;
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+                                  @Value("${erp.security.revocation.expected-entries:100000}") int expectedEntries,
+                                  @Value("${erp.security.revocation.poll-interval-ms:5000}") long pollIntervalMs) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.expectedEntries = expectedEntries;
+        // Rows from slow commits or slightly skewed clocks on other nodes are read again rather than missed
+        this.pollOverlapMs = Math.max(30_000, pollIntervalMs * 3);
+        this.bloomFilter = new BloomFilter(expectedEntries, 0.01);
+    }
+
+    @PostConstruct
+    public void load() {
+        refreshLock.lock();
+        try {
+            lastPoll = LocalDateTime.now();
+            revoked.clear();
+            revokedTokenRepository.findByExpiresAtAfter(LocalDateTime.now()).forEach(this::remember);
+            rebuildBloomFilter();
+            log.info("Loaded {} revoked tokens", revoked.size());
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    public boolean isRevoked(String tokenId) {
+        if (!bloomFilter.mightContain(tokenId)) {
+            return false;
+        }
+        Long expiresAt = revoked.get(tokenId);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    public void revoke(String tokenId, String username, Date expiresAt) {
+        if (expiresAt == null) {
+            throw new IllegalArgumentException("Token has no expiry");
+        }
+        if (expiresAt.getTime() <= System.currentTimeMillis()) {
+            return;
+        }
+        RevokedToken token = new RevokedToken(tokenId, username,
+                LocalDateTime.ofInstant(expiresAt.toInstant(), ZoneId.systemDefault()));
+        if (!revokedTokenRepository.existsByTokenId(tokenId)) {
+            try {
+                revokedTokenRepository.save(token);
+            } catch (DataIntegrityViolationException e) {
+                // Revoked concurrently by another request; the row is there either way
+                log.debug("Token {} was already revoked", tokenId);
+            }
+        }
+        remember(token);
+    }
+
+    @Scheduled(fixedDelayString = "${erp.security.revocation.poll-interval-ms:5000}")
+    public void poll() {
+        refreshLock.lock();
+        try {
+            LocalDateTime started = LocalDateTime.now();
+            List<RevokedToken> recent = revokedTokenRepository.findByRevokedAtGreaterThanEqual(
+                    lastPoll.minus(Duration.ofMillis(pollOverlapMs)));
+            recent.forEach(this::remember);
+            lastPoll = started;
+        } catch (RuntimeException e) {
+            log.warn("Polling revoked tokens failed, retrying next interval: {}", e.getMessage());
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    // Any node may run this; deleting rows that are already gone is harmless
+    @Scheduled(fixedDelayString = "${erp.security.revocation.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        int deleted = revokedTokenRepository.deleteExpired(LocalDateTime.now());
+        refreshLock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            revoked.values().removeIf(expiresAt -> expiresAt <= now);
+            // Bloom filters cannot forget, so start a fresh one from the entries still live
+            rebuildBloomFilter();
+        } finally {
+            refreshLock.unlock();
+        }
+        if (deleted > 0) {
+            log.debug("Purged {} expired revoked tokens", deleted);
+        }
+    }
+
+    private void remember(RevokedToken token) {
+        long expiresAt = token.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        if (expiresAt <= System.currentTimeMillis()) {
+            return;
+        }
+        // Set first: a reader that sees the Bloom bit must find the entry
+        revoked.put(token.getTokenId(), expiresAt);
+        bloomFilter.add(token.getTokenId());
+    }
+
+    private void rebuildBloomFilter() {
+        BloomFilter fresh = new BloomFilter(Math.max(expectedEntries, revoked.size() * 2), 0.01);
+        revoked.keySet().forEach(fresh::add);
+        bloomFilter = fresh;
+        // Revocations remembered while the new filter was filling go into it as well
+        revoked.keySet().forEach(fresh::add);
+    }
+}
@@ -0,0 +1,77 @@
+package com.erp.backend.service;
+
+import java.util.Arrays;
+
+// Keeps the k best (score, slot) pairs offered, in a min-heap of packed longs; ties go to the lower slot
+final class TopK {
+
+    private final long[] heap;
+    private int size;
+
+    TopK(int k) {
+        this.heap = new long[Math.max(0, k)];
+    }
+
+    void offer(int score, int slot) {
+        if (heap.length == 0) {
+            return;
+        }
+        long key = ((long) score << 32) | (0xFFFFFFFFL - slot);
+        if (size < heap.length) {
+            heap[size] = key;
+            siftUp(size++);
+        } else if (key > heap[0]) {
+            heap[0] = key;
+            siftDown();
+        }
+    }
+
+    // Best first, skipping the first offset entries
+    int[] slots(int offset) {
+        long[] sorted = Arrays.copyOf(heap, size);
+        Arrays.sort(sorted);
+        int count = Math.max(0, size - offset);
+        int[] slots = new int[count];
+        for (int i = 0; i < count; i++) {
+            slots[i] = (int) (0xFFFFFFFFL - (sorted[size - 1 - offset - i] & 0xFFFFFFFFL));
+        }
+        return slots;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (heap[parent] <= heap[index]) {
+                return;
+            }
+            swap(parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown() {
+        int index = 0;
+        while (true) {
+            int smallest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && heap[left] < heap[smallest]) {
+                smallest = left;
+            }
+            if (right < size && heap[right] < heap[smallest]) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return;
+            }
+            swap(smallest, index);
+            index = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long swap = heap[a];
+        heap[a] = heap[b];
+        heap[b] = swap;
+    }
+}
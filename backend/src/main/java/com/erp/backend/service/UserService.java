@@ -2,21 +2,36 @@ package com.erp.backend.service;
 
 import com.erp.backend.model.User;
 import com.erp.backend.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+
 @Service
-public class UserService implements UserDetailsService {
+public class UserService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final Cache<String, UserDetails> userDetailsCache;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository,
+                       PasswordEncoder passwordEncoder,
+                       @Value("${erp.security.user-cache.max-size:10000}") long cacheMaxSize,
+                       @Value("${erp.security.user-cache.ttl-seconds:30}") long cacheTtlSeconds) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.userDetailsCache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(cacheTtlSeconds))
+                .recordStats()
+                .build();
     }
 
     @Override
@@ -25,9 +40,36 @@ public class UserService implements UserDetailsService {
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
     }
 
+    // For authenticating requests that carry a token. Login keeps using loadUserByUsername so
+    // credentials are always checked against the database; changes elsewhere (role, enabled flag)
+    // are seen here within the cache TTL, and at once for changes made through saveUser.
+    public UserDetails loadCachedUserByUsername(String username) throws UsernameNotFoundException {
+        return userDetailsCache.get(username, this::loadUserByUsername);
+    }
+
+    // Called by the authentication provider after a successful login whose stored hash is weaker
+    // than the configured BCrypt strength; newPassword is already encoded
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        User existing = userRepository.findByUsername(user.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + user.getUsername()));
+        existing.setPassword(newPassword);
+        User saved = userRepository.save(existing);
+        TransactionCallbacks.afterCommit(() -> userDetailsCache.invalidate(saved.getUsername()));
+        return saved;
+    }
+
+    // The user entity itself, for recording who created or changed a record
+    public User findByUsername(String username) {
+        return userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
+    }
+
     public User saveUser(User user) {
         user.setPassword(passwordEncoder.encode(user.getPassword()));
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        TransactionCallbacks.afterCommit(() -> userDetailsCache.invalidate(saved.getUsername()));
+        return saved;
     }
 
     public boolean existsByUsername(String username) {
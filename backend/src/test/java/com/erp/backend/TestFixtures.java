@@ -0,0 +1,75 @@
+package com.erp.backend;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Rows written straight through JDBC, for tests that need data in a state the API would not produce
+// directly. Ids come from one counter shared by every test class and start far above anything the
+// application generates, so fixtures never collide in the shared in-memory database.
+public class TestFixtures {
+
+    private static final AtomicLong nextId = new AtomicLong(1_000_000);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TestFixtures(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // An admin with a throwaway password hash
+    public long user(String username) {
+        long id = nextId.incrementAndGet();
+        jdbcTemplate.update("INSERT INTO users (id, username, password, full_name, email, role, enabled) " +
+                        "VALUES (?, ?, ?, ?, ?, 'ADMIN', TRUE)",
+                id, username, "$2a$10$" + "x".repeat(53), "User " + username, username + "@example.com");
+        return id;
+    }
+
+    public long customer(String name) {
+        long id = nextId.incrementAndGet();
+        jdbcTemplate.update("INSERT INTO customers (id, name, email, active) VALUES (?, ?, ?, TRUE)",
+                id, name, "customer-" + id + "@example.com");
+        return id;
+    }
+
+    public long product(int stock) {
+        long id = nextId.incrementAndGet();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO products (id, sku, name, unit_price, stock_quantity, active, version, " +
+                        "created_at, updated_at) VALUES (?, ?, ?, ?, ?, TRUE, 0, ?, ?)",
+                id, "TEST-" + id, "Product " + id, new BigDecimal("10.00"), stock, now, now);
+        return id;
+    }
+
+    // Dated now, with nothing paid
+    public long invoice(long customerId, String total) {
+        return invoice(customerId, null, LocalDateTime.now(), "PENDING", total, "0.00");
+    }
+
+    public long invoice(long customerId, String invoiceNumber, LocalDateTime invoiceDate, String total) {
+        return invoice(customerId, invoiceNumber, invoiceDate, "PENDING", total, "0.00");
+    }
+
+    public long invoice(long customerId, String status, String total, String paid) {
+        return invoice(customerId, null, LocalDateTime.now(), status, total, paid);
+    }
+
+    // The invoice number defaults to TEST-<id>
+    public long invoice(long customerId, String invoiceNumber, LocalDateTime invoiceDate, String status,
+                        String total, String paid) {
+        long id = nextId.incrementAndGet();
+        BigDecimal totalAmount = new BigDecimal(total);
+        BigDecimal amountPaid = new BigDecimal(paid);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO invoices (id, invoice_number, customer_id, invoice_date, status, subtotal, " +
+                        "total_amount, amount_paid, amount_due, created_at, updated_at) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                id, invoiceNumber != null ? invoiceNumber : "TEST-" + id, customerId, Timestamp.valueOf(invoiceDate),
+                status, totalAmount, totalAmount, amountPaid, totalAmount.subtract(amountPaid), now, now);
+        return id;
+    }
+}
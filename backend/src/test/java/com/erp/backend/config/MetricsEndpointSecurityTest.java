@@ -0,0 +1,87 @@
+package com.erp.backend.config;
+
+import com.erp.backend.model.Role;
+import com.erp.backend.model.User;
+import com.erp.backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+class MetricsEndpointSecurityTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @BeforeEach
+    void createUsers() {
+        createUser("metrics-admin", Role.ADMIN);
+        createUser("metrics-clerk", Role.SALES_EXECUTIVE);
+    }
+
+    @Test
+    void healthIsOpen() throws Exception {
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+    }
+
+    @Test
+    void prometheusRejectsAnonymousScrapes() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void prometheusRejectsNonAdmins() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus").with(httpBasic("metrics-clerk", "secret")))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void prometheusRejectsWrongPasswords() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus").with(httpBasic("metrics-admin", "wrong")))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void prometheusServesAdmins() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus").with(httpBasic("metrics-admin", "secret")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void basicAuthIsNotAcceptedOnTheApi() throws Exception {
+        mockMvc.perform(get("/api/orders").with(httpBasic("metrics-admin", "secret")))
+                .andExpect(status().isForbidden());
+    }
+
+    private void createUser(String username, Role role) {
+        if (userRepository.findByUsername(username).isPresent()) {
+            return;
+        }
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword(passwordEncoder.encode("secret"));
+        user.setFullName(username);
+        user.setEmail(username + "@example.com");
+        user.setRole(role);
+        userRepository.save(user);
+    }
+}
@@ -0,0 +1,51 @@
+package com.erp.backend.config;
+
+import com.erp.backend.service.SqlStatementMonitor;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SqlStatsFilterTest {
+
+    private final SqlStatsFilter filter = new SqlStatsFilter(new SqlStatementMonitor(200, 10), true, 50, 1000);
+
+    @Test
+    void completedRequestGetsHeadersAndIsFlushed() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/orders"), response,
+                (req, res) -> res.getWriter().write("[]"));
+
+        assertThat(response.getHeader("X-SQL-Count")).isEqualTo("0");
+        assertThat(response.isCommitted()).isTrue();
+    }
+
+    @Test
+    void failedRequestIsLeftUncommittedForTheErrorResponse() {
+        // A flush that fails too, as on a dropped connection; it must not replace the controller's exception
+        MockHttpServletResponse mockResponse = new MockHttpServletResponse();
+        HttpServletResponseWrapper response = new HttpServletResponseWrapper(mockResponse) {
+            @Override
+            public void flushBuffer() throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        assertThatThrownBy(() -> filter.doFilter(new MockHttpServletRequest("GET", "/api/orders"), response,
+                (req, res) -> {
+                    res.getWriter().write("partial");
+                    throw new ServletException("Controller failed");
+                }))
+                .isInstanceOf(ServletException.class)
+                .hasMessage("Controller failed");
+        assertThat(mockResponse.isCommitted()).isFalse();
+        assertThat(mockResponse.getHeader("X-SQL-Count")).isNull();
+    }
+}
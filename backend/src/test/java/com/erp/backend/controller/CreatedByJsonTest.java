@@ -0,0 +1,73 @@
+package com.erp.backend.controller;
+
+import com.erp.backend.TestFixtures;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Records created through the API carry their creator; responses may name the creator but must never
+// carry the password hash or the creator's email.
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@WithMockUser(username = "json-creator", roles = "ADMIN")
+class CreatedByJsonTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void productAndPaymentJsonNameTheCreatorWithoutCredentials() throws Exception {
+        TestFixtures fixtures = new TestFixtures(jdbcTemplate);
+        long userId = fixtures.user("json-creator");
+        long invoiceId = fixtures.invoice(fixtures.customer("Created By"), "100.00");
+
+        JsonNode product = read(mockMvc.perform(post("/api/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"sku\":\"JSON-CREATOR-1\",\"name\":\"Creator check\",\"unitPrice\":9.99,\"stockQuantity\":5}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString());
+        JsonNode payment = read(mockMvc.perform(post("/api/payments")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"invoiceId\":" + invoiceId + ",\"amount\":25.00,\"paymentMethod\":\"CASH\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString());
+
+        String productJson = mockMvc.perform(get("/api/products/" + product.get("id").asLong()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String paymentJson = mockMvc.perform(get("/api/payments/" + payment.get("id").asLong()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        for (String json : new String[] {productJson, paymentJson}) {
+            JsonNode createdBy = read(json).get("createdBy");
+            assertThat(createdBy.get("id").asLong()).isEqualTo(userId);
+            assertThat(createdBy.get("username").asText()).isEqualTo("json-creator");
+            assertThat(json).doesNotContain("password", "$2a$", "json-creator@example.com");
+        }
+    }
+
+    private JsonNode read(String json) throws Exception {
+        return objectMapper.readTree(json);
+    }
+}
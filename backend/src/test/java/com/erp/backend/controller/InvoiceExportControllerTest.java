@@ -0,0 +1,148 @@
+package com.erp.backend.controller;
+
+import com.erp.backend.TestFixtures;
+import com.erp.backend.dto.InvoiceExportProgress;
+import com.erp.backend.service.InvoiceExportService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Invoices dated in 2031 so no other test's invoices fall in the exported range
+@SpringBootTest(properties = {"erp.invoice.export.max-streams=1", "erp.invoice.export.directory=target/test-exports"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@WithMockUser(roles = "ADMIN")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class InvoiceExportControllerTest {
+
+    private static final int INVOICES = 5;
+    private static final LocalDateTime START = LocalDateTime.of(2031, 1, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2031, 1, 31, 0, 0);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private InvoiceExportService invoiceExportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long lastInvoiceId;
+
+    @BeforeAll
+    void seed() {
+        TestFixtures fixtures = new TestFixtures(jdbcTemplate);
+        long customerId = fixtures.customer("Invoice Export");
+        for (int i = 1; i <= INVOICES; i++) {
+            lastInvoiceId = fixtures.invoice(customerId, "EXPORT-" + i, START.plusDays(i), "100.00");
+        }
+    }
+
+    @Test
+    void streamedExportResumesAfterTheLastCompleteEntry() throws Exception {
+        assertThat(entries(download(export()))).containsExactly(
+                "EXPORT-1.pdf", "EXPORT-2.pdf", "EXPORT-3.pdf", "EXPORT-4.pdf", "EXPORT-5.pdf");
+
+        assertThat(entries(download(export().param("afterInvoice", "EXPORT-2"))))
+                .containsExactly("EXPORT-3.pdf", "EXPORT-4.pdf", "EXPORT-5.pdf");
+    }
+
+    @Test
+    void streamedExportPublishesNoCheckpoint() throws Exception {
+        String jobId = mockMvc.perform(export())
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("X-Export-Job");
+
+        InvoiceExportProgress progress = invoiceExportService.getProgress(jobId);
+        assertThat(progress.getStatus()).isEqualTo("COMPLETED");
+        assertThat(progress.getExported()).isEqualTo(INVOICES);
+        assertThat(progress.getCheckpoint()).isNull();
+    }
+
+    @Test
+    void streamsBeyondTheLimitAreTurnedAway() throws Exception {
+        invoiceExportService.openStream(START, END, null, null);
+        try {
+            mockMvc.perform(export()).andExpect(status().isServiceUnavailable());
+        } finally {
+            invoiceExportService.closeStream();
+        }
+        mockMvc.perform(export()).andExpect(status().isOk());
+    }
+
+    @Test
+    void rejectedResumePointsGiveTheSlotBack() throws Exception {
+        mockMvc.perform(export().param("afterInvoice", "NO-SUCH-INVOICE")).andExpect(status().isNotFound());
+        mockMvc.perform(export().param("afterInvoice", "EXPORT-1").param("after", "x"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(export()).andExpect(status().isOk());
+    }
+
+    @Test
+    void fileExportCheckpointsTheLastSyncedInvoice() throws Exception {
+        InvoiceExportService.ExportJob job = invoiceExportService.exportToFile(START, END, null);
+        InvoiceExportProgress progress = invoiceExportService.getProgress(job.getId());
+        for (int i = 0; i < 100 && progress.getFinishedAt() == null; i++) {
+            Thread.sleep(50);
+            progress = invoiceExportService.getProgress(job.getId());
+        }
+
+        assertThat(progress.getStatus()).isEqualTo("COMPLETED");
+        assertThat(progress.getLastInvoiceId()).isEqualTo(lastInvoiceId);
+        assertThat(progress.getCheckpoint()).isNotNull();
+        Path file = Path.of(progress.getFile());
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            assertThat(zip.size()).isEqualTo(INVOICES);
+            assertThat(zip.getComment()).contains("checkpoint=" + progress.getCheckpoint());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private MockHttpServletRequestBuilder export() {
+        return get("/api/invoices/export")
+                .param("startDate", START.toString())
+                .param("endDate", END.toString());
+    }
+
+    private byte[] download(MockHttpServletRequestBuilder request) throws Exception {
+        return mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+
+    private static List<String> entries(byte[] archive) throws IOException {
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                names.add(entry.getName());
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,159 @@
+package com.erp.backend.controller;
+
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// A page of orders, with customer, creator, items and item products, must cost the same number of
+// statements whatever the page size. Statements are counted on the request thread through the
+// datasource-proxy that SqlMonitoringConfig puts in front of the pool, so background jobs don't count.
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@WithMockUser(roles = "ADMIN")
+class OrderControllerQueryCountTest {
+
+    private static final int ORDERS = 60;
+    private static final int ITEMS_PER_ORDER = 3;
+    private static final int PRODUCTS = 40;
+    private static final int CUSTOMERS = 12;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        StatementCounter statementCounter() {
+            return new StatementCounter();
+        }
+    }
+
+    static class StatementCounter implements MethodExecutionListener {
+        private final ThreadLocal<int[]> count = new ThreadLocal<>();
+
+        void start() {
+            count.set(new int[1]);
+        }
+
+        int stop() {
+            int statements = count.get()[0];
+            count.remove();
+            return statements;
+        }
+
+        @Override
+        public void beforeMethod(MethodExecutionContext context) {
+        }
+
+        @Override
+        public void afterMethod(MethodExecutionContext context) {
+            int[] counter = count.get();
+            if (counter != null && context.getTarget() instanceof Statement
+                    && context.getMethod().getName().startsWith("execute")) {
+                counter[0]++;
+            }
+        }
+    }
+
+    @BeforeEach
+    void seed() {
+        Integer existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders", Integer.class);
+        if (existing != null && existing >= ORDERS) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO users (id, username, password, full_name, email, role, enabled) " +
+                "VALUES (1, 'query-count', 'x', 'Query Count', 'query-count@example.com', 'ADMIN', TRUE)");
+
+        List<Object[]> customers = new ArrayList<>();
+        for (long id = 1; id <= CUSTOMERS; id++) {
+            customers.add(new Object[]{id, "Customer " + id, "customer" + id + "@example.com", true, now, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO customers (id, name, email, active, created_at, updated_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", customers);
+
+        List<Object[]> products = new ArrayList<>();
+        for (long id = 1; id <= PRODUCTS; id++) {
+            products.add(new Object[]{id, "QC-" + id, "Product " + id, new BigDecimal("9.99"), 100, true, 0L, now, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO products (id, sku, name, unit_price, stock_quantity, active, version, " +
+                "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", products);
+
+        List<Object[]> orders = new ArrayList<>();
+        List<Object[]> items = new ArrayList<>();
+        long itemId = 1;
+        for (long id = 1; id <= ORDERS; id++) {
+            orders.add(new Object[]{id, "QC-ORD-" + id, id % CUSTOMERS + 1, 1L, now, "PENDING", "PENDING",
+                    new BigDecimal("29.97"), new BigDecimal("29.97"), now, now});
+            for (int i = 0; i < ITEMS_PER_ORDER; i++) {
+                long productId = (id * ITEMS_PER_ORDER + i) % PRODUCTS + 1;
+                items.add(new Object[]{itemId++, id, productId, 1, new BigDecimal("9.99"), new BigDecimal("9.99")});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO orders (id, order_number, customer_id, created_by, order_date, status, " +
+                "payment_status, subtotal, total_amount, created_at, updated_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", orders);
+        jdbcTemplate.batchUpdate("INSERT INTO order_items (id, order_id, product_id, quantity, unit_price, total) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", items);
+    }
+
+    @Test
+    void orderPageStatementCountDoesNotGrowWithPageSize() throws Exception {
+        int small = statementsForPage(5);
+        int large = statementsForPage(50);
+
+        assertThat(small).isPositive();
+        assertThat(large).isEqualTo(small);
+    }
+
+    @Test
+    void orderPageIsServedInAHandfulOfStatements() throws Exception {
+        // Page and count queries plus the batched fetches of items and their products
+        assertThat(statementsForPage(50)).isLessThanOrEqualTo(5);
+    }
+
+    private int statementsForPage(int size) throws Exception {
+        statementCounter.start();
+        int statements;
+        try {
+            mockMvc.perform(get("/api/orders").param("size", Integer.toString(size)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content.length()").value(size))
+                    .andExpect(jsonPath("$.content[0].customer.name").exists())
+                    .andExpect(jsonPath("$.content[0].orderItems[0].product.sku").exists());
+        } finally {
+            statements = statementCounter.stop();
+        }
+        return statements;
+    }
+}
@@ -0,0 +1,48 @@
+package com.erp.backend.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class JwtAuthenticationFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtTokenUtil jwtTokenUtil;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void validTokenForADeletedUserIsNotTimedAsAuthenticated() throws Exception {
+        // Signed by this server, but no such user exists any more
+        String token = jwtTokenUtil.generateToken(
+                User.withUsername("deleted-user").password("unused").roles("ADMIN").build());
+        long authenticated = count("authenticated");
+        long unknownUser = count("unknown-user");
+
+        mockMvc.perform(get("/api/orders").header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden());
+
+        assertThat(count("unknown-user")).isEqualTo(unknownUser + 1);
+        assertThat(count("authenticated")).isEqualTo(authenticated);
+    }
+
+    private long count(String outcome) {
+        return meterRegistry.get("erp.auth.jwt.filter").tag("outcome", outcome).timer().count();
+    }
+}
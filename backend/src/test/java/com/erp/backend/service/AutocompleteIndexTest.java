@@ -0,0 +1,106 @@
+package com.erp.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class AutocompleteIndexTest {
+
+    private final List<Object[]> rows = new ArrayList<>();
+    private AutocompleteIndex index;
+
+    @BeforeEach
+    void createIndex() {
+        index = new AutocompleteIndex("test", new int[] {4, 3, 2, 2}, rows::stream,
+                mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void wordMatchesEveryTermItIsAPrefixOf() {
+        add(1, "Acme Corp");
+        add(2, "Acme Industries");
+        add(3, "Acorn Foods");
+        add(4, "Borealis");
+        index.rebuild();
+
+        assertThat(ids("ac")).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(index.search("acm", 0, 2).ids()).containsExactlyInAnyOrder(1L, 2L);
+        // With room left on the page, one-edit variants fill it after the prefix matches
+        assertThat(ids("acm")).containsExactly(1L, 2L, 3L);
+        assertThat(ids("acorn")).containsExactly(3L);
+        assertThat(ids("zz")).isEmpty();
+    }
+
+    @Test
+    void everyQueryWordHasToMatch() {
+        add(1, "Acme Corp");
+        add(2, "Acme Industries");
+        add(3, "Industrial Supplies");
+        index.rebuild();
+
+        assertThat(ids("acme ind")).containsExactly(2L);
+        assertThat(ids("ind acme")).containsExactly(2L);
+        assertThat(ids("ind")).containsExactlyInAnyOrder(2L, 3L);
+        assertThat(ids("acme zz")).isEmpty();
+    }
+
+    @Test
+    void removedAndRenamedRecordsStopMatchingAndTheirTermsAreDropped() {
+        add(1, "Zephyr Ltd");
+        add(2, "Acme Ltd");
+        index.rebuild();
+        // zephyr, ltd, zephyrltd, acme, acmeltd
+        assertThat(index.termCount()).isEqualTo(5);
+
+        index.put(1L, "Boreal Ltd", null, null, null);
+        assertThat(ids("zephyr")).isEmpty();
+        assertThat(ids("boreal")).containsExactly(1L);
+        assertThat(index.termCount()).isEqualTo(5);
+
+        index.remove(1L);
+        assertThat(ids("boreal")).isEmpty();
+        assertThat(ids("ltd")).containsExactly(2L);
+        assertThat(index.termCount()).isEqualTo(3);
+
+        index.put(1L, "Zephyr Ltd", null, null, null);
+        assertThat(ids("zephyr")).containsExactly(1L);
+        assertThat(index.termCount()).isEqualTo(5);
+    }
+
+    @Test
+    void totalCountsEveryMatchNotJustTheFirstPage() {
+        for (long id = 1; id <= 12_000; id++) {
+            add(id, id % 3 == 0 ? "Customer " + id + " GmbH" : "Customer " + id);
+        }
+        index.rebuild();
+
+        AutocompleteIndex.Matches first = index.search("customer", 0, 20);
+        AutocompleteIndex.Matches second = index.search("customer", 20, 20);
+        assertThat(first.total()).isEqualTo(12_000);
+        assertThat(first.ids()).hasSize(20);
+        assertThat(second.total()).isEqualTo(12_000);
+        Set<Long> both = new HashSet<>(first.ids());
+        both.addAll(second.ids());
+        assertThat(both).hasSize(40);
+
+        // The rarer word drives, the common one is checked on each of its records
+        assertThat(index.search("gmbh customer", 0, 20).total()).isEqualTo(4_000);
+        assertThat(index.search("customer 1199", 0, 10).total()).isEqualTo(11);
+    }
+
+    private void add(long id, String name) {
+        rows.add(new Object[] {id, name, null, null, null});
+    }
+
+    private List<Long> ids(String query) {
+        return index.search(query, 0, 50).ids();
+    }
+}
@@ -0,0 +1,97 @@
+package com.erp.backend.service;
+
+import com.erp.backend.repository.DocumentSequenceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Blocks of five, so every few numbers a caller refills inside its own transaction
+@SpringBootTest
+@ActiveProfiles("test")
+class BlockDocumentNumberAllocatorTest {
+
+    @Autowired
+    private DocumentSequenceRepository sequenceRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private BlockDocumentNumberAllocator allocator;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void createAllocator() {
+        allocator = new BlockDocumentNumberAllocator(sequenceRepository, jdbcTemplate, transactionManager, 5);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void callersOutnumberingThePoolAllGetDistinctNumbers() throws Exception {
+        // Three times the pool size, each holding its connection while it takes seven numbers
+        int callers = 30;
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                    for (int n = 0; n < 7; n++) {
+                        numbers.add(allocator.nextNumber("POOL"));
+                    }
+                })));
+            }
+            for (Future<?> result : results) {
+                result.get(20, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(numbers).hasSize(callers * 7);
+    }
+
+    @Test
+    void rolledBackReservationIsReservedAgain() {
+        String first = transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            return allocator.nextNumber("UNDO");
+        });
+
+        assertThat(allocator.nextNumber("UNDO")).isEqualTo(first);
+        assertThat(allocator.nextNumber("UNDO")).endsWith("-0002");
+    }
+
+    @Test
+    void transactionKeepsUsingTheBlockItReserved() {
+        List<String> numbers = transactionTemplate.execute(status -> {
+            List<String> taken = new ArrayList<>();
+            for (int n = 0; n < 12; n++) {
+                taken.add(allocator.nextNumber("SAME"));
+            }
+            return taken;
+        });
+
+        assertThat(numbers).extracting(number -> number.substring(number.lastIndexOf('-') + 1))
+                .containsExactly("0001", "0002", "0003", "0004", "0005", "0006", "0007", "0008", "0009", "0010",
+                        "0011", "0012");
+    }
+}
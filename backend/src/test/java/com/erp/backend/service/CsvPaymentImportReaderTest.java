@@ -0,0 +1,96 @@
+package com.erp.backend.service;
+
+import com.erp.backend.model.Payment;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvPaymentImportReaderTest {
+
+    @Test
+    void columnsAreMatchedByHeaderNameInAnyOrderAndCase() throws IOException {
+        CsvPaymentImportReader reader = reader("""
+                ReferenceNumber,Amount,PaymentMethod,InvoiceId,PaymentDate
+                SET-1,125.50,credit_card,42,2024-03-14T10:15:00
+                """);
+
+        PaymentImportReader.ImportedPayment imported = reader.next();
+
+        assertThat(imported.error()).isNull();
+        assertThat(imported.row()).isEqualTo(2);
+        assertThat(imported.reference()).isEqualTo("SET-1");
+        assertThat(imported.payment().getInvoiceId()).isEqualTo(42L);
+        assertThat(imported.payment().getAmount()).isEqualByComparingTo("125.50");
+        assertThat(imported.payment().getPaymentMethod()).isEqualTo(Payment.PaymentMethod.CREDIT_CARD);
+        assertThat(imported.payment().getPaymentDate()).isEqualTo(LocalDateTime.of(2024, 3, 14, 10, 15));
+        assertThat(imported.payment().getReferenceNumber()).isEqualTo("SET-1");
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void quotedFieldsKeepCommasQuotesAndLineBreaks() throws IOException {
+        CsvPaymentImportReader reader = reader("""
+                invoiceId,amount,paymentMethod,referenceNumber,notes
+                7,10.00,CASH,"REF,7","Paid ""in full""
+                at the counter"
+                8,20.00,CASH,REF-8,
+                """);
+
+        PaymentImportReader.ImportedPayment first = reader.next();
+        assertThat(first.reference()).isEqualTo("REF,7");
+        assertThat(first.payment().getNotes()).isEqualTo("Paid \"in full\"\nat the counter");
+
+        // The quoted line break moves the next record's line number on by one
+        PaymentImportReader.ImportedPayment second = reader.next();
+        assertThat(second.row()).isEqualTo(4);
+        assertThat(second.payment().getNotes()).isNull();
+    }
+
+    @Test
+    void badValuesRejectOnlyTheirRecord() throws IOException {
+        CsvPaymentImportReader reader = reader("""
+                invoiceId,amount,paymentMethod,referenceNumber
+                x1,10.00,CASH,REF-1
+                1,ten,CASH,REF-2
+                1,10.00,BARTER,REF-3
+                1,10.00,CASH,REF-4
+                """);
+
+        assertThat(reader.next().error()).isEqualTo("Invalid invoiceid 'x1' on line 2");
+        assertThat(reader.next().error()).isEqualTo("Invalid amount 'ten' on line 3");
+        PaymentImportReader.ImportedPayment badMethod = reader.next();
+        assertThat(badMethod.error()).isEqualTo("Invalid paymentmethod 'BARTER' on line 4");
+        assertThat(badMethod.reference()).isEqualTo("REF-3");
+        assertThat(badMethod.payment()).isNull();
+
+        PaymentImportReader.ImportedPayment good = reader.next();
+        assertThat(good.error()).isNull();
+        assertThat(good.payment().getAmount()).isEqualByComparingTo(BigDecimal.TEN);
+    }
+
+    @Test
+    void headerWithoutARequiredColumnIsRejected() {
+        assertThatThrownBy(() -> reader("invoiceId,amount\n1,10.00\n"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("CSV header is missing column: paymentmethod");
+    }
+
+    @Test
+    void unterminatedQuoteStopsTheFile() throws IOException {
+        CsvPaymentImportReader reader = reader("invoiceId,amount,paymentMethod\n1,\"10.00,CASH\n");
+
+        assertThatThrownBy(reader::next)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unterminated quoted field starting on line 2");
+    }
+
+    private static CsvPaymentImportReader reader(String csv) throws IOException {
+        return new CsvPaymentImportReader(new StringReader(csv));
+    }
+}
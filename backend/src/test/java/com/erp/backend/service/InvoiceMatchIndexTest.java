@@ -0,0 +1,99 @@
+package com.erp.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InvoiceMatchIndexTest {
+
+    @Test
+    void referencedInvoiceIsMatchedExactlyOrInPart() {
+        InvoiceMatchIndex index = new InvoiceMatchIndex();
+        index.add(1, "INV-1", new BigDecimal("100.00"), null);
+
+        assertThat(index.matchExact("Payment for inv-1, thanks", null, 10_000).invoice().getId()).isEqualTo(1);
+        InvoiceMatchIndex.Match part = index.matchExact("INV-1", null, 4_000);
+        assertThat(part.invoice().getId()).isEqualTo(1);
+
+        index.take(part.invoice(), 4_000);
+        assertThat(index.matchExact("INV-1", null, 6_000).invoice().getId()).isEqualTo(1);
+    }
+
+    @Test
+    void referencedInvoiceTakesNoMoreThanTheToleranceOverWhatIsDue() {
+        InvoiceMatchIndex index = new InvoiceMatchIndex();
+        index.add(1, "INV-1", new BigDecimal("100.00"), null);
+
+        assertThat(index.matchExact("INV-1", null, 10_003).reason())
+                .isEqualTo("Amount is more than the amount due on INV-1");
+        assertThat(index.matchWithin("INV-1", null, 10_003, 5).invoice().getId()).isEqualTo(1);
+        assertThat(index.matchWithin("INV-1", null, 10_006, 5).reason())
+                .isEqualTo("Amount is more than the amount due on INV-1");
+    }
+
+    @Test
+    void referenceToAClosedInvoiceNeverFallsBackToAnotherInvoice() {
+        InvoiceMatchIndex index = new InvoiceMatchIndex();
+        index.add(1, "INV-1", new BigDecimal("100.00"), "DE-123");
+        index.addPaid("INV-2");
+        index.addClosed("INV-3");
+        index.add(4, "INV-4", BigDecimal.ZERO, "DE-123");
+
+        assertThat(index.matchWithin("INV-2", "DE-123", 10_000, 5))
+                .isEqualTo(new InvoiceMatchIndex.Match(null, "Invoice INV-2 is already settled"));
+        assertThat(index.matchWithin("Refund of inv-3", null, 10_000, 5))
+                .isEqualTo(new InvoiceMatchIndex.Match(null, "Invoice INV-3 is cancelled or refunded"));
+        assertThat(index.matchWithin("INV-4", "DE-123", 10_000, 5))
+                .isEqualTo(new InvoiceMatchIndex.Match(null, "Invoice INV-4 is already settled"));
+        assertThat(index.size()).isEqualTo(4);
+    }
+
+    @Test
+    void referencedInvoicePaidOffByEarlierLinesIsSettled() {
+        InvoiceMatchIndex index = new InvoiceMatchIndex();
+        index.add(1, "INV-1", new BigDecimal("100.00"), null);
+        index.add(2, "INV-2", new BigDecimal("100.00"), null);
+
+        index.take(index.matchExact("INV-1", null, 10_000).invoice(), 10_000);
+
+        assertThat(index.matchExact("INV-1", null, 10_000).reason()).isEqualTo("Invoice INV-1 is already settled");
+        assertThat(index.matchExact(null, null, 10_000).invoice().getId()).isEqualTo(2);
+    }
+
+    @Test
+    void unknownReferenceFallsBackToTaxIdOldestFirst() {
+        InvoiceMatchIndex index = new InvoiceMatchIndex();
+        index.add(7, "INV-7", new BigDecimal("50.00"), "DE 123.456");
+        index.add(3, "INV-3", new BigDecimal("50.00"), "de-123456");
+        index.add(5, "INV-5", new BigDecimal("50.00"), "FR-1");
+
+        assertThat(index.matchExact("INV-99", "DE123456", 5_000).invoice().getId()).isEqualTo(3);
+        assertThat(index.matchExact(null, "NL-1", 5_000).reason()).isEqualTo("No open invoices for tax id NL-1");
+    }
+
+    @Test
+    void amountAloneMustBeUnambiguous() {
+        InvoiceMatchIndex index = new InvoiceMatchIndex();
+        index.add(1, "INV-1", new BigDecimal("50.00"), "DE-1");
+        index.add(2, "INV-2", new BigDecimal("50.00"), "FR-1");
+        index.add(3, "INV-3", new BigDecimal("75.00"), null);
+
+        assertThat(index.matchExact(null, null, 5_000).reason()).isEqualTo("2 open invoices match the amount");
+        assertThat(index.matchExact(null, null, 7_500).invoice().getId()).isEqualTo(3);
+        assertThat(index.matchExact(null, null, 7_501).reason()).isEqualTo("No open invoice for the amount");
+    }
+
+    @Test
+    void nearestAmountWithinToleranceWins() {
+        InvoiceMatchIndex index = new InvoiceMatchIndex();
+        index.add(1, "INV-1", new BigDecimal("100.04"), null);
+        index.add(2, "INV-2", new BigDecimal("99.99"), null);
+
+        assertThat(index.matchWithin(null, null, 10_001, 5).invoice().getId()).isEqualTo(2);
+        assertThat(index.matchWithin(null, null, 10_003, 5).invoice().getId()).isEqualTo(1);
+        assertThat(index.matchWithin(null, null, 10_010, 5).reason())
+                .isEqualTo("No open invoice within tolerance of the amount");
+    }
+}
@@ -0,0 +1,126 @@
+package com.erp.backend.service;
+
+import com.erp.backend.TestFixtures;
+import com.erp.backend.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// The balance update is one conditional SQL statement per invoice; these run it against H2 in MySQL
+// mode. The statement assigns amount_paid last, so it means the same under MySQL's left-to-right
+// SET evaluation and H2's standard one.
+@SpringBootTest
+@ActiveProfiles("test")
+class InvoicePaymentDeltasTest {
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TestFixtures fixtures;
+    private long customerId;
+
+    @BeforeEach
+    void createCustomer() {
+        fixtures = new TestFixtures(jdbcTemplate);
+        customerId = fixtures.customer("Payment Deltas");
+    }
+
+    @Test
+    void partialPaymentMovesBalanceAndStatus() {
+        long invoiceId = invoice("100.00", "0.00", "PENDING");
+
+        invoiceService.applyPaymentDeltas(Map.of(invoiceId, new BigDecimal("40.00")));
+
+        assertBalance(invoiceId, "40.00", "60.00", "PARTIALLY_PAID");
+        assertThat(version(invoiceId)).isEqualTo(1);
+    }
+
+    @Test
+    void paymentCoveringTheRestSettlesTheInvoice() {
+        long invoiceId = invoice("100.00", "40.00", "PARTIALLY_PAID");
+
+        invoiceService.applyPaymentDeltas(Map.of(invoiceId, new BigDecimal("60.00")));
+
+        assertBalance(invoiceId, "100.00", "0.00", "PAID");
+    }
+
+    @Test
+    void reversingEveryPaymentReopensTheInvoice() {
+        long invoiceId = invoice("100.00", "100.00", "PAID");
+
+        invoiceService.applyPaymentDeltas(Map.of(invoiceId, new BigDecimal("-100.00")));
+
+        assertBalance(invoiceId, "0.00", "100.00", "PENDING");
+    }
+
+    @Test
+    void severalInvoicesMoveInOneCall() {
+        long first = invoice("100.00", "0.00", "PENDING");
+        long second = invoice("50.00", "0.00", "SENT");
+
+        invoiceService.applyPaymentDeltas(Map.of(first, new BigDecimal("10.00"), second, new BigDecimal("50.00")));
+
+        assertBalance(first, "10.00", "90.00", "PARTIALLY_PAID");
+        assertBalance(second, "50.00", "0.00", "PAID");
+    }
+
+    @Test
+    void zeroDeltasAreSkipped() {
+        long invoiceId = invoice("100.00", "0.00", "PENDING");
+
+        invoiceService.applyPaymentDeltas(Map.of(invoiceId, BigDecimal.ZERO));
+
+        assertBalance(invoiceId, "0.00", "100.00", "PENDING");
+        assertThat(version(invoiceId)).isZero();
+    }
+
+    @Test
+    void cancelledInvoiceRejectsTheWholeCall() {
+        long open = invoice("100.00", "0.00", "PENDING");
+        long cancelled = invoice("100.00", "0.00", "CANCELLED");
+
+        assertThatThrownBy(() -> invoiceService.applyPaymentDeltas(
+                Map.of(open, new BigDecimal("10.00"), cancelled, new BigDecimal("10.00"))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("cancelled or refunded");
+
+        // The update to the open invoice rolls back with the rejected one
+        assertBalance(open, "0.00", "100.00", "PENDING");
+        assertBalance(cancelled, "0.00", "100.00", "CANCELLED");
+    }
+
+    @Test
+    void unknownInvoiceIsReportedAsNotFound() {
+        assertThatThrownBy(() -> invoiceService.applyPaymentDeltas(Map.of(-1L, BigDecimal.ONE)))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessageContaining("-1");
+    }
+
+    private long invoice(String total, String paid, String status) {
+        return fixtures.invoice(customerId, status, total, paid);
+    }
+
+    private void assertBalance(long invoiceId, String paid, String due, String status) {
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT amount_paid, amount_due, status FROM invoices WHERE id = ?", invoiceId);
+        assertThat((BigDecimal) row.get("amount_paid")).isEqualByComparingTo(paid);
+        assertThat((BigDecimal) row.get("amount_due")).isEqualByComparingTo(due);
+        assertThat(row.get("status")).isEqualTo(status);
+    }
+
+    private long version(long invoiceId) {
+        return jdbcTemplate.queryForObject("SELECT version FROM invoices WHERE id = ?", Long.class, invoiceId);
+    }
+}
@@ -0,0 +1,103 @@
+package com.erp.backend.service;
+
+import com.erp.backend.dto.CursorPage;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeysetCursorTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    record Row(long id, LocalDateTime date) {
+    }
+
+    @Test
+    void missingCursorStartsFromTheBeginning() {
+        assertThat(KeysetCursor.afterId(null).getId()).isZero();
+        assertThat(KeysetCursor.afterId(" ").getSortKey()).isNull();
+
+        KeysetCursor cursor = KeysetCursor.afterDate(null, START);
+        assertThat(cursor.getSortKey()).isEqualTo(START);
+        assertThat(cursor.getId()).isZero();
+    }
+
+    @Test
+    void nextCursorPointsAtTheLastRowOfTheSlice() {
+        List<Row> rows = List.of(new Row(7, START.plusDays(1)), new Row(9, START.plusDays(2)));
+        CursorPage<Row> page = KeysetCursor.page(new SliceImpl<>(rows, PageRequest.of(0, 2), true), 2,
+                Row::id, Row::date);
+
+        assertThat(page.isHasNext()).isTrue();
+        KeysetCursor next = KeysetCursor.afterDate(page.getNextCursor(), START);
+        assertThat(next.getId()).isEqualTo(9);
+        assertThat(next.getSortKey()).isEqualTo(START.plusDays(2));
+    }
+
+    @Test
+    void lastSliceHasNoNextCursor() {
+        CursorPage<Row> page = KeysetCursor.page(new SliceImpl<>(List.of(new Row(3, null)), PageRequest.of(0, 2), false),
+                2, Row::id);
+
+        assertThat(page.isHasNext()).isFalse();
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void checkpointTokenRoundTrips() {
+        String token = KeysetCursor.afterDateToken(START.plusHours(5), 42);
+
+        KeysetCursor cursor = KeysetCursor.afterDate(token, START);
+        assertThat(cursor.getSortKey()).isEqualTo(START.plusHours(5));
+        assertThat(cursor.getId()).isEqualTo(42);
+    }
+
+    @Test
+    void cursorBeforeTheRequestedStartIsClampedToIt() {
+        String token = KeysetCursor.afterDateToken(START.minusDays(3), 42);
+
+        KeysetCursor cursor = KeysetCursor.afterDate(token, START);
+        assertThat(cursor.getSortKey()).isEqualTo(START);
+        assertThat(cursor.getId()).isZero();
+    }
+
+    @Test
+    void cursorsAreNotInterchangeableBetweenListings() {
+        String dateToken = KeysetCursor.afterDateToken(START, 1);
+        String idToken = KeysetCursor.page(new SliceImpl<>(List.of(new Row(5, null)), PageRequest.of(0, 1), true),
+                1, Row::id).getNextCursor();
+
+        assertThatThrownBy(() -> KeysetCursor.afterId(dateToken)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> KeysetCursor.afterDate(idToken, START)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void malformedTokensAreRejected() {
+        String wrongVersion = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("2|5".getBytes(StandardCharsets.UTF_8));
+        String badId = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("1|five".getBytes(StandardCharsets.UTF_8));
+
+        for (String token : List.of("not base64!", wrongVersion, badId)) {
+            assertThatThrownBy(() -> KeysetCursor.afterId(token))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Invalid cursor");
+        }
+    }
+
+    @Test
+    void limitIsDefaultedAndClamped() {
+        assertThat(KeysetCursor.limit(null)).isEqualTo(KeysetCursor.DEFAULT_LIMIT);
+        assertThat(KeysetCursor.limit(0)).isEqualTo(1);
+        assertThat(KeysetCursor.limit(50)).isEqualTo(50);
+        assertThat(KeysetCursor.limit(1_000_000)).isEqualTo(KeysetCursor.MAX_LIMIT);
+    }
+}
@@ -0,0 +1,114 @@
+package com.erp.backend.service;
+
+import com.erp.backend.TestFixtures;
+import com.erp.backend.dto.OrderImportResult;
+import com.erp.backend.dto.OrderImportSummary;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Chunk size 2, so a file of a few orders spans several chunks
+@SpringBootTest(properties = "erp.import.chunk-size=2")
+@ActiveProfiles("test")
+class OrderImportServiceTest {
+
+    private static final String HEADER = "orderRef,customerId,productId,quantity,unitPrice\n";
+
+    @Autowired
+    private OrderImportService orderImportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TestFixtures fixtures;
+    private long customerId;
+
+    @BeforeEach
+    void createCustomer() {
+        fixtures = new TestFixtures(jdbcTemplate);
+        customerId = fixtures.customer("Order Import");
+    }
+
+    @Test
+    void unknownCustomerOrProductFailsOnlyItsOwnOrder() throws IOException {
+        long productId = fixtures.product(10);
+        long missing = productId + 1_000_000;
+        String csv = HEADER
+                + "A," + customerId + "," + productId + ",1,10.00\n"
+                + "B," + customerId + "," + missing + ",1,10.00\n"
+                + "C," + missing + "," + productId + ",1,10.00\n";
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OrderImportSummary summary = orderImportService.importOrders(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), OrderImportService.Format.CSV, out);
+
+        assertThat(summary.getCreated()).isEqualTo(1);
+        assertThat(summary.getFailed()).isEqualTo(2);
+        List<OrderImportResult> results = results(out);
+        assertThat(reference(results, "B").getError()).isEqualTo("Product not found with id: " + missing);
+        assertThat(reference(results, "C").getError()).isEqualTo("Customer not found with id: " + missing);
+        assertThat(stock(productId)).isEqualTo(9);
+    }
+
+    @Test
+    void uploadBreakingOffCreatesNothingPastTheLastFullChunk() {
+        long productId = fixtures.product(10);
+        // Orders A and B fill a chunk, C is complete and waiting in the next one when the upload breaks
+        String csv = HEADER
+                + "A," + customerId + "," + productId + ",1,10.00\n"
+                + "B," + customerId + "," + productId + ",1,10.00\n"
+                + "C," + customerId + "," + productId + ",1,10.00\n"
+                + "D," + customerId + "," + productId + ",1,10.00\n";
+        InputStream broken = new SequenceInputStream(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("Connection reset by peer");
+                    }
+                });
+
+        assertThatThrownBy(() -> orderImportService.importOrders(broken, OrderImportService.Format.CSV,
+                new ByteArrayOutputStream()))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Connection reset by peer");
+        assertThat(stock(productId)).isEqualTo(8);
+    }
+
+    private List<OrderImportResult> results(ByteArrayOutputStream out) throws IOException {
+        List<OrderImportResult> results = new ArrayList<>();
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        // The last line is the summary
+        for (int i = 0; i < lines.length - 1; i++) {
+            results.add(objectMapper.readValue(lines[i], OrderImportResult.class));
+        }
+        return results;
+    }
+
+    private static OrderImportResult reference(List<OrderImportResult> results, String reference) {
+        return results.stream().filter(result -> reference.equals(result.getReference())).findFirst().orElseThrow();
+    }
+
+    private int stock(long productId) {
+        return jdbcTemplate.queryForObject("SELECT stock_quantity FROM products WHERE id = ?", Integer.class, productId);
+    }
+}
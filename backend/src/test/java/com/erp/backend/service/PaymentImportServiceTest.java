@@ -0,0 +1,189 @@
+package com.erp.backend.service;
+
+import com.erp.backend.TestFixtures;
+import com.erp.backend.dto.PaymentImportResult;
+import com.erp.backend.dto.PaymentImportSummary;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Chunk size 2, so duplicates are seen both inside one chunk and across chunks
+@SpringBootTest(properties = "erp.payments.import.chunk-size=2")
+@ActiveProfiles("test")
+class PaymentImportServiceTest {
+
+    @Autowired
+    private PaymentImportService paymentImportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TestFixtures fixtures;
+    private long customerId;
+
+    @BeforeEach
+    void createCustomer() {
+        fixtures = new TestFixtures(jdbcTemplate);
+        customerId = fixtures.customer("Payment Import");
+    }
+
+    @Test
+    void postingTheSameFileTwicePaysOnce() throws IOException {
+        long first = invoice("100.00");
+        long second = invoice("100.00");
+        String csv = "invoiceId,amount,paymentMethod,referenceNumber\n"
+                + first + ",30.00,BANK_TRANSFER,SET-" + first + "\n"
+                + second + ",40.00,BANK_TRANSFER,SET-" + second + "\n"
+                + first + ",20.00,BANK_TRANSFER,SET-" + first + "-2\n";
+
+        List<PaymentImportResult> firstRun = new ArrayList<>();
+        PaymentImportSummary firstSummary = post(csv, firstRun);
+        List<PaymentImportResult> secondRun = new ArrayList<>();
+        PaymentImportSummary secondSummary = post(csv, secondRun);
+
+        assertThat(firstSummary.getPosted()).isEqualTo(3);
+        assertThat(secondSummary.getPosted()).isZero();
+        assertThat(secondSummary.getFailed()).isEqualTo(3);
+        assertThat(secondRun).allSatisfy(result -> {
+            assertThat(result.getStatus()).isEqualTo(PaymentImportResult.Status.FAILED);
+            assertThat(result.getError()).startsWith("Duplicate payment: reference SET-");
+        });
+        assertThat(amountPaid(first)).isEqualByComparingTo("50.00");
+        assertThat(amountPaid(second)).isEqualByComparingTo("40.00");
+        assertThat(paymentCount(first)).isEqualTo(2);
+    }
+
+    @Test
+    void referenceRepeatedInOneFileIsPostedOnce() throws IOException {
+        long invoiceId = invoice("100.00");
+        String csv = "invoiceId,amount,paymentMethod,referenceNumber\n"
+                + invoiceId + ",10.00,CASH,DUP-" + invoiceId + "\n"
+                + invoiceId + ",10.00,CASH,DUP-" + invoiceId + "\n"
+                + invoiceId + ",10.00,CASH,DUP-" + invoiceId + "\n";
+
+        List<PaymentImportResult> results = new ArrayList<>();
+        PaymentImportSummary summary = post(csv, results);
+
+        assertThat(summary.getPosted()).isEqualTo(1);
+        assertThat(summary.getFailed()).isEqualTo(2);
+        assertThat(row(results, 2).getStatus()).isEqualTo(PaymentImportResult.Status.POSTED);
+        assertThat(amountPaid(invoiceId)).isEqualByComparingTo("10.00");
+    }
+
+    @Test
+    void sameReferenceOnAnotherInvoiceIsNotADuplicate() throws IOException {
+        long first = invoice("100.00");
+        long second = invoice("100.00");
+        String csv = "invoiceId,amount,paymentMethod,referenceNumber\n"
+                + first + ",10.00,CASH,BATCH-7\n"
+                + second + ",10.00,CASH,BATCH-7\n";
+
+        PaymentImportSummary summary = post(csv, new ArrayList<>());
+
+        assertThat(summary.getPosted()).isEqualTo(2);
+    }
+
+    @Test
+    void paymentsWithoutAReferenceAreNotDeduplicated() throws IOException {
+        long invoiceId = invoice("100.00");
+        String csv = "invoiceId,amount,paymentMethod\n"
+                + invoiceId + ",10.00,CASH\n"
+                + invoiceId + ",10.00,CASH\n";
+
+        PaymentImportSummary summary = post(csv, new ArrayList<>());
+
+        assertThat(summary.getPosted()).isEqualTo(2);
+        assertThat(amountPaid(invoiceId)).isEqualByComparingTo("20.00");
+    }
+
+    @Test
+    void closedInvoiceFailsOnlyItsOwnPayments() throws IOException {
+        long open = invoice("100.00");
+        long cancelled = invoice("100.00");
+        jdbcTemplate.update("UPDATE invoices SET status = 'CANCELLED' WHERE id = ?", cancelled);
+        String csv = "invoiceId,amount,paymentMethod,referenceNumber\n"
+                + open + ",10.00,CASH,C-" + open + "\n"
+                + cancelled + ",10.00,CASH,C-" + cancelled + "\n";
+
+        List<PaymentImportResult> results = new ArrayList<>();
+        PaymentImportSummary summary = post(csv, results);
+
+        assertThat(summary.getPosted()).isEqualTo(1);
+        assertThat(row(results, 3).getError()).isEqualTo("Cannot add payment to a cancelled or refunded invoice");
+        assertThat(amountPaid(open)).isEqualByComparingTo("10.00");
+    }
+
+    @Test
+    void uploadBreakingOffPostsNothingPastTheLastFullChunk() {
+        long invoiceId = invoice("100.00");
+        // Two payments fill a chunk; the third is read and waiting in the next one when the upload breaks
+        String csv = "invoiceId,amount,paymentMethod,referenceNumber\n"
+                + invoiceId + ",10.00,CASH,CUT-" + invoiceId + "-1\n"
+                + invoiceId + ",10.00,CASH,CUT-" + invoiceId + "-2\n"
+                + invoiceId + ",10.00,CASH,CUT-" + invoiceId + "-3\n";
+        InputStream broken = new SequenceInputStream(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("Connection reset by peer");
+                    }
+                });
+
+        assertThatThrownBy(() -> paymentImportService.importPayments(broken, OrderImportService.Format.CSV,
+                new ByteArrayOutputStream()))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Connection reset by peer");
+        assertThat(amountPaid(invoiceId)).isEqualByComparingTo("20.00");
+        assertThat(paymentCount(invoiceId)).isEqualTo(2);
+    }
+
+    private PaymentImportSummary post(String csv, List<PaymentImportResult> results) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PaymentImportSummary summary = paymentImportService.importPayments(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), OrderImportService.Format.CSV, out);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        // The last line is the summary
+        for (int i = 0; i < lines.length - 1; i++) {
+            results.add(objectMapper.readValue(lines[i], PaymentImportResult.class));
+        }
+        return summary;
+    }
+
+    // Rejected payments are answered before the posted ones of their chunk, so results are found by row
+    private static PaymentImportResult row(List<PaymentImportResult> results, long row) {
+        return results.stream().filter(result -> result.getRow() == row).findFirst().orElseThrow();
+    }
+
+    private long invoice(String total) {
+        return fixtures.invoice(customerId, total);
+    }
+
+    private BigDecimal amountPaid(long invoiceId) {
+        return jdbcTemplate.queryForObject("SELECT amount_paid FROM invoices WHERE id = ?", BigDecimal.class, invoiceId);
+    }
+
+    private long paymentCount(long invoiceId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM payments WHERE invoice_id = ?", Long.class, invoiceId);
+    }
+}
@@ -0,0 +1,149 @@
+package com.erp.backend.service;
+
+import com.erp.backend.dto.OrderDTO;
+import com.erp.backend.dto.OrderItemDTO;
+import com.erp.backend.model.Order;
+import com.erp.backend.model.Product;
+import com.erp.backend.repository.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Stock is cached far longer than the default here, so only eviction can make a change visible
+@SpringBootTest(properties = "erp.catalog.cache.stock-ttl-ms=600000")
+@ActiveProfiles("test")
+@WithMockUser(username = "catalog-cache", roles = "ADMIN")
+class ProductCatalogCacheTest {
+
+    private static final long USER_ID = 7_000;
+    private static final long CUSTOMER_ID = 7_000;
+    private static final AtomicLong nextId = new AtomicLong(7_000);
+
+    @Autowired
+    private ProductCatalogCache productCatalogCache;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void createUserAndCustomer() {
+        jdbcTemplate.update("MERGE INTO users (id, username, password, full_name, email, role, enabled) KEY (id) " +
+                "VALUES (?, 'catalog-cache', 'x', 'Catalog Cache', 'catalog-cache@example.com', 'ADMIN', TRUE)", USER_ID);
+        jdbcTemplate.update("MERGE INTO customers (id, name, email, active) KEY (id) VALUES (?, ?, ?, TRUE)",
+                CUSTOMER_ID, "Catalog Cache", "catalog-cache@example.com");
+    }
+
+    @Test
+    void cachedProductRendersLikeTheEntity() throws Exception {
+        long productId = product(25);
+
+        String entity = transactionTemplate.execute(status -> {
+            try {
+                return objectMapper.writeValueAsString(productRepository.findById(productId).orElseThrow());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        String miss = objectMapper.writeValueAsString(productCatalogCache.findById(productId).orElseThrow());
+        String hit = objectMapper.writeValueAsString(productCatalogCache.findById(productId).orElseThrow());
+
+        assertThat(miss).isEqualTo(entity);
+        assertThat(hit).isEqualTo(entity);
+        assertThat(hit).contains("\"supplier\":{", "\"category\":{", "\"description\":\"Category of " + productId);
+    }
+
+    @Test
+    void readsCannotChangeTheCachedSnapshot() {
+        long productId = product(25);
+
+        Product first = productCatalogCache.findById(productId).orElseThrow();
+        first.setName("changed by a caller");
+        first.getCategory().setName("changed by a caller");
+
+        Product second = productCatalogCache.findById(productId).orElseThrow();
+        assertThat(second.getName()).isEqualTo("Product " + productId);
+        assertThat(second.getCategory().getName()).isEqualTo("Category " + productId);
+    }
+
+    @Test
+    void missingProductIsNotCached() {
+        long productId = nextId.incrementAndGet();
+        assertThat(productCatalogCache.findById(productId)).isEmpty();
+
+        insertProduct(productId, 5);
+
+        assertThat(productCatalogCache.findById(productId)).isPresent();
+    }
+
+    @Test
+    void orderCreationAndCancellationEvictCachedStock() {
+        long productId = product(25);
+        assertThat(productCatalogCache.findById(productId).orElseThrow().getStockQuantity()).isEqualTo(25);
+
+        Order order = orderService.createOrder(orderFor(productId, 10));
+        assertThat(productCatalogCache.findById(productId).orElseThrow().getStockQuantity()).isEqualTo(15);
+
+        orderService.cancelOrder(order.getId());
+        assertThat(productCatalogCache.findById(productId).orElseThrow().getStockQuantity()).isEqualTo(25);
+    }
+
+    private long product(int stock) {
+        long id = nextId.incrementAndGet();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO categories (id, name, description, active, created_by, created_at, updated_at) " +
+                "VALUES (?, ?, ?, TRUE, ?, ?, ?)", id, "Category " + id, "Category of " + id, USER_ID, now, now);
+        jdbcTemplate.update("INSERT INTO suppliers (id, name, email, city, country, tax_id, active, created_at, updated_at) " +
+                "VALUES (?, ?, ?, 'Pune', 'IN', ?, TRUE, ?, ?)", id, "Supplier " + id, "supplier" + id + "@example.com",
+                "TAX-" + id, now, now);
+        insertProduct(id, stock);
+        jdbcTemplate.update("UPDATE products SET category_id = ?, supplier_id = ?, description = ?, cost_price = ?, " +
+                "weight = ?, barcode = ? WHERE id = ?", id, id, "Described " + id, new BigDecimal("4.50"),
+                new BigDecimal("1.25"), "BC" + id, id);
+        return id;
+    }
+
+    private void insertProduct(long id, int stock) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO products (id, sku, name, unit_price, stock_quantity, active, version, " +
+                "created_by, created_at, updated_at) VALUES (?, ?, ?, ?, ?, TRUE, 0, ?, ?, ?)",
+                id, "CACHE-" + id, "Product " + id, new BigDecimal("9.99"), stock, USER_ID, now, now);
+    }
+
+    private OrderDTO orderFor(long productId, int quantity) {
+        OrderItemDTO item = new OrderItemDTO();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        item.setUnitPrice(new BigDecimal("9.99"));
+
+        OrderDTO order = new OrderDTO();
+        order.setCustomerId(CUSTOMER_ID);
+        order.setOrderItems(List.of(item));
+        return order;
+    }
+}
@@ -0,0 +1,119 @@
+package com.erp.backend.service;
+
+import com.erp.backend.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductSearchIndexTest {
+
+    private static final String[] VOCABULARY = {
+            "laptop", "lamp", "bag", "backpack", "black", "blue", "stand", "steel", "cable", "usb",
+            "charger", "chair", "desk", "deskmat", "a4", "ab", "b2b", "x1"};
+
+    private final List<Object[]> rows = new ArrayList<>();
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void createIndex() {
+        ProductRepository productRepository = mock(ProductRepository.class);
+        when(productRepository.streamSearchFields()).thenAnswer(invocation -> rows.stream());
+        index = new ProductSearchIndex(productRepository, mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void shortWordNarrowsTheLongWordsMatches() {
+        add(1, "Laptop Bag Black", "LB-1");
+        add(2, "Laptop Stand", "LS-2");
+        add(3, "Backpack", "BP-3");
+        index.rebuild();
+
+        assertThat(ids("lap ba")).containsExactly(1L);
+        assertThat(ids("ba lap")).containsExactly(1L);
+        assertThat(ids("b")).containsExactlyInAnyOrder(1L, 3L);
+        assertThat(ids("lap zz")).isEmpty();
+    }
+
+    @Test
+    void shortWordsMatchWordPrefixesOnly() {
+        add(1, "Cable usb", "C-1");
+        add(2, "Desk", "AB-2");
+        index.rebuild();
+
+        assertThat(ids("sb")).isEmpty();
+        assertThat(ids("us")).containsExactly(1L);
+        assertThat(ids("ab")).containsExactly(2L);
+    }
+
+    @Test
+    void resultsMatchABruteForceScan() {
+        Random random = new Random(11);
+        for (long id = 1; id <= 2_000; id++) {
+            StringBuilder name = new StringBuilder();
+            for (int word = 0; word < 1 + random.nextInt(4); word++) {
+                name.append(VOCABULARY[random.nextInt(VOCABULARY.length)]).append(' ');
+            }
+            add(id, name.toString().trim(), "SKU-" + id);
+        }
+        index.rebuild();
+
+        for (int query = 0; query < 300; query++) {
+            StringBuilder text = new StringBuilder();
+            for (int word = 0; word < 1 + random.nextInt(3); word++) {
+                String vocabularyWord = VOCABULARY[random.nextInt(VOCABULARY.length)];
+                int length = 1 + random.nextInt(Math.min(4, vocabularyWord.length()));
+                int start = random.nextInt(vocabularyWord.length() - length + 1);
+                text.append(length < 3 ? vocabularyWord.substring(0, length) : vocabularyWord.substring(start, start + length))
+                        .append(' ');
+            }
+            String q = text.toString().trim();
+            assertThat(new HashSet<>(ids(q))).as(q).isEqualTo(bruteForce(q));
+        }
+    }
+
+    private void add(long id, String name, String sku) {
+        rows.add(new Object[]{id, name, sku, null, null});
+    }
+
+    private List<Long> ids(String query) {
+        ProductSearchIndex.SearchResult result = index.search(query, 0, ProductSearchIndex.MAX_RANKED_RESULTS);
+        return result.productIds();
+    }
+
+    // Every word of three or more characters occurs in the name or SKU; every shorter word starts one of their words
+    private Set<Long> bruteForce(String query) {
+        Set<Long> matches = new HashSet<>();
+        for (Object[] row : rows) {
+            String[] texts = {normalize((String) row[1]), normalize((String) row[2])};
+            boolean all = true;
+            for (String word : query.split(" ")) {
+                boolean found = false;
+                for (String text : texts) {
+                    if (word.length() >= 3 ? text.contains(word) : (" " + text).contains(" " + word)) {
+                        found = true;
+                    }
+                }
+                all &= found;
+            }
+            if (all) {
+                matches.add((Long) row[0]);
+            }
+        }
+        return matches;
+    }
+
+    private static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", " ").trim();
+    }
+}